@@ -0,0 +1,32 @@
+package wasapi.benchmarks;
+
+import retrofit2.Call;
+import retrofit2.Response;
+import wasapi.WasapiUtilities;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exposes the protected {@link wasapi.Caller} entry points to the benchmarks.
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public class BenchmarkCaller extends WasapiUtilities {
+
+    public static <Model> Model performCall(Call<Model> call, Class<?>... errorModels) {
+        return perform(call, false, false, errorModels);
+    }
+
+    public static <Model> Response<Model> getResponseFor(Call<Model> call) {
+        return getResponse(call, false, false);
+    }
+
+    public static <Model> CompletableFuture<Model> performCallInBackground(Call<Model> call) {
+        return performInBackground(call, false, false);
+    }
+
+    public static <Model> CompletableFuture<Model> performCallAsync(Call<Model> call) {
+        return performAsync(call, false, false);
+    }
+}
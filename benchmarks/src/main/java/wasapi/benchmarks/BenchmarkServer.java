@@ -0,0 +1,93 @@
+package wasapi.benchmarks;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-process {@link MockWebServer} on loopback that serves the endpoints of {@link BenchmarkServices}.
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public class BenchmarkServer {
+
+    /**
+     * The JSON body served for successful user requests.
+     */
+    public static final String USER_JSON = "{\"id\":\"5f2a\",\"username\":\"nice-user\",\"email\":\"nice-user@admin.com\",\"age\":31}";
+
+    /**
+     * The JSON body served for failed requests.
+     */
+    public static final String ERROR_JSON = "{\"status\":404,\"error\":\"Not Found\",\"message\":\"User not found\"}";
+
+    private final MockWebServer server = new MockWebServer();
+
+    /**
+     * Starts a server that answers every request after the given delay.
+     *
+     * @param delayMillis the delay before the response body is sent, in milliseconds
+     * @return the started server
+     */
+    public static BenchmarkServer start(long delayMillis) throws IOException {
+        return start(delayMillis, Protocol.HTTP_1_1);
+    }
+
+    /**
+     * Starts a server that speaks the given protocols and answers every request after the given delay.
+     *
+     * @param delayMillis the delay before the response body is sent, in milliseconds
+     * @param protocols   the protocols the server speaks, e.g. {@link Protocol#H2_PRIOR_KNOWLEDGE} for h2c
+     * @return the started server
+     */
+    public static BenchmarkServer start(long delayMillis, Protocol... protocols) throws IOException {
+        BenchmarkServer benchmarkServer = new BenchmarkServer();
+        benchmarkServer.server.setProtocols(List.of(protocols));
+        benchmarkServer.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath() == null ? "" : request.getPath();
+                MockResponse response = path.startsWith("/missing") ?
+                        new MockResponse().setResponseCode(404).setBody(ERROR_JSON) :
+                        new MockResponse().setBody(USER_JSON);
+                response.setHeader("Content-Type", "application/json");
+                if (delayMillis > 0) response.setBodyDelay(delayMillis, TimeUnit.MILLISECONDS);
+                return response;
+            }
+        });
+        benchmarkServer.server.start();
+        return benchmarkServer;
+    }
+
+    /**
+     * Returns the base URL of the server.
+     *
+     * @return the base URL, ending with a slash
+     */
+    public String baseUrl() {
+        return server.url("/").toString();
+    }
+
+    /**
+     * Returns the underlying mock web server.
+     *
+     * @return the {@link MockWebServer}
+     */
+    public MockWebServer server() {
+        return server;
+    }
+
+    /**
+     * Shuts the server down.
+     */
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package wasapi.benchmarks;
+
+import retrofit2.Call;
+import retrofit2.http.GET;
+
+/**
+ * The service interface every benchmark calls {@link BenchmarkServer} with.
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public interface BenchmarkServices {
+
+    @GET("user")
+    Call<User> getUser();
+
+    @GET("missing")
+    Call<User> getMissingUser();
+
+    /**
+     * The model served by {@link BenchmarkServer#USER_JSON}.
+     */
+    class User {
+        public String id;
+        public String username;
+        public String email;
+        public int age;
+    }
+
+    /**
+     * The model served by {@link BenchmarkServer#ERROR_JSON}.
+     */
+    class Error {
+        public int status;
+        public String error;
+        public String message;
+    }
+
+    /**
+     * An error model that does not match {@link BenchmarkServer#ERROR_JSON}.
+     */
+    class ValidationError {
+        public String field;
+        public String[] violations;
+    }
+
+    /**
+     * Another error model that does not match {@link BenchmarkServer#ERROR_JSON}.
+     */
+    class RateLimitError {
+        public long retryAfter;
+        public String reason;
+    }
+}
@@ -0,0 +1,41 @@
+package wasapi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wasapi.WasapiClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code WasapiClient.Builder.build()} in a warmed-up JVM, the cost paid every time a service is built.
+ * <p>
+ * With {@code cacheServices} on, the Retrofit instance and the service proxy are reused from the service cache after
+ * the first build; with it off, both are created on every build. The shared OkHttp client is reused either way.
+ * Run with {@code -prof gc} to compare allocations per build.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar BuildBenchmark -prof gc
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheServices;
+
+    @Benchmark
+    public BenchmarkServices build() {
+        return new WasapiClient.Builder()
+                .baseUrl("http://localhost:5001/")
+                .logHeaders(false)
+                .cacheServices(cacheServices)
+                .build(BenchmarkServices.class);
+    }
+}
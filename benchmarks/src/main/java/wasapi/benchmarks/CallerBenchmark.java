@@ -0,0 +1,64 @@
+package wasapi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wasapi.Caller;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the client-side overhead of {@code Caller.perform} over a raw Retrofit {@code call.execute()}.
+ * <p>
+ * Both benchmarks call the same service against a loopback server without delay, so the difference between them is
+ * the work wasapi does per call: naming the call, logging it, recording metrics and verifying the response.
+ * {@code logging} turns header, request body and response body logging on or off in the client and in
+ * {@link Caller}. Run with {@code -prof gc} to compare allocations per call.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar CallerBenchmark -prof gc
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CallerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean logging;
+
+    private BenchmarkServer server;
+    private BenchmarkServices services;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = BenchmarkServer.start(0);
+        Caller.keepLogs(logging);
+        services = new WasapiClient.Builder()
+                .baseUrl(server.baseUrl())
+                .logHeaders(logging)
+                .logRequestBody(logging)
+                .build(BenchmarkServices.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public BenchmarkServices.User rawExecute() throws IOException {
+        return services.getUser().execute().body();
+    }
+
+    @Benchmark
+    public BenchmarkServices.User perform() {
+        return BenchmarkCaller.performCall(services.getUser());
+    }
+}
@@ -0,0 +1,79 @@
+package wasapi.benchmarks;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.*;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+import retrofit2.converter.moshi.MoshiConverterFactory;
+import wasapi.ConverterType;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static utils.mapping.MappingUtilities.Json.mapper;
+
+/**
+ * Measures the throughput of the JSON converters services can be built with, without the network.
+ * <p>
+ * {@code decode} converts {@link BenchmarkServer#USER_JSON} to a {@link BenchmarkServices.User} and {@code encode}
+ * converts the user back to a request body, with the converter Retrofit resolves for the model. The Jackson converter
+ * uses wasapi's shared object mapper. Run with {@code -prof gc} to compare allocations per conversion.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar ConverterBenchmark -prof gc
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    @Param({"JACKSON", "GSON", "MOSHI"})
+    public ConverterType converter;
+
+    private byte[] userJson;
+    private BenchmarkServices.User user;
+    private Converter<ResponseBody, BenchmarkServices.User> responseConverter;
+    private Converter<BenchmarkServices.User, RequestBody> requestConverter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl("http://localhost:5001/")
+                .addConverterFactory(switch (converter) {
+                    case JACKSON -> JacksonConverterFactory.create(mapper);
+                    case GSON -> GsonConverterFactory.create();
+                    case MOSHI -> MoshiConverterFactory.create();
+                    default -> throw new IllegalArgumentException("No JSON converter: " + converter);
+                })
+                .build();
+        responseConverter = retrofit.responseBodyConverter(BenchmarkServices.User.class, new Annotation[0]);
+        requestConverter = retrofit.requestBodyConverter(BenchmarkServices.User.class, new Annotation[0], new Annotation[0]);
+        userJson = BenchmarkServer.USER_JSON.getBytes(StandardCharsets.UTF_8);
+        user = decode();
+    }
+
+    @Benchmark
+    public BenchmarkServices.User decode() throws IOException {
+        return responseConverter.convert(ResponseBody.create(userJson, JSON));
+    }
+
+    @Benchmark
+    public RequestBody encode() throws IOException {
+        return requestConverter.convert(user);
+    }
+}
@@ -0,0 +1,72 @@
+package wasapi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wasapi.Caller;
+import wasapi.ConverterType;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start of a service: building it, and building it and performing its first call, in a fresh JVM.
+ * <p>
+ * {@code all} builds the service with every converter, as wasapi did before converters could be selected;
+ * {@code jackson} builds it with the Jackson converter only, so the other converter libraries are never loaded.
+ * Every fork measures a single invocation, so run it with many forks, and with {@code -prof cl} to compare the
+ * number of classes loaded.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar ConverterStartupBenchmark -prof cl
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ConverterStartupBenchmark {
+
+    @Param({"all", "jackson"})
+    public String converters;
+
+    private BenchmarkServer server;
+    private ConverterType[] converterTypes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = BenchmarkServer.start(0);
+        Caller.keepLogs(false);
+        converterTypes = converters.equals("all") ?
+                ConverterType.values() :
+                Arrays.stream(converters.split(",")).map(name -> ConverterType.valueOf(name.toUpperCase())).toArray(ConverterType[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public BenchmarkServices build() {
+        return newServices();
+    }
+
+    @Benchmark
+    public BenchmarkServices.User buildAndCall() {
+        return BenchmarkCaller.performCall(newServices().getUser());
+    }
+
+    private BenchmarkServices newServices() {
+        return new WasapiClient.Builder()
+                .baseUrl(server.baseUrl())
+                .logHeaders(false)
+                .converters(converterTypes)
+                .build(BenchmarkServices.class);
+    }
+}
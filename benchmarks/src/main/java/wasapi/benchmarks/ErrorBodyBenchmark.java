@@ -0,0 +1,65 @@
+package wasapi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wasapi.Caller;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding the error body of a failed call into one of several error models.
+ * <p>
+ * Every call is answered with {@link BenchmarkServer#ERROR_JSON}, and {@code perform} is given {@code errorModels}
+ * models of which only the last one matches, so the models before it are tried and rejected first. {@code 0}
+ * performs the call without error models, as the baseline. Run with {@code -prof gc} to compare allocations per call.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar ErrorBodyBenchmark -prof gc
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ErrorBodyBenchmark {
+
+    @Param({"0", "1", "3"})
+    public int errorModels;
+
+    private BenchmarkServer server;
+    private BenchmarkServices services;
+    private Class<?>[] models;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = BenchmarkServer.start(0);
+        Caller.keepLogs(false);
+        services = new WasapiClient.Builder()
+                .baseUrl(server.baseUrl())
+                .logHeaders(false)
+                .build(BenchmarkServices.class);
+        Class<?>[] candidates = {
+                BenchmarkServices.ValidationError.class,
+                BenchmarkServices.RateLimitError.class,
+                BenchmarkServices.Error.class
+        };
+        models = new Class<?>[errorModels];
+        System.arraycopy(candidates, candidates.length - errorModels, models, 0, errorModels);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public Object performWithErrorModels() {
+        return BenchmarkCaller.performCall(services.getMissingUser(), models);
+    }
+}
@@ -0,0 +1,85 @@
+package wasapi.benchmarks;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.openjdk.jmh.annotations.*;
+import wasapi.HeaderTemplate;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of preparing a request in the network interceptor of {@code WasapiClient}.
+ * <p>
+ * {@code legacy} is the request preparation wasapi used before {@link HeaderTemplate}: one request rebuild up front,
+ * one for {@code Host}, one per missing default header and one for the content headers, with a new header name set
+ * allocated per default header. {@code template} is the single-pass {@link HeaderTemplate#apply(Request)}.
+ * Run with {@code -prof gc} to compare allocations per request.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderTemplateBenchmark {
+
+    @Param({"0", "4", "12"})
+    public int defaultHeaders;
+
+    private Headers headers;
+    private HeaderTemplate template;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Headers.Builder builder = new Headers.Builder();
+        for (int index = 0; index < defaultHeaders; index++)
+            builder.add("X-Default-Header-" + index, "value-" + index);
+        headers = builder.build();
+        template = HeaderTemplate.of(headers);
+        request = new Request.Builder()
+                .url("http://localhost:5001/api/user/add-food")
+                .header("Accept", "application/json")
+                .post(RequestBody.create(BenchmarkServer.USER_JSON, MediaType.get("application/json")))
+                .build();
+    }
+
+    @Benchmark
+    public Request template() throws IOException {
+        return template.apply(request);
+    }
+
+    @Benchmark
+    public Request legacy() throws IOException {
+        Request request = this.request.newBuilder().build();
+        request = request.newBuilder()
+                .header("Host", request.url().host())
+                .method(request.method(), request.body())
+                .build();
+        for (String header: headers.names()) {
+            if (!request.headers().names().contains(header)){
+                request = request.newBuilder()
+                        .addHeader(header, Objects.requireNonNull(headers.get(header)))
+                        .build();
+            }
+        }
+        if (request.body() != null) {
+            boolean contentLength = Objects.requireNonNull(request.body()).contentLength() != 0;
+            boolean contentType = Objects.requireNonNull(request.body()).contentType() != null;
+            if (contentLength && contentType)
+                request = request.newBuilder()
+                        .header("Content-Length", String.valueOf(Objects.requireNonNull(request.body()).contentLength()))
+                        .header("Content-Type", String.valueOf(Objects.requireNonNull(request.body()).contentType()))
+                        .build();
+        }
+        return request;
+    }
+}
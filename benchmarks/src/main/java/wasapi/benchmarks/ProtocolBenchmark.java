@@ -0,0 +1,101 @@
+package wasapi.benchmarks;
+
+import okhttp3.Protocol;
+import org.openjdk.jmh.annotations.*;
+import wasapi.Caller;
+import wasapi.HttpClientRegistry;
+import wasapi.HttpProtocol;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares HTTP/1.1 pooled connections with HTTP/2 multiplexing (h2c) for many small concurrent calls to one host.
+ * <p>
+ * Each invocation enqueues {@code concurrency} calls and waits for all of them. The dispatcher allows every call to
+ * be in flight at once, so with HTTP/1.1 the client opens a connection per call in flight, while with h2c the calls
+ * share one multiplexed connection. The connections the client holds are reported as the {@code connections}
+ * secondary result.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar ProtocolBenchmark -prof gc
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    @Param({"HTTP_1_1", "H2C"})
+    public HttpProtocol protocol;
+
+    @Param({"64", "256"})
+    public int concurrency;
+
+    @Param({"5"})
+    public long serverDelayMillis;
+
+    private BenchmarkServer server;
+    private BenchmarkServices services;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = BenchmarkServer.start(
+                serverDelayMillis,
+                protocol == HttpProtocol.H2C ? Protocol.H2_PRIOR_KNOWLEDGE : Protocol.HTTP_1_1
+        );
+        Caller.keepLogs(false);
+        services = new WasapiClient.Builder()
+                .baseUrl(server.baseUrl())
+                .logHeaders(false)
+                .protocol(protocol)
+                .maxRequests(concurrency, concurrency)
+                .build(BenchmarkServices.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+        HttpClientRegistry.evictAll();
+    }
+
+    @Benchmark
+    public Object concurrentCalls(Connections connections) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++)
+            futures[i] = BenchmarkCaller.performCallAsync(services.getUser());
+        CompletableFuture.allOf(futures).join();
+        connections.record(protocol);
+        return futures;
+    }
+
+    /**
+     * The connections of the client after the last invocation, reported by JMH next to the primary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Connections {
+
+        public long connections;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            connections = 0;
+        }
+
+        void record(HttpProtocol protocol) {
+            connections = HttpClientRegistry.stats().stream()
+                    .filter(stats -> stats.key().protocol() == protocol)
+                    .mapToLong(HttpClientRegistry.ClientStats::connectionCount)
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package wasapi.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import wasapi.Caller;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares blocking calls run on virtual threads with blocking calls run on platform threads.
+ * <p>
+ * Each invocation submits {@code concurrency} blocking {@code perform} calls through
+ * {@code Caller.performInBackground} and waits for all of them. The server delays every response, so the benchmark
+ * measures how well each mode parks threads that are blocked on I/O. Virtual threads require JDK 21+; on older
+ * JDKs both modes run on platform threads.
+ * </p>
+ * <pre>
+ *     java -jar target/benchmarks.jar VirtualThreadBenchmark -prof gc
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"100", "1000"})
+    public int concurrency;
+
+    @Param({"20"})
+    public long serverDelayMillis;
+
+    private BenchmarkServer server;
+    private BenchmarkServices services;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = BenchmarkServer.start(serverDelayMillis);
+        Caller.keepLogs(false);
+        Caller.useVirtualThreads(virtualThreads);
+        services = new WasapiClient.Builder()
+                .baseUrl(server.baseUrl())
+                .logHeaders(false)
+                .virtualThreads(virtualThreads)
+                .build(BenchmarkServices.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public Object blockingCalls() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++)
+            futures[i] = BenchmarkCaller.performCallInBackground(services.getUser());
+        return CompletableFuture.allOf(futures).join();
+    }
+}
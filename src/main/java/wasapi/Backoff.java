@@ -0,0 +1,53 @@
+package wasapi;
+
+import okhttp3.Headers;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delay calculations shared by the polling and retry policies.
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class Backoff {
+
+    private Backoff() {}
+
+    /**
+     * Returns an exponentially growing, capped and jittered delay.
+     *
+     * @param initialDelay the delay after the first attempt
+     * @param maxDelay     the maximum delay, before jitter
+     * @param multiplier   the factor the delay grows by after every attempt
+     * @param jitter       the maximum random deviation of the delay, as a fraction of the delay (0 to 1)
+     * @param attempt      the number of attempts made so far, starting at 1
+     * @return the delay in milliseconds
+     */
+    static long delayMillis(Duration initialDelay, Duration maxDelay, double multiplier, double jitter, int attempt) {
+        double delay = initialDelay.toMillis() * Math.pow(Math.max(1, multiplier), Math.max(0, attempt - 1));
+        delay = Math.min(delay, maxDelay.toMillis());
+        double deviation = Math.min(Math.max(jitter, 0), 1) * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(0, Math.round(delay * (1 + deviation)));
+    }
+
+    /**
+     * Returns the delay requested by the {@code Retry-After} header, in seconds or as an HTTP date.
+     *
+     * @param headers the response headers
+     * @return the requested delay in milliseconds, or 0 if none was requested
+     */
+    static long retryAfterMillis(Headers headers) {
+        String retryAfter = headers.get("Retry-After");
+        if (retryAfter == null) return 0;
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+        }
+        catch (NumberFormatException ignored) {}
+        Date date = headers.getDate("Retry-After");
+        return date == null ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+}
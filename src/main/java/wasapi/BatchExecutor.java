@@ -0,0 +1,225 @@
+package wasapi;
+
+import retrofit2.Call;
+import retrofit2.Response;
+import wasapi.collections.BatchResult;
+import wasapi.collections.ResponsePair;
+import wasapi.exceptions.FailedCallException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs a batch of independent calls with a global and a per-host concurrency limit.
+ * <p>
+ * Calls are enqueued (see {@link Caller#getResponseAsync(String, Call, boolean, boolean, Class[])}), so no thread
+ * is held per in-flight call; only the thread that runs the batch waits for it to finish. Pending calls are kept in
+ * one FIFO queue per host, and a completed call immediately starts the next call whose host has capacity.
+ * </p>
+ *
+ * @param <SuccessModel> the type of the successful response bodies
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class BatchExecutor<SuccessModel> {
+
+    private final List<Call<SuccessModel>> calls;
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerHost;
+    private final boolean failFast;
+    private final Class<?>[] errorModels;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, ArrayDeque<Integer>> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> inFlightPerHost = new HashMap<>();
+    private final Map<Integer, CompletableFuture<?>> running = new HashMap<>();
+    private final List<ResponsePair<Response<SuccessModel>, Object>> responses;
+    private final String[] hosts;
+    private final Map<Integer, Throwable> failures = new TreeMap<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private boolean dispatching;
+    private int inFlight;
+    private int completed;
+    private long totalCallNanos;
+    private long maxCallNanos;
+
+    BatchExecutor(
+            List<Call<SuccessModel>> calls,
+            int maxConcurrency,
+            int maxConcurrencyPerHost,
+            boolean failFast,
+            Class<?>... errorModels) {
+        this.calls = calls;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxConcurrencyPerHost = Math.max(1, maxConcurrencyPerHost);
+        this.failFast = failFast;
+        this.errorModels = errorModels;
+        this.responses = new ArrayList<>(Collections.nCopies(calls.size(), null));
+        this.hosts = new String[calls.size()];
+    }
+
+    /**
+     * Runs every call of the batch and waits for the batch to finish.
+     *
+     * @return the {@link BatchResult}, in input order
+     * @throws FailedCallException in fail-fast mode, when a call fails or returns an unsuccessful response
+     */
+    BatchResult<SuccessModel> execute() {
+        long start = System.nanoTime();
+        for (int index = 0; index < calls.size(); index++) {
+            hosts[index] = calls.get(index).request().url().host();
+            pending.computeIfAbsent(hosts[index], host -> new ArrayDeque<>()).add(index);
+        }
+
+        if (calls.isEmpty()) done.complete(null);
+        else dispatch();
+
+        try {
+            done.join();
+        }
+        catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) throw cause;
+            throw exception;
+        }
+
+        lock.lock();
+        try {
+            return new BatchResult<>(
+                    Collections.unmodifiableList(new ArrayList<>(responses)),
+                    Collections.unmodifiableMap(new TreeMap<>(failures)),
+                    Duration.ofNanos(System.nanoTime() - start),
+                    Duration.ofNanos(totalCallNanos),
+                    Duration.ofNanos(maxCallNanos)
+            );
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts as many pending calls as the global and per-host limits allow, until no more can be started.
+     * Calls are enqueued outside the lock, since enqueueing may complete them on the current thread. Only one thread
+     * drains the queues at a time: a call that completes meanwhile, on this thread or another, only frees its slot,
+     * and the draining thread picks it up on its next pass. This keeps the stack flat however many calls complete
+     * synchronously.
+     */
+    private void dispatch() {
+        lock.lock();
+        try {
+            if (dispatching) return;
+            dispatching = true;
+        }
+        finally {
+            lock.unlock();
+        }
+        while (true) {
+            List<Integer> starts = new ArrayList<>();
+            lock.lock();
+            try {
+                for (Map.Entry<String, ArrayDeque<Integer>> hostQueue : pending.entrySet()) {
+                    if (done.isDone() || inFlight >= maxConcurrency) break;
+                    String host = hostQueue.getKey();
+                    int hostInFlight = inFlightPerHost.getOrDefault(host, 0);
+                    while (!hostQueue.getValue().isEmpty() && hostInFlight < maxConcurrencyPerHost && inFlight < maxConcurrency) {
+                        starts.add(hostQueue.getValue().poll());
+                        hostInFlight++;
+                        inFlight++;
+                    }
+                    inFlightPerHost.put(host, hostInFlight);
+                }
+                pending.values().removeIf(ArrayDeque::isEmpty);
+                if (starts.isEmpty()) {
+                    dispatching = false;
+                    return;
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+            starts.forEach(this::start);
+        }
+    }
+
+    /**
+     * Enqueues the call with the given index. If enqueueing throws, e.g. because the call was already executed, the
+     * call is completed with the exception, so the batch does not wait for it.
+     */
+    private void start(int index) {
+        long startedAt = System.nanoTime();
+        Call<SuccessModel> call = calls.get(index);
+        String host = hosts[index];
+        CompletableFuture<ResponsePair<Response<SuccessModel>, Object>> future;
+        try {
+            future = Caller.getResponseAsync(ServiceNames.of(call), call, false, false, errorModels);
+        }
+        catch (RuntimeException exception) {
+            complete(index, host, System.nanoTime() - startedAt, null, exception);
+            return;
+        }
+        lock.lock();
+        try {
+            running.put(index, future);
+        }
+        finally {
+            lock.unlock();
+        }
+        future.whenComplete((pair, throwable) -> complete(index, host, System.nanoTime() - startedAt, pair, throwable));
+    }
+
+    /**
+     * Records the outcome of a call, fails the batch in fail-fast mode, and starts the next pending calls.
+     */
+    private void complete(
+            int index,
+            String host,
+            long callNanos,
+            ResponsePair<Response<SuccessModel>, Object> pair,
+            Throwable throwable) {
+        List<CompletableFuture<?>> cancelled = new ArrayList<>();
+        lock.lock();
+        try {
+            running.remove(index);
+            inFlight--;
+            inFlightPerHost.merge(host, -1, Integer::sum);
+            if (throwable instanceof CancellationException && done.isDone()) return;
+
+            completed++;
+            totalCallNanos += callNanos;
+            maxCallNanos = Math.max(maxCallNanos, callNanos);
+            if (throwable != null)
+                failures.put(index, throwable instanceof CompletionException ? throwable.getCause() : throwable);
+            else
+                responses.set(index, pair);
+
+            boolean failed = throwable != null || !pair.response().isSuccessful();
+            if (failFast && failed && !done.isDone()) {
+                cancelled.addAll(running.values());
+                pending.clear();
+                done.completeExceptionally(new FailedCallException(
+                        "Call #" + index + " of the batch performed for " + ServiceNames.of(calls.get(index)) + " service failed: " +
+                                (throwable != null ? throwable.getMessage() : "response code " + pair.response().code())
+                ));
+            }
+            else if (completed == calls.size()) done.complete(null);
+        }
+        finally {
+            lock.unlock();
+        }
+        cancelled.forEach(future -> future.cancel(true));
+        if (!done.isDone()) dispatch();
+    }
+}
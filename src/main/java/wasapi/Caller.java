@@ -1,22 +1,37 @@
 package wasapi;
 
+import wasapi.exceptions.CircuitBreakerOpenException;
 import wasapi.exceptions.FailedCallException;
+import wasapi.exceptions.WasapiException;
 import wasapi.collections.ResponsePair;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import context.ContextStore;
 import okhttp3.ResponseBody;
-import okio.Buffer;
+import okio.BufferedSource;
 import properties.PropertyUtilities;
 import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Invocation;
 import retrofit2.Response;
+import retrofit2.http.Streaming;
 import utils.*;
-import utils.mapping.MappingUtilities;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import static utils.mapping.MappingUtilities.Json.*;
-import static utils.reflection.ReflectionUtilities.getPreviousMethodName;
 import static utils.StringUtilities.Color.*;
 import static utils.reflection.ReflectionUtilities.isOfType;
 
@@ -34,8 +49,12 @@ public abstract class Caller {
 
     /**
      * A static boolean variable that determines whether logs should be kept for API calls.
+     * It is read from the {@code keep-api-logs} property (default: true) once, and only changes through
+     * {@link #keepLogs(boolean)}; individual calls can still opt in or out with their {@code printBody} flag.
      */
-    public static boolean logResponseBody;
+    public static volatile boolean logResponseBody = Boolean.parseBoolean(
+            PropertyUtilities.getProperty("keep-api-logs", "true")
+    );
 
     /**
      * A Printer object for logging.
@@ -43,11 +62,31 @@ public abstract class Caller {
     private static final Printer log = new Printer(Caller.class);
 
     /**
-     * Constructs a wasapi.Caller object and initializes the ObjectMapper object and the keepLogs variable.
+     * Maximum number of error body bytes read for logging and error model matching.
      */
-    public Caller(){
-        logResponseBody = Boolean.parseBoolean(PropertyUtilities.getProperty("keep-api-logs", "true"));
-    }
+    private static final long maxErrorBodyBytes = Long.parseLong(ContextStore.get("error-body-limit", "1048576"));
+
+    /**
+     * Readers of the error models, cached per model class.
+     */
+    private static final Map<Class<?>, ObjectReader> errorReaders = new ConcurrentHashMap<>();
+
+    /**
+     * Whether blocking calls submitted in the background run on virtual threads, null until resolved from the
+     * {@code virtual-threads} property.
+     */
+    private static volatile Boolean virtualThreads;
+
+    /**
+     * The executor blocking calls are submitted to by the {@code InBackground} entry points.
+     */
+    private static final AtomicReference<ExecutorService> executor = new AtomicReference<>();
+
+    /**
+     * Constructs a wasapi.Caller object. Constructing a caller does not touch the shared logging configuration,
+     * so callers can be created concurrently, e.g. by tests running in parallel.
+     */
+    public Caller(){}
 
     /**
      * Performs the given call and processes the response. This method provides advanced error handling capabilities.
@@ -70,7 +109,90 @@ public abstract class Caller {
             Boolean strict,
             Boolean printBody,
             Class<?>... errorModels){
-        Response<?> response = call(call, strict, printBody, getPreviousMethodName());
+        Response<?> response = call(call, strict, printBody, ServiceNames.of(call));
+        return response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels);
+    }
+
+    /**
+     * Performs the given call and processes the response, selecting the error model with the given discriminator.
+     *
+     * @param call The call to be executed. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, throws a FailedCallException when the call fails or the response is not successful. If false, returns null in these cases.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param discriminator Selects the error model by response code or error body field. The selected model is tried first.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the discriminator selects no matching model.
+     *
+     * @return A ResponseType object. If the call was successful, this is the body of the response. If the call was not successful and strict is false, this is the parsed error response.
+     *
+     * @throws FailedCallException If strict is true, and the call failed or the response was not successful.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ReturnType> The type of the return value in this method. This is either SuccessModel or ErrorModel.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <SuccessModel, ReturnType> ReturnType perform(
+            Call<SuccessModel> call,
+            Boolean strict,
+            Boolean printBody,
+            ErrorDiscriminator discriminator,
+            Class<?>... errorModels){
+        Response<?> response = call(call, strict, printBody, ServiceNames.of(call));
+        return response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, discriminator, errorModels);
+    }
+
+    /**
+     * Performs the given call, retrying it by the given policy, and processes the response.
+     * The policy replaces the retry policy of the call's client for this call.
+     *
+     * @param call The call to be executed. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, throws a FailedCallException when the call fails or the response is not successful. If false, returns null in these cases.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param retryPolicy The policy to retry the call by.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A ResponseType object. If the call was successful, this is the body of the response. If the call was not successful and strict is false, this is the parsed error response of the last attempt.
+     *
+     * @throws FailedCallException If strict is true and the response of the last attempt was not successful, or the last attempt failed.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ReturnType> The type of the return value in this method. This is either SuccessModel or ErrorModel.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <SuccessModel, ReturnType> ReturnType perform(
+            Call<SuccessModel> call,
+            Boolean strict,
+            Boolean printBody,
+            RetryPolicy retryPolicy,
+            Class<?>... errorModels){
+        Response<?> response = call(call, strict, printBody, ServiceNames.of(call), retryPolicy, null);
+        return response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels);
+    }
+
+    /**
+     * Performs the given call, hedging it by the given policy, and processes the response. If the call is idempotent
+     * and has not been answered within the hedge delay, a second copy of it is sent; the first response wins.
+     *
+     * @param call The call to be executed. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, throws a FailedCallException when the call fails or the response is not successful. If false, returns null in these cases.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param hedgePolicy The policy to hedge the call by, usually the policy of its service (see {@link HedgePolicy#forService(String)}).
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A ResponseType object. If the call was successful, this is the body of the first response. If the call was not successful and strict is false, this is the parsed error response.
+     *
+     * @throws FailedCallException If strict is true and the first response was not successful, or every copy of the call failed.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ReturnType> The type of the return value in this method. This is either SuccessModel or ErrorModel.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <SuccessModel, ReturnType> ReturnType perform(
+            Call<SuccessModel> call,
+            Boolean strict,
+            Boolean printBody,
+            HedgePolicy hedgePolicy,
+            Class<?>... errorModels){
+        Response<?> response = call(call, strict, printBody, ServiceNames.of(call), null, hedgePolicy);
         return response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels);
     }
 
@@ -91,10 +213,43 @@ public abstract class Caller {
     protected static <SuccessModel, ReturnType> ReturnType perform(
             Call<SuccessModel> call,
             Class<?>... errorModels){
-        Response<?> response = call(call, false, logResponseBody, getPreviousMethodName());
+        Response<?> response = call(call, false, logResponseBody, ServiceNames.of(call));
         return response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels);
     }
 
+    /**
+     * Performs the given call and decodes the elements of the JSON array in its response body one at a time, while
+     * the body streams in, so memory use stays flat however large the array is.
+     * <p>
+     * The service method has to be annotated with {@link Streaming}; otherwise Retrofit reads the whole body into
+     * memory before it is returned. The returned stream has to be closed, e.g. with try-with-resources, unless it
+     * is read to the end; closing it early cancels the call and drops the connection.
+     * </p>
+     *
+     * @param call The call to be executed, of a service method that returns {@code Call<ResponseBody>}.
+     * @param elementType The type the elements of the array are decoded into.
+     *
+     * @return A {@link JsonStream} of the elements, which can also be consumed as a Stream or a Flow.Publisher.
+     *
+     * @throws FailedCallException If the call failed, or the response was not successful.
+     * @throws WasapiException If the response body is not a JSON array.
+     *
+     * @param <ElementModel> The type of the elements.
+     */
+    protected static <ElementModel> JsonStream<ElementModel> performStreaming(
+            Call<ResponseBody> call,
+            Class<ElementModel> elementType){
+        String serviceName = ServiceNames.of(call);
+        Invocation invocation = call.request().tag(Invocation.class);
+        if (invocation != null && !invocation.method().isAnnotationPresent(Streaming.class))
+            log.warning(serviceName + " is not annotated with @Streaming, its response body is read into memory at once.");
+        Response<ResponseBody> response = call(call, true, false, serviceName);
+        ResponseBody body = response.body();
+        if (body == null)
+            throw new FailedCallException("The call performed for " + serviceName + " service returned no body");
+        return new JsonStream<>(call, body, elementType);
+    }
+
     /**
      * Gets the response from an API call and logs the results.
      *
@@ -103,7 +258,7 @@ public abstract class Caller {
      * @throws FailedCallException if the call is strict and the response is not successful
      */
     protected static <Model> Response<Model> getResponse(Call<Model> call){
-        return call(call, false, logResponseBody, getPreviousMethodName());
+        return call(call, false, logResponseBody, ServiceNames.of(call));
     }
 
     /**
@@ -116,7 +271,58 @@ public abstract class Caller {
      * @throws FailedCallException if the call is strict and the response is not successful
      */
     protected static <Model> Response<Model> getResponse(Call<Model> call, boolean strict, boolean printBody){
-        return call(call, strict, printBody, getPreviousMethodName());
+        return call(call, strict, printBody, ServiceNames.of(call));
+    }
+
+    /**
+     * Gets the response from an API call, retrying it by the given policy, and logs the results.
+     * The policy replaces the retry policy of the call's client for this call.
+     *
+     * @param call the Call object representing the API call
+     * @param strict a boolean indicating whether the call should be strict (i.e. throw an exception if the response is not successful)
+     * @param printBody a boolean indicating whether the response body should be printed
+     * @param retryPolicy the policy to retry the call by
+     * @return the Response object of the last attempt
+     * @throws FailedCallException if the last attempt failed, or the call is strict and its response is not successful
+     */
+    protected static <Model> Response<Model> getResponse(Call<Model> call, boolean strict, boolean printBody, RetryPolicy retryPolicy){
+        return call(call, strict, printBody, ServiceNames.of(call), retryPolicy, null);
+    }
+
+    /**
+     * Gets the response from an API call, hedging it by the given policy, and logs the results.
+     *
+     * @param call the Call object representing the API call
+     * @param strict a boolean indicating whether the call should be strict (i.e. throw an exception if the response is not successful)
+     * @param printBody a boolean indicating whether the response body should be printed
+     * @param hedgePolicy the policy to hedge the call by
+     * @return the first Response object of the copies of the call
+     * @throws FailedCallException if every copy of the call failed, or the call is strict and the response is not successful
+     */
+    protected static <Model> Response<Model> getResponse(Call<Model> call, boolean strict, boolean printBody, HedgePolicy hedgePolicy){
+        return call(call, strict, printBody, ServiceNames.of(call), null, hedgePolicy);
+    }
+
+    /**
+     * Gets the response from an API call, retrying it by the given retry policy and hedging every attempt by the given
+     * hedge policy, and logs the results. The retry policy replaces the retry policy of the call's client for this
+     * call and its hedged copies.
+     *
+     * @param call the Call object representing the API call
+     * @param strict a boolean indicating whether the call should be strict (i.e. throw an exception if the response is not successful)
+     * @param printBody a boolean indicating whether the response body should be printed
+     * @param retryPolicy the policy to retry the call by
+     * @param hedgePolicy the policy to hedge the attempts by
+     * @return the Response object of the last attempt
+     * @throws FailedCallException if the last attempt failed, or the call is strict and its response is not successful
+     */
+    protected static <Model> Response<Model> getResponse(
+            Call<Model> call,
+            boolean strict,
+            boolean printBody,
+            RetryPolicy retryPolicy,
+            HedgePolicy hedgePolicy){
+        return call(call, strict, printBody, ServiceNames.of(call), retryPolicy, hedgePolicy);
     }
 
     /**
@@ -155,43 +361,308 @@ public abstract class Caller {
             boolean printBody,
             Class<?>... errorModels
     ){
-        Response<SuccessModel> response = call(call, strict, printBody, getPreviousMethodName());
+        Response<SuccessModel> response = call(call, strict, printBody, ServiceNames.of(call));
         return response.isSuccessful() ?
                 new ResponsePair<>(response, null) :
                 new ResponsePair<>(response, getErrorBody(response, errorModels));
     }
 
+    /**
+     * Executes the given call and returns a Pair containing the response and the error model selected with the given
+     * discriminator.
+     *
+     * @param call The call to be executed. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, throws a FailedCallException when the call fails or the response is not successful.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param discriminator Selects the error model by response code or error body field. The selected model is tried first.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the discriminator selects no matching model.
+     *
+     * @return A Pair object with the SuccessModel response as the first element and ErrorModel as the second element. If the call was successful, the second element is null.
+     *
+     * @throws FailedCallException If strict is true and the call failed or the response was not successful.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ErrorModel> The type of the error response body.
+     */
+    protected static <SuccessModel, ErrorModel> ResponsePair<Response<SuccessModel>, ErrorModel> getResponse(
+            Call<SuccessModel> call,
+            boolean strict,
+            boolean printBody,
+            ErrorDiscriminator discriminator,
+            Class<?>... errorModels
+    ){
+        Response<SuccessModel> response = call(call, strict, printBody, ServiceNames.of(call));
+        return response.isSuccessful() ?
+                new ResponsePair<>(response, null) :
+                new ResponsePair<>(response, getErrorBody(response, discriminator, errorModels));
+    }
+
+    /**
+     * Asynchronously performs the given call and processes the response without blocking the calling thread.
+     *
+     * @param call The call to be enqueued. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, completes the future with a FailedCallException when the response is not successful.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A future of the ResponseType object, see {@link #perform(Call, Boolean, Boolean, Class[])}.
+     * Cancelling the future cancels the underlying call.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ReturnType> The type of the value the future is completed with. This is either SuccessModel or ErrorModel.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <SuccessModel, ReturnType> CompletableFuture<ReturnType> performAsync(
+            Call<SuccessModel> call,
+            Boolean strict,
+            Boolean printBody,
+            Class<?>... errorModels){
+        return callAsync(
+                call,
+                strict,
+                printBody,
+                ServiceNames.of(call),
+                response -> response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels)
+        );
+    }
+
+    /**
+     * Asynchronously performs the given call and processes the response without blocking the calling thread.
+     *
+     * @param call The call to be enqueued. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A future of the ResponseType object, see {@link #perform(Call, Class[])}.
+     * Cancelling the future cancels the underlying call.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ReturnType> The type of the value the future is completed with. This is either SuccessModel or ErrorModel.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <SuccessModel, ReturnType> CompletableFuture<ReturnType> performAsync(
+            Call<SuccessModel> call,
+            Class<?>... errorModels){
+        return callAsync(
+                call,
+                false,
+                logResponseBody,
+                ServiceNames.of(call),
+                response -> response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels)
+        );
+    }
+
+    /**
+     * Asynchronously gets the response from an API call and logs the results.
+     *
+     * @param call the Call object representing the API call
+     * @return a future of the Response object, cancelling the future cancels the underlying call
+     */
+    protected static <Model> CompletableFuture<Response<Model>> getResponseAsync(Call<Model> call){
+        return callAsync(call, false, logResponseBody, ServiceNames.of(call), Function.identity());
+    }
+
+    /**
+     * Asynchronously gets the response from an API call and logs the results.
+     *
+     * @param call the Call object representing the API call
+     * @param strict a boolean indicating whether the future should fail with a FailedCallException if the response is not successful
+     * @param printBody a boolean indicating whether the response body should be printed
+     * @return a future of the Response object, cancelling the future cancels the underlying call
+     */
+    protected static <Model> CompletableFuture<Response<Model>> getResponseAsync(Call<Model> call, boolean strict, boolean printBody){
+        return callAsync(call, strict, printBody, ServiceNames.of(call), Function.identity());
+    }
+
+    /**
+     * Asynchronously gets the response from an API call and logs the results.
+     *
+     * @param serviceName the name of the service being called
+     * @param call the Call object representing the API call
+     * @param strict a boolean indicating whether the future should fail with a FailedCallException if the response is not successful
+     * @param printBody a boolean indicating whether the response body should be printed
+     * @return a future of the Response object, cancelling the future cancels the underlying call
+     */
+    protected static <Model> CompletableFuture<Response<Model>> getResponseAsync(String serviceName, Call<Model> call, boolean strict, boolean printBody){
+        return callAsync(call, strict, printBody, serviceName, Function.identity());
+    }
+
+    /**
+     * Asynchronously executes the given call and returns a future of a Pair containing the response and potential error model.
+     *
+     * @param call The call to be enqueued. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, completes the future with a FailedCallException when the response is not successful.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A future of the Pair object, see {@link #getResponse(Call, boolean, boolean, Class[])}.
+     * Cancelling the future cancels the underlying call.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ErrorModel> The type of the error response body.
+     */
+    protected static <SuccessModel, ErrorModel> CompletableFuture<ResponsePair<Response<SuccessModel>, ErrorModel>> getResponseAsync(
+            Call<SuccessModel> call,
+            boolean strict,
+            boolean printBody,
+            Class<?>... errorModels
+    ){
+        return callAsync(
+                call,
+                strict,
+                printBody,
+                ServiceNames.of(call),
+                response -> response.isSuccessful() ?
+                        new ResponsePair<>(response, null) :
+                        new ResponsePair<>(response, getErrorBody(response, errorModels))
+        );
+    }
+
+    /**
+     * Asynchronously executes the given call for the named service and returns a future of a Pair containing the
+     * response and potential error model. Unlike {@link #getResponseAsync(Call, boolean, boolean, Class[])}, the
+     * error body is left null when no error models are given.
+     *
+     * @param serviceName The name of the service being called.
+     * @param call The call to be enqueued.
+     * @param strict If true, completes the future with a FailedCallException when the response is not successful.
+     * @param printBody If true, prints the body of the response.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A future of the Pair object, cancelling the future cancels the underlying call.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ErrorModel> The type of the error response body.
+     */
+    protected static <SuccessModel, ErrorModel> CompletableFuture<ResponsePair<Response<SuccessModel>, ErrorModel>> getResponseAsync(
+            String serviceName,
+            Call<SuccessModel> call,
+            boolean strict,
+            boolean printBody,
+            Class<?>... errorModels
+    ){
+        return callAsync(
+                call,
+                strict,
+                printBody,
+                serviceName,
+                response -> response.isSuccessful() || errorModels.length == 0 ?
+                        new ResponsePair<>(response, null) :
+                        new ResponsePair<>(response, getErrorBody(response, errorModels))
+        );
+    }
+
+    /**
+     * Runs the blocking {@link #perform(Call, Boolean, Boolean, Class[])} on the background executor, which uses a
+     * virtual thread per call when virtual threads are enabled (see {@link #useVirtualThreads(boolean)}).
+     *
+     * @param call The call to be executed. This is a retrofit2.Call object, which represents a request that has been prepared for execution.
+     * @param strict If true, completes the future with a FailedCallException when the response is not successful.
+     * @param printBody If true, prints the body of the response. This may be useful for debugging purposes.
+     * @param errorModels Varargs parameter. Each ErrorModel class is used to try to parse the error response if the call was not successful.
+     *
+     * @return A future of the ResponseType object, see {@link #perform(Call, Boolean, Boolean, Class[])}.
+     *
+     * @param <SuccessModel> The type of the successful response body.
+     * @param <ReturnType> The type of the value the future is completed with. This is either SuccessModel or ErrorModel.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <SuccessModel, ReturnType> CompletableFuture<ReturnType> performInBackground(
+            Call<SuccessModel> call,
+            Boolean strict,
+            Boolean printBody,
+            Class<?>... errorModels){
+        String serviceName = ServiceNames.of(call);
+        return CompletableFuture.supplyAsync(() -> {
+            Response<?> response = call(call, strict, printBody, serviceName);
+            return response.isSuccessful() ? (ReturnType) response.body() : getErrorBody(response, errorModels);
+        }, executor());
+    }
+
+    /**
+     * Runs the blocking {@link #getResponse(Call, boolean, boolean)} on the background executor, which uses a
+     * virtual thread per call when virtual threads are enabled (see {@link #useVirtualThreads(boolean)}).
+     *
+     * @param call the Call object representing the API call
+     * @param strict a boolean indicating whether the future should fail with a FailedCallException if the response is not successful
+     * @param printBody a boolean indicating whether the response body should be printed
+     * @return a future of the Response object
+     */
+    protected static <Model> CompletableFuture<Response<Model>> getResponseInBackground(Call<Model> call, boolean strict, boolean printBody){
+        String serviceName = ServiceNames.of(call);
+        return CompletableFuture.supplyAsync(() -> call(call, strict, printBody, serviceName), executor());
+    }
+
+    /**
+     * Executes the given call, retrying it by the given retry policy and hedging every attempt by the given hedge
+     * policy. Retries execute clones of the call, and the error bodies of the responses that are retried are closed.
+     * While the call is retried by a per-call policy, the policy of its client does not retry it again. Attempts that
+     * fail fast because a circuit breaker is open are not retried.
+     *
+     * @param <T>          The type of the response body.
+     * @param call         The call to execute.
+     * @param retryPolicy  The policy to retry the call by, or null to execute it once.
+     * @param hedgePolicy  The policy to hedge the attempts by, or null to not hedge them.
+     * @return             The response of the last attempt.
+     * @throws IOException if the last attempt failed without a response.
+     */
+    private static <T> Response<T> execute(Call<T> call, RetryPolicy retryPolicy, HedgePolicy hedgePolicy) throws IOException {
+        if (retryPolicy == null) return hedgePolicy == null ? call.execute() : hedgePolicy.execute(call);
+        retryPolicy.onCall();
+        Call<T> attempt = call;
+        for (int retry = 1; ; retry++) {
+            long delay;
+            RetryInterceptor.suppress(attempt);
+            try {
+                Response<T> response = hedgePolicy == null ? attempt.execute() : hedgePolicy.execute(attempt);
+                if (response.isSuccessful()) return response;
+                delay = retryPolicy.retryDelay(retry, attempt.request(), response.code(), response.headers(), attempt.isCanceled());
+                if (delay < 0) return response;
+                if (response.errorBody() != null) response.errorBody().close();
+            }
+            catch (CircuitBreakerOpenException exception) {
+                throw exception;
+            }
+            catch (IOException exception) {
+                delay = retryPolicy.retryDelay(retry, attempt.request(), -1, null, attempt.isCanceled());
+                if (delay < 0) throw exception;
+            }
+            finally {
+                RetryInterceptor.release(attempt);
+            }
+            RetryPolicy.sleep(delay, call::isCanceled);
+            attempt = attempt.clone();
+        }
+    }
+
     /**
      * Clones and logs the given response.
      *
      * @param <T>         The type of the response body.
-     * @param call        The original call to execute and log.
+     * @param response    The response of an executed call.
      * @param printBody   Flag to indicate whether the response body should be logged.
      * @return            A new cloned response object.
      */
-    private static <T> Response<T> getResponse(Call<T> call, boolean printBody) throws IOException {
-        Response<T> response = call.execute();
+    private static <T> Response<T> getResponse(Response<T> response, boolean printBody) throws IOException {
         if (response.isSuccessful()) {
             String contentType = response.headers().get("content-type");
             boolean printableResponse = contentType != null && contentType.contains("application/json");
             T body = response.body();
             if (logResponseBody) log.success("The response code is: " + response.code());
             if (logResponseBody && !response.message().isEmpty()) log.info(response.message());
-            if (printBody && printableResponse) log.info("The response body is: \n" + getJsonString(body));
+            if (printBody && printableResponse)
+                log.info("The response body is: \n" + ResponseBodyCapture.describe(response.raw(), body));
             return Response.success(body, response.raw());
         }
         else {
             log.warning("The response code is: " + response.code());
             if (!response.message().isEmpty()) log.warning(response.message());
-            if (printBody)
-                try (Buffer errorBuffer = response.errorBody().source().getBuffer().clone()) {
-                    String bodyString = errorBuffer.readString(StandardCharsets.UTF_8);
-
-                    String errorLog = bodyString.equals("null") || bodyString.isBlank() ?
-                            "The error body is empty." :
-                            "The error body is: \n" + bodyString;
-                    log.warning(errorLog);
-                }
+            if (printBody) {
+                String bodyString = new String(readErrorBody(response.errorBody()), StandardCharsets.UTF_8);
+                String errorLog = bodyString.equals("null") || bodyString.isBlank() ?
+                        "The error body is empty." :
+                        "The error body is: \n" + bodyString;
+                log.warning(errorLog);
+            }
 
 
             return Response.error(response.errorBody(), response.raw());
@@ -199,33 +670,28 @@ public abstract class Caller {
     }
 
     /**
-     * Extracts the error object from the given response and attempts to deserialize it into the specified model.
-     * <p>
-     * The method tries to read the error content from the response and then deserialize it into a generic model type.
-     * If the deserialization fails or other issues occur while processing the error content, a runtime exception is thrown.
-     * </p>
+     * Reads at most {@code error-body-limit} bytes (default: 1 MiB) of the given error body without consuming it.
+     * Retrofit buffers error bodies, so this neither blocks nor prevents the body from being read again.
      *
-     * @param <ErrorModel> The generic type representing the desired structure of the error object.
-     * @param response The response containing the potential error data.
-     * @return A deserialized error object instance of type {@code Model}.
-     * @throws RuntimeException if there's an issue processing the error content or deserializing it.
+     * @param errorBody The error body to read, may be null.
+     * @return The bytes of the error body, or an empty array if there is no error body.
+     * @throws IOException if the error body cannot be read.
+     */
+    private static byte[] readErrorBody(ResponseBody errorBody) throws IOException {
+        if (errorBody == null) return new byte[0];
+        BufferedSource source = errorBody.source();
+        source.request(maxErrorBodyBytes);
+        return source.peek().readByteArray(Math.min(source.getBuffer().size(), maxErrorBodyBytes));
+    }
+
+    /**
+     * Returns the cached reader for the given error model.
      *
-     * @see MappingUtilities.Json#fromJsonString(String, Class)
+     * @param errorModel The error model class.
+     * @return An {@link ObjectReader} that binds to the given error model.
      */
-    @SuppressWarnings("unchecked")
-    private static <ErrorModel> ErrorModel getErrorObject(Response<?> response, Class<ErrorModel> errorModel) throws JsonProcessingException {
-        if (errorModel.isAssignableFrom(ResponseBody.class))
-            return (ErrorModel) response.errorBody();
-        try (Buffer errorBuffer = response.errorBody().source().getBuffer().clone()) {
-            String bodyString = errorBuffer.readString(StandardCharsets.UTF_8);
-            if (!StringUtilities.isBlank(bodyString)) {
-                if (errorModel.isAssignableFrom(String.class))
-                    return (ErrorModel) bodyString;
-                else return fromJsonString(bodyString, errorModel);
-            }
-            else
-                return null;
-        }
+    private static ObjectReader getErrorReader(Class<?> errorModel) {
+        return errorReaders.computeIfAbsent(errorModel, mapper::readerFor);
     }
 
     /**
@@ -253,56 +719,271 @@ public abstract class Caller {
      * @param printBody    Flag to indicate whether the response body should be logged.
      * @param serviceName  The name of the service being called.
      * @return             The response object from the executed call.
-     * @throws RuntimeException      If there's an I/O error during call execution.
-     * @throws FailedCallException   If the call is strict and the response is not successful.
+     * @throws FailedCallException   If there's an I/O error during call execution, or the call is strict and the response is not successful.
      */
     private static <ResponseModel> Response<ResponseModel> call(
             Call<ResponseModel> call,
             boolean strict,
             boolean printBody,
             String serviceName){
+        return call(call, strict, printBody, serviceName, null, null);
+    }
+
+    /**
+     * Executes the given call, retrying and hedging it by the given policies, logs the response or error, and
+     * optionally throws an exception for non-successful responses.
+     *
+     * @param call         The call object to execute.
+     * @param strict       Flag to indicate whether an exception should be thrown for non-successful responses.
+     * @param printBody    Flag to indicate whether the response body should be logged.
+     * @param serviceName  The name of the service being called.
+     * @param retryPolicy  The policy to retry the call by, or null to leave retries to its client.
+     * @param hedgePolicy  The policy to hedge the call by, or null to not hedge it.
+     * @return             The response object from the executed call.
+     * @throws FailedCallException   If there's an I/O error during call execution, or the call is strict and the response is not successful.
+     */
+    private static <ResponseModel> Response<ResponseModel> call(
+            Call<ResponseModel> call,
+            boolean strict,
+            boolean printBody,
+            String serviceName,
+            RetryPolicy retryPolicy,
+            HedgePolicy hedgePolicy){
+        long start = System.nanoTime();
         try {
             printCallSpecifications(call, serviceName);
-            Response<ResponseModel> response = getResponse(call, printBody);
-            if (strict && !Objects.requireNonNull(response).isSuccessful())
-                throw new FailedCallException(
-                        "The strict call performed for " + serviceName + " service returned response code " + response.code()
-                );
-            else return response;
+            Response<ResponseModel> response = getResponse(execute(call, retryPolicy, hedgePolicy), printBody);
+            WasapiMetrics.recordCall(call.request(), response.code(), System.nanoTime() - start);
+            return verify(response, strict, serviceName);
+        }
+        catch (IOException e) {
+            WasapiMetrics.recordFailure(call.request(), System.nanoTime() - start);
+            throw failure(e, serviceName);
         }
-        catch (IOException e) {throw new RuntimeException(e);}
+    }
+
+    /**
+     * Wraps the I/O failure of a call.
+     *
+     * @param exception    The failure of the call.
+     * @param serviceName  The name of the service being called.
+     * @return             A {@link FailedCallException} caused by the given failure.
+     */
+    private static FailedCallException failure(IOException exception, String serviceName){
+        return new FailedCallException(
+                "The call performed for " + serviceName + " service failed: " + exception.getMessage(), exception
+        );
+    }
+
+    /**
+     * Throws a {@link FailedCallException} if the call is strict and the given response is not successful.
+     *
+     * @param response     The response to verify.
+     * @param strict       Flag to indicate whether an exception should be thrown for non-successful responses.
+     * @param serviceName  The name of the service being called.
+     * @return             The given response.
+     * @throws FailedCallException   If the call is strict and the response is not successful.
+     */
+    private static <ResponseModel> Response<ResponseModel> verify(
+            Response<ResponseModel> response,
+            boolean strict,
+            String serviceName){
+        if (strict && !Objects.requireNonNull(response).isSuccessful())
+            throw new FailedCallException(
+                    "The strict call performed for " + serviceName + " service returned response code " + response.code()
+            );
+        else return response;
+    }
+
+    /**
+     * Enqueues the given call, logs the response or error the same way {@link #call(Call, boolean, boolean, String)}
+     * does, and completes the returned future with the mapped response.
+     * <p>
+     * The future is completed on the OkHttp dispatcher thread. Cancelling the returned future cancels the
+     * underlying call.
+     * </p>
+     *
+     * @param call         The call object to enqueue.
+     * @param strict       Flag to indicate whether the future should fail for non-successful responses.
+     * @param printBody    Flag to indicate whether the response body should be logged.
+     * @param serviceName  The name of the service being called.
+     * @param mapper       Maps the verified response to the value the future is completed with.
+     * @return             A future completed with the mapped response, or exceptionally with a
+     *                     {@link FailedCallException} or the failure of the call.
+     */
+    private static <ResponseModel, Result> CompletableFuture<Result> callAsync(
+            Call<ResponseModel> call,
+            boolean strict,
+            boolean printBody,
+            String serviceName,
+            Function<Response<ResponseModel>, Result> mapper){
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        printCallSpecifications(call, serviceName);
+        call.enqueue(new Callback<>() {
+            @Override
+            public void onResponse(Call<ResponseModel> call, Response<ResponseModel> response) {
+                try {
+                    WasapiMetrics.recordCall(call.request(), response.code(), System.nanoTime() - start);
+                    future.complete(mapper.apply(verify(getResponse(response, printBody), strict, serviceName)));
+                }
+                catch (IOException e) {future.completeExceptionally(failure(e, serviceName));}
+                catch (RuntimeException e) {future.completeExceptionally(e);}
+            }
+
+            @Override
+            public void onFailure(Call<ResponseModel> call, Throwable throwable) {
+                WasapiMetrics.recordFailure(call.request(), System.nanoTime() - start);
+                future.completeExceptionally(
+                        throwable instanceof IOException exception ? failure(exception, serviceName) : throwable
+                );
+            }
+        });
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) call.cancel();
+        });
+        return future;
     }
 
     /**
      * Attempts to extract and deserialize the error model from the given response using the specified error models.
      * <p>
-     * The method iterates through the provided error models, trying to deserialize the error content of the response
-     * to each one until a successful deserialization is found or all error models have been tested.
-     * If none of the error models match, a runtime exception is thrown.
+     * The error body is read once into a bounded byte array and, if any candidate is a JSON model, parsed once into
+     * a tree. The candidates are then bound from that tree with cached readers, in order, until one of them matches.
      * </p>
      *
      * @param <ErrorModel> The generic type representing the expected error model structure.
      * @param response The response containing the potential error data.
      * @param errorModels Varargs array of error model classes to attempt deserialization.
-     * @return A deserialized error model instance of type {@code ErrorModel} if a match is found.
-     * @throws RuntimeException if none of the provided error models match the error content of the response.
+     * @return A deserialized error model instance of type {@code ErrorModel} if a match is found, null if the error body is empty.
+     * @throws WasapiException if none of the provided error models match the error content of the response.
      *
-     * @see MappingUtilities.Json#fromJsonString(String, Class)
-     * @see MappingUtilities.Json#getJsonStringFor(Object)
-     * @see #getErrorObject(Response, Class)
+     * @see #getErrorBody(Response, ErrorDiscriminator, Class[])
      */
-    @SuppressWarnings("unchecked")
     private static <ErrorModel> ErrorModel getErrorBody(Response<?> response, Class<?>... errorModels){
-        for (Class<?> errorClass:errorModels){
+        return getErrorBody(response, null, errorModels);
+    }
+
+    /**
+     * Attempts to extract and deserialize the error model from the given response, trying the model selected by the
+     * given discriminator first, then the specified error models.
+     *
+     * @param <ErrorModel> The generic type representing the expected error model structure.
+     * @param response The response containing the potential error data.
+     * @param discriminator Selects the error model by response code or error body field, may be null.
+     * @param errorModels Varargs array of error model classes to attempt deserialization.
+     * @return A deserialized error model instance of type {@code ErrorModel} if a match is found, null if the error body is empty.
+     * @throws WasapiException if none of the error models match the error content of the response.
+     */
+    @SuppressWarnings("unchecked")
+    private static <ErrorModel> ErrorModel getErrorBody(
+            Response<?> response,
+            ErrorDiscriminator discriminator,
+            Class<?>... errorModels){
+        ResponseBody errorBody = response.errorBody();
+        byte[] bytes;
+        try {
+            bytes = readErrorBody(errorBody);
+        }
+        catch (IOException exception) {
+            throw new WasapiException("Could not read the error body: " + exception.getMessage(), exception);
+        }
+        String bodyString = new String(bytes, StandardCharsets.UTF_8);
+        ErrorTree tree = new ErrorTree(bytes);
+
+        List<Class<?>> candidates = new ArrayList<>(errorModels.length + 1);
+        Class<?> selected = discriminator == null ? null : discriminator.select(response.code(), tree::get);
+        if (selected != null) candidates.add(selected);
+        candidates.addAll(Arrays.asList(errorModels));
+
+        StringJoiner mismatches = new StringJoiner("\n");
+        for (Class<?> errorClass : candidates) {
+            if (errorClass.isAssignableFrom(ResponseBody.class)) return (ErrorModel) errorBody;
+            if (StringUtilities.isBlank(bodyString)) return null;
+            if (errorClass.isAssignableFrom(String.class)) return (ErrorModel) bodyString;
+            JsonNode node = tree.get();
+            if (node == null) {
+                mismatches.add(errorClass.getSimpleName() + ": the error body is not valid JSON");
+                continue;
+            }
             try {
-                ErrorModel errorModel = (ErrorModel) getErrorObject(response, errorClass);
-                assert errorModel != null;
-                if (errorClass.isAssignableFrom(errorModel.getClass()))
-                    return errorModel;
+                return getErrorReader(errorClass).readValue(node);
+            }
+            catch (IOException exception) {
+                mismatches.add(errorClass.getSimpleName() + ": " + exception.getMessage());
+            }
+        }
+        throw new WasapiException("Error model(s) did not match the error body!\n" + mismatches);
+    }
+
+    /**
+     * Parses an error body into a JSON tree at most once, on first use.
+     */
+    private static final class ErrorTree {
+        private final byte[] bytes;
+        private JsonNode node;
+        private boolean parsed;
+
+        ErrorTree(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return the parsed error body, or null if it is not valid JSON
+         */
+        JsonNode get() {
+            if (!parsed) {
+                parsed = true;
+                try {
+                    node = mapper.readTree(bytes);
+                }
+                catch (IOException ignored) {}
             }
-            catch (JsonProcessingException ignored) {}
+            return node;
+        }
+    }
+
+    /**
+     * Returns the executor blocking calls are submitted to, creating it on first use.
+     * <p>
+     * This is a virtual-thread-per-task executor when virtual threads are enabled and supported by the running JDK,
+     * a cached pool of daemon platform threads otherwise.
+     *
+     * @return the background executor
+     */
+    static ExecutorService executor() {
+        ExecutorService current;
+        while ((current = executor.get()) == null) {
+            ExecutorService created = usesVirtualThreads() && VirtualThreads.isSupported() ?
+                    VirtualThreads.newExecutor() :
+                    VirtualThreads.newPlatformExecutor("wasapi-caller");
+            if (executor.compareAndSet(null, created)) return created;
+            created.shutdown();
         }
-        throw new RuntimeException("Error model(s) did not match the error body!");
+        return current;
+    }
+
+    /**
+     * Returns whether blocking calls submitted in the background run on virtual threads.
+     *
+     * @return a boolean indicating whether virtual threads are used
+     */
+    public static boolean usesVirtualThreads() {
+        if (virtualThreads == null)
+            virtualThreads = Boolean.parseBoolean(ContextStore.get("virtual-threads", "false"));
+        return virtualThreads;
+    }
+
+    /**
+     * Sets whether blocking calls submitted in the background run on virtual threads (requires JDK 21+).
+     * Calls that are already running finish on their current executor.
+     *
+     * @param enabled a boolean indicating whether virtual threads should be used
+     */
+    public static void useVirtualThreads(boolean enabled) {
+        virtualThreads = enabled;
+        ExecutorService previous = executor.getAndSet(null);
+        if (previous != null) previous.shutdown();
     }
 
     /**
@@ -0,0 +1,98 @@
+package wasapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * The completed chunks of a transfer, appended to a journal file so that an interrupted transfer can resume: a header
+ * line that identifies the transfer, then one line per completed chunk. Used by {@link ChunkedUpload} and
+ * {@link RangedDownload}.
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class ChunkJournal implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final BitSet completed = new BitSet();
+
+    private ChunkJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the given journal, or a journal that is not persisted if the file is null. A journal with another header
+     * was written for another transfer, and is discarded. A trailing line without a line break was torn by a crash
+     * while it was written; it is cut off, and lines that are not chunk indexes are ignored, so their chunks are
+     * transferred again.
+     *
+     * @param file   the journal file, or null
+     * @param header identifies the transfer, e.g. by its size and chunk size
+     * @return the journal, with the chunks it already lists
+     */
+    static ChunkJournal open(File file, String header) throws IOException {
+        if (file == null) return new ChunkJournal(null);
+        ChunkJournal journal;
+        if (file.exists()) {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int end = lastLineBreak(bytes) + 1;
+            String[] lines = new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n");
+            if (lines[0].equals(header)) {
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+                channel.truncate(end);
+                channel.position(end);
+                journal = new ChunkJournal(channel);
+                for (int i = 1; i < lines.length; i++) {
+                    try {
+                        journal.completed.set(Integer.parseInt(lines[i].trim()));
+                    }
+                    catch (NumberFormatException ignored) {}
+                }
+                return journal;
+            }
+        }
+        journal = new ChunkJournal(FileChannel.open(
+                file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        ));
+        journal.write(header);
+        return journal;
+    }
+
+    private static int lastLineBreak(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) if (bytes[i] == '\n') return i;
+        return -1;
+    }
+
+    /**
+     * @return the chunks the journal listed when it was opened
+     */
+    BitSet completed() {
+        return completed;
+    }
+
+    /**
+     * Records a completed chunk, and forces it to the disk.
+     */
+    void append(int index) throws IOException {
+        write(String.valueOf(index));
+    }
+
+    private void write(String line) throws IOException {
+        if (channel == null) return;
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) channel.write(bytes);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
@@ -0,0 +1,144 @@
+package wasapi;
+
+import okhttp3.Headers;
+import wasapi.exceptions.FailedCallException;
+import wasapi.exceptions.WasapiException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+
+/**
+ * What {@link ChunkedUpload} and {@link RangedDownload} have in common: the workers that transfer the chunks of a
+ * file in parallel, and when and after how long a chunk is transferred again.
+ * <p>
+ * A chunk is transferred again when its attempt fails without a response, or with a response code in
+ * {@code retry-status-codes}. Attempts are delayed with the backoff of the default {@link RetryPolicy}
+ * ({@code retry-initial-delay}, {@code retry-max-delay}, {@code retry-backoff-multiplier} and {@code retry-jitter}),
+ * and at least as long as a {@code Retry-After} header asks for.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class ChunkTransfer {
+
+    private ChunkTransfer() {}
+
+    /**
+     * Transfers the chunks that are not done yet on up to {@code parallelism} workers of the background executor of
+     * {@link Caller}, and waits for them. No chunk is started after the first failure.
+     *
+     * @param name        the name of the file, for error messages
+     * @param count       the number of chunks
+     * @param parallelism the maximum number of chunks transferred at once
+     * @param done        whether a chunk was transferred before
+     * @param transferred the bytes of the chunks transferred before
+     * @param total       the size of the file
+     * @param progress    notified whenever a chunk is transferred, or null
+     * @param task        transfers and records a chunk, returning its length
+     * @throws RuntimeException the first failure of a chunk
+     */
+    static void run(
+            String name,
+            int count,
+            int parallelism,
+            IntPredicate done,
+            long transferred,
+            long total,
+            ProgressListener progress,
+            Task task) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong(transferred);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int worker = 0; worker < Math.min(parallelism, count); worker++)
+            workers.add(CompletableFuture.runAsync(() -> {
+                int index;
+                while (failure.get() == null && (index = next.getAndIncrement()) < count) {
+                    if (done.test(index)) continue;
+                    try {
+                        long sum = bytes.addAndGet(task.transfer(index));
+                        if (progress != null) progress.onProgress(sum, total);
+                    }
+                    catch (RuntimeException exception) {
+                        failure.compareAndSet(null, exception);
+                    }
+                    catch (IOException exception) {
+                        failure.compareAndSet(null, new WasapiException(
+                                "Could not record chunk " + index + " of " + name + ": " + exception.getMessage(),
+                                exception
+                        ));
+                    }
+                }
+            }, Caller.executor()));
+        try {
+            CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        }
+        catch (CompletionException exception) {
+            throw exception.getCause() instanceof RuntimeException cause ? cause : exception;
+        }
+        if (failure.get() != null) throw failure.get();
+    }
+
+    /**
+     * Returns whether an attempt that was answered with the given response code is made again.
+     *
+     * @param code the response code
+     * @return true if the code is one of the retryable codes of the default {@link RetryPolicy}
+     */
+    static boolean isRetryable(int code) {
+        return RetryPolicy.getDefault().retryableCodes().contains(code);
+    }
+
+    /**
+     * Returns the delay before the next attempt of a chunk.
+     *
+     * @param attempt the number of attempts made so far, starting at 1
+     * @param headers the response headers of the last attempt, or null if it failed without a response
+     * @return the delay in milliseconds
+     */
+    static long retryDelay(int attempt, Headers headers) {
+        RetryPolicy policy = RetryPolicy.getDefault();
+        long delay = Backoff.delayMillis(policy.initialDelay(), policy.maxDelay(), policy.multiplier(), policy.jitter(), attempt);
+        return headers == null ? delay : Math.max(delay, Backoff.retryAfterMillis(headers));
+    }
+
+    /**
+     * Waits before the next attempt of a chunk.
+     *
+     * @param delayMillis the delay from {@link #retryDelay(int, Headers)}
+     * @param action      what is interrupted, e.g. "uploading report.csv", for the error message
+     * @throws FailedCallException if the thread is interrupted while waiting
+     */
+    static void awaitRetry(long delayMillis, String action) {
+        try {
+            RetryPolicy.sleep(delayMillis);
+        }
+        catch (IOException exception) {
+            throw new FailedCallException("Interrupted while " + action, exception);
+        }
+    }
+
+    /**
+     * Transfers a chunk.
+     */
+    @FunctionalInterface
+    interface Task {
+
+        /**
+         * Transfers and records the given chunk.
+         *
+         * @param index the index of the chunk
+         * @return the length of the chunk
+         * @throws IOException if the chunk could not be recorded
+         */
+        long transfer(int index) throws IOException;
+    }
+}
@@ -0,0 +1,298 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import retrofit2.Call;
+import retrofit2.Response;
+import utils.Printer;
+import wasapi.exceptions.FailedCallException;
+import wasapi.exceptions.WasapiException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.BitSet;
+
+/**
+ * Uploads a file in chunks, several at a time, and resumes from the acknowledged chunks after a failure.
+ * <p>
+ * The file is split into chunks of {@code chunkSize} bytes, and every chunk is sent as its own request, built by the
+ * given {@link ChunkSender} from the chunk and its body (e.g. {@code api.uploadPart(uploadId, chunk.index(), body)}).
+ * Up to {@code parallelism} chunks are sent at once on the background executor of {@link Caller}, over the
+ * connection pool of the service. Chunk bodies are memory-mapped regions of the file that are written straight to
+ * the connection, so a chunk is never read onto the heap as a whole, and they can be sent again when a chunk is
+ * retried. A chunk that fails without a response, or with a response code in {@code retry-status-codes}, is sent
+ * again up to {@code maxAttempts} times, with the backoff of the default {@link RetryPolicy}.
+ * </p>
+ * <p>
+ * Acknowledged chunks are remembered, so calling {@link #upload()} again after a failure only sends the chunks that
+ * are missing. With a journal file (see {@link #journal(File, String)}), acknowledged chunks are also remembered across
+ * processes.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     ChunkedUpload.Result result = new ChunkedUpload(artifact, (chunk, body) -&gt; api.uploadPart(id, chunk.index(), body))
+ *             .journal(new File(artifact.getPath() + ".upload"), id)
+ *             .progress((uploaded, total) -&gt; log.info(uploaded * 100 / total + "%"))
+ *             .upload();
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class ChunkedUpload {
+
+    private static final Printer log = new Printer(ChunkedUpload.class);
+
+    /**
+     * Sends every attempt once, so the retries of the client do not multiply the attempts of a chunk.
+     */
+    private static final RetryPolicy singleAttempt = RetryPolicy.getDefault().withMaxRetries(0);
+
+    private final File file;
+    private final ChunkSender sender;
+    private long chunkSize = Long.parseLong(ContextStore.get("upload-chunk-size", "8388608"));
+    private int parallelism = Integer.parseInt(ContextStore.get("upload-parallelism", "4"));
+    private int maxAttempts = Integer.parseInt(ContextStore.get("upload-chunk-attempts", "3"));
+    private MediaType mediaType;
+    private ProgressListener progress;
+    private File journal;
+    private String uploadId;
+
+    private BitSet acknowledged = new BitSet();
+    private String acknowledgedTransfer;
+
+    /**
+     * Creates an upload of the given file with the {@code upload-chunk-size} (default: 8 MiB),
+     * {@code upload-parallelism} (default: 4) and {@code upload-chunk-attempts} (default: 3) properties.
+     *
+     * @param file   the file to upload
+     * @param sender builds the call that uploads a chunk
+     */
+    public ChunkedUpload(File file, ChunkSender sender) {
+        this.file = file;
+        this.sender = sender;
+    }
+
+    /**
+     * Sets the size of the chunks, at most 2 GiB.
+     */
+    public ChunkedUpload chunkSize(long bytes) {
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The chunk size has to be between 1 byte and 2 GiB");
+        this.chunkSize = bytes;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of chunks sent at once.
+     */
+    public ChunkedUpload parallelism(int chunks) {
+        this.parallelism = chunks;
+        return this;
+    }
+
+    /**
+     * Sets how many times a chunk is sent before the upload fails.
+     */
+    public ChunkedUpload maxAttempts(int attempts) {
+        this.maxAttempts = attempts;
+        return this;
+    }
+
+    /**
+     * Sets the media type of the chunk bodies. (default: probed from the file name)
+     */
+    public ChunkedUpload mediaType(String mediaType) {
+        this.mediaType = MediaType.parse(mediaType);
+        return this;
+    }
+
+    /**
+     * Sets the listener that is notified whenever a chunk is acknowledged.
+     */
+    public ChunkedUpload progress(ProgressListener listener) {
+        this.progress = listener;
+        return this;
+    }
+
+    /**
+     * Remembers acknowledged chunks in the given journal file, and skips the chunks it already lists. The journal is
+     * discarded if it was written for another upload session, for a file of another size or modification time, or
+     * with another chunk size.
+     *
+     * @param journal  the journal file
+     * @param uploadId identifies the upload session on the server, e.g. the id its chunks are sent to
+     */
+    public ChunkedUpload journal(File journal, String uploadId) {
+        this.journal = journal;
+        this.uploadId = uploadId;
+        return this;
+    }
+
+    /**
+     * Uploads the chunks that have not been acknowledged yet, and waits for them.
+     *
+     * @return the {@link Result} of the upload
+     * @throws FailedCallException if a chunk could not be uploaded in {@code maxAttempts} attempts; the chunks
+     *                             acknowledged so far are skipped when the upload is started again
+     */
+    public Result upload() {
+        long start = System.nanoTime();
+        long length = file.length();
+        int chunks = (int) Math.max(1, (length + chunkSize - 1) / chunkSize);
+        MediaType type = mediaType != null ? mediaType : WasapiUtilities.mediaTypeOf(file);
+        String transfer = length + ":" + chunkSize + ":" + file.lastModified() + ":" + uploadId;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             ChunkJournal journal = ChunkJournal.open(this.journal, transfer)) {
+            if (!transfer.equals(acknowledgedTransfer)) acknowledged = new BitSet(chunks);
+            acknowledgedTransfer = transfer;
+            acknowledged.or(journal.completed());
+
+            int skipped = acknowledged.cardinality();
+            long uploaded = 0;
+            for (int index = acknowledged.nextSetBit(0); index >= 0 && index < chunks; index = acknowledged.nextSetBit(index + 1))
+                uploaded += chunk(index, chunks, length).length();
+            if (skipped > 0) log.info("Resuming the upload of " + file.getName() + ", " + skipped + " of " + chunks + " chunks are acknowledged");
+
+            ChunkTransfer.run(file.getName(), chunks, parallelism, this::isAcknowledged, uploaded, length, progress, index -> {
+                Chunk chunk = chunk(index, chunks, length);
+                send(chunk, new FileChunkBody(channel, chunk, type));
+                acknowledge(index, journal);
+                return chunk.length();
+            });
+            return new Result(length, chunks, chunks - skipped, Duration.ofNanos(System.nanoTime() - start));
+        }
+        catch (IOException exception) {
+            throw new WasapiException("Could not upload " + file.getName() + ": " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Sends a chunk until it is acknowledged, or fails for good.
+     */
+    private void send(Chunk chunk, RequestBody body) {
+        for (int attempt = 1; ; attempt++) {
+            Call<?> call = sender.call(chunk, body);
+            Response<?> response = null;
+            FailedCallException failure = null;
+            try {
+                response = Caller.getResponse(call, false, false, singleAttempt);
+                if (response.isSuccessful()) return;
+                int code = response.code();
+                if (!ChunkTransfer.isRetryable(code) || attempt >= maxAttempts)
+                    throw new FailedCallException(
+                            "Chunk " + chunk.index() + " of " + file.getName() + " was rejected with response code " + code
+                    );
+            }
+            catch (FailedCallException exception) {
+                if (response != null || attempt >= maxAttempts) throw exception;
+                failure = exception;
+            }
+            long delay = ChunkTransfer.retryDelay(attempt, response == null ? null : response.headers());
+            log.warning("Retrying chunk " + chunk.index() + " of " + file.getName() + " in " + delay + "ms" +
+                    (failure == null ? "" : " (" + failure.getMessage() + ")"));
+            ChunkTransfer.awaitRetry(delay, "uploading " + file.getName());
+        }
+    }
+
+    private synchronized boolean isAcknowledged(int index) {
+        return acknowledged.get(index);
+    }
+
+    private synchronized void acknowledge(int index, ChunkJournal journal) throws IOException {
+        acknowledged.set(index);
+        journal.append(index);
+    }
+
+    private Chunk chunk(int index, int count, long length) {
+        long offset = index * chunkSize;
+        return new Chunk(index, count, offset, Math.min(chunkSize, length - offset));
+    }
+
+    /**
+     * Builds the call that uploads a chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkSender {
+
+        /**
+         * @param chunk the chunk to upload
+         * @param body  the body of the chunk
+         * @return the call that uploads the chunk; a new call is requested for every attempt
+         */
+        Call<?> call(Chunk chunk, RequestBody body);
+    }
+
+    /**
+     * A chunk of the file.
+     *
+     * @param index  the index of the chunk, starting at 0
+     * @param count  the number of chunks of the file
+     * @param offset the offset of the chunk in the file
+     * @param length the length of the chunk
+     */
+    public record Chunk(int index, int count, long offset, long length) {
+
+        /**
+         * @return the {@code Content-Range} of the chunk, e.g. {@code bytes 0-8388607/20971520}
+         */
+        public String contentRange(long totalBytes) {
+            return "bytes " + offset + "-" + (offset + length - 1) + "/" + totalBytes;
+        }
+    }
+
+    /**
+     * The outcome of an upload.
+     *
+     * @param bytes      the size of the file
+     * @param chunks     the number of chunks of the file
+     * @param chunksSent the number of chunks sent by this upload, the others were acknowledged before
+     * @param elapsed    how long the upload took
+     */
+    public record Result(long bytes, int chunks, int chunksSent, Duration elapsed) { }
+
+    /**
+     * A memory-mapped region of the file, written to the connection without being read onto the heap as a whole.
+     */
+    private static final class FileChunkBody extends RequestBody {
+
+        private final FileChannel channel;
+        private final Chunk chunk;
+        private final MediaType mediaType;
+
+        FileChunkBody(FileChannel channel, Chunk chunk, MediaType mediaType) {
+            this.channel = channel;
+            this.chunk = chunk;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mediaType;
+        }
+
+        @Override
+        public long contentLength() {
+            return chunk.length();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset(), chunk.length());
+            while (region.hasRemaining()) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Interrupted while writing a chunk");
+                sink.write(region);
+            }
+        }
+    }
+}
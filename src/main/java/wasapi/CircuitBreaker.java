@@ -0,0 +1,268 @@
+package wasapi;
+
+import context.ContextStore;
+import utils.Printer;
+import wasapi.exceptions.CircuitBreakerOpenException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A per-host circuit breaker.
+ * <p>
+ * While {@link State#CLOSED}, the outcomes of the last {@code windowSize} requests to the host are kept in a sliding
+ * window; a request fails if it fails without a response or is answered with a 5xx code. Once the window holds at
+ * least {@code minimumCalls} outcomes and their failure rate reaches {@code failureRateThreshold}, the breaker opens.
+ * While {@link State#OPEN}, requests fail fast with a {@link CircuitBreakerOpenException}. After
+ * {@code openDuration}, the breaker is {@link State#HALF_OPEN}: up to {@code halfOpenCalls} trial requests are let
+ * through, and the breaker closes if all of them succeed and opens again if any of them fails. Every change of state
+ * starts a new generation, and the outcomes of requests let through in an earlier generation are ignored, so a slow
+ * request sent while the breaker was closed can never count as a trial request.
+ * </p>
+ * <p>
+ * Breakers are shared by every client of the process, one per host and port, and are created with the
+ * {@link Config} of the client that first sends a request to the host. A client with another configuration for the
+ * same host is warned about once, and uses the existing breaker.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     MyApi api = new WasapiClient.Builder()
+ *         .circuitBreaker(CircuitBreaker.Config.fromContext())
+ *         .build(MyApi.class);
+ *
+ *     for (CircuitBreaker.Stats stats : CircuitBreaker.stats())
+ *         log.info(stats.host() + " is " + stats.state());
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class CircuitBreaker {
+
+    private static final Printer log = new Printer(CircuitBreaker.class);
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String host;
+    private final Config config;
+    private final boolean[] window;
+    private final LongAdder rejected = new LongAdder();
+    private final Set<Config> mismatches = ConcurrentHashMap.newKeySet();
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int position;
+    private int outcomes;
+    private int failures;
+    private long openedAt;
+    private int trials;
+    private int trialSuccesses;
+
+    private CircuitBreaker(String host, Config config) {
+        this.host = host;
+        this.config = config;
+        this.window = new boolean[config.windowSize()];
+    }
+
+    /**
+     * Returns the breaker of the given host, creating it with the given configuration on first use.
+     *
+     * @param host   the host and port
+     * @param config the configuration the breaker is created with
+     * @return the {@link CircuitBreaker} of the host
+     */
+    static CircuitBreaker forHost(String host, Config config) {
+        CircuitBreaker breaker = breakers.get(host);
+        if (breaker == null) breaker = breakers.computeIfAbsent(host, name -> new CircuitBreaker(name, config));
+        if (!breaker.config.equals(config) && breaker.mismatches.add(config))
+            log.warning("The circuit breaker of " + host + " was created with " + breaker.config + ", ignoring " + config);
+        return breaker;
+    }
+
+    /**
+     * Returns the state of every breaker, ordered by host.
+     *
+     * @return a list of {@link Stats}, one per host
+     */
+    public static List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>();
+        new TreeMap<>(breakers).values().forEach(breaker -> stats.add(breaker.snapshot()));
+        return stats;
+    }
+
+    /**
+     * Returns the state of the breaker of the given host.
+     *
+     * @param host the host and port, e.g. {@code api.example.com:443}
+     * @return the {@link Stats}, or null if no request was sent to the host
+     */
+    public static Stats stats(String host) {
+        CircuitBreaker breaker = breakers.get(host);
+        return breaker == null ? null : breaker.snapshot();
+    }
+
+    /**
+     * Discards every breaker, closing all circuits.
+     */
+    public static void reset() {
+        breakers.clear();
+    }
+
+    /**
+     * Lets a request through, or fails it fast if the breaker is open. Every request that is let through has to be
+     * followed by exactly one of {@link #onSuccess(long)}, {@link #onFailure(long)} or {@link #onIgnored(long)}, with
+     * the generation it was let through in.
+     *
+     * @return the generation the request was let through in
+     * @throws CircuitBreakerOpenException if the breaker is open, or half open with all trial requests in flight
+     */
+    synchronized long acquire() throws CircuitBreakerOpenException {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < config.openDuration().toNanos()) throw reject();
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trials >= config.halfOpenCalls()) throw reject();
+            trials++;
+        }
+        return generation;
+    }
+
+    /**
+     * Records a request that succeeded.
+     *
+     * @param generation the generation the request was let through in
+     */
+    synchronized void onSuccess(long generation) {
+        if (generation != this.generation) return;
+        if (state == State.HALF_OPEN) {
+            if (++trialSuccesses >= config.halfOpenCalls()) transition(State.CLOSED);
+        }
+        else if (state == State.CLOSED) record(false);
+    }
+
+    /**
+     * Records a request that failed.
+     *
+     * @param generation the generation the request was let through in
+     */
+    synchronized void onFailure(long generation) {
+        if (generation != this.generation) return;
+        if (state == State.HALF_OPEN) transition(State.OPEN);
+        else if (state == State.CLOSED) record(true);
+    }
+
+    /**
+     * Records a request that ended without an outcome, e.g. because it was canceled.
+     *
+     * @param generation the generation the request was let through in
+     */
+    synchronized void onIgnored(long generation) {
+        if (generation != this.generation) return;
+        if (state == State.HALF_OPEN && trials > trialSuccesses) trials--;
+    }
+
+    /**
+     * Adds an outcome to the sliding window, and opens the breaker if the failure rate is reached.
+     */
+    private void record(boolean failure) {
+        if (outcomes == window.length) {
+            if (window[position]) failures--;
+        }
+        else outcomes++;
+        window[position] = failure;
+        if (failure) failures++;
+        position = (position + 1) % window.length;
+
+        if (outcomes >= config.minimumCalls() && failureRate() >= config.failureRateThreshold())
+            transition(State.OPEN);
+    }
+
+    private double failureRate() {
+        return outcomes == 0 ? 0 : (double) failures / outcomes;
+    }
+
+    private void transition(State next) {
+        if (state == next) return;
+        if (next == State.OPEN) openedAt = System.nanoTime();
+        if (next == State.CLOSED) {
+            position = 0;
+            outcomes = 0;
+            failures = 0;
+        }
+        trials = 0;
+        trialSuccesses = 0;
+        generation++;
+        log.warning("The circuit breaker of " + host + " changed from " + state + " to " + next);
+        state = next;
+    }
+
+    private CircuitBreakerOpenException reject() {
+        rejected.increment();
+        return new CircuitBreakerOpenException(host, "The circuit breaker of " + host + " is " + state);
+    }
+
+    private synchronized Stats snapshot() {
+        return new Stats(host, state, failureRate(), outcomes, rejected.sum());
+    }
+
+    /**
+     * The state of a circuit breaker.
+     *
+     * @param host        the host and port
+     * @param state       the current state
+     * @param failureRate the failure rate of the requests in the sliding window
+     * @param calls       the number of requests in the sliding window
+     * @param rejected    the number of requests that failed fast
+     */
+    public record Stats(String host, State state, double failureRate, int calls, long rejected) { }
+
+    /**
+     * The configuration of a circuit breaker.
+     *
+     * @param windowSize           the number of outcomes the failure rate is computed from
+     * @param minimumCalls         the number of outcomes needed before the breaker can open
+     * @param failureRateThreshold the failure rate that opens the breaker (0 to 1)
+     * @param openDuration         how long the breaker stays open before it lets trial requests through
+     * @param halfOpenCalls        the number of trial requests that have to succeed for the breaker to close
+     */
+    public record Config(
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            Duration openDuration,
+            int halfOpenCalls
+    ) {
+
+        /**
+         * Creates a configuration from the {@code circuit-breaker-window} (default: 100),
+         * {@code circuit-breaker-minimum-calls} (default: 20), {@code circuit-breaker-failure-rate} (default: 0.5),
+         * {@code circuit-breaker-open-duration} (default: 30000ms) and {@code circuit-breaker-half-open-calls}
+         * (default: 5) properties.
+         *
+         * @return a new {@link Config}
+         */
+        public static Config fromContext() {
+            return new Config(
+                    Integer.parseInt(ContextStore.get("circuit-breaker-window", "100")),
+                    Integer.parseInt(ContextStore.get("circuit-breaker-minimum-calls", "20")),
+                    Double.parseDouble(ContextStore.get("circuit-breaker-failure-rate", "0.5")),
+                    Duration.ofMillis(Long.parseLong(ContextStore.get("circuit-breaker-open-duration", "30000"))),
+                    Integer.parseInt(ContextStore.get("circuit-breaker-half-open-calls", "5"))
+            );
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package wasapi;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * An application interceptor that guards every host with its {@link CircuitBreaker} and its
+ * {@link ConcurrencyLimiter}, either of which may be disabled.
+ * <p>
+ * A request first has to be let through by the breaker, which fails it fast while open, and then has to fit within
+ * the concurrency limit of the host. Its outcome is recorded in both once the response headers are in: failures
+ * without a response and 5xx responses count as failures, 429 responses only lower the concurrency limit. Responses
+ * served from the cache and canceled requests are not recorded.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class CircuitBreakerInterceptor implements Interceptor {
+
+    private final CircuitBreaker.Config breakerConfig;
+    private final ConcurrencyLimiter.Config limiterConfig;
+
+    /**
+     * @param breakerConfig the configuration of the circuit breakers, or null to not break circuits
+     * @param limiterConfig the configuration of the concurrency limiters, or null to not limit concurrency
+     */
+    CircuitBreakerInterceptor(CircuitBreaker.Config breakerConfig, ConcurrencyLimiter.Config limiterConfig) {
+        this.breakerConfig = breakerConfig;
+        this.limiterConfig = limiterConfig;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl url = request.url();
+        String host = url.host() + ":" + url.port();
+        CircuitBreaker breaker = breakerConfig == null ? null : CircuitBreaker.forHost(host, breakerConfig);
+        ConcurrencyLimiter limiter = limiterConfig == null ? null : ConcurrencyLimiter.forHost(host, limiterConfig);
+
+        long generation = breaker == null ? 0 : breaker.acquire();
+        if (limiter != null) {
+            try {
+                limiter.acquire();
+            }
+            catch (IOException exception) {
+                if (breaker != null) breaker.onIgnored(generation);
+                throw exception;
+            }
+        }
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        }
+        catch (IOException exception) {
+            boolean canceled = chain.call().isCanceled();
+            if (limiter != null) limiter.release(canceled ? -1 : System.nanoTime() - start, !canceled);
+            if (breaker != null) {
+                if (canceled) breaker.onIgnored(generation);
+                else breaker.onFailure(generation);
+            }
+            throw exception;
+        }
+        catch (RuntimeException | Error throwable) {
+            if (limiter != null) limiter.release(-1, false);
+            if (breaker != null) breaker.onIgnored(generation);
+            throw throwable;
+        }
+
+        boolean cached = response.networkResponse() == null;
+        boolean failed = response.code() >= 500;
+        if (limiter != null) limiter.release(cached ? -1 : System.nanoTime() - start, failed || response.code() == 429);
+        if (breaker != null) {
+            if (cached) breaker.onIgnored(generation);
+            else if (failed) breaker.onFailure(generation);
+            else breaker.onSuccess(generation);
+        }
+        return response;
+    }
+}
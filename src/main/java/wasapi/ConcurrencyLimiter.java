@@ -0,0 +1,218 @@
+package wasapi;
+
+import context.ContextStore;
+import utils.Printer;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adaptive, per-host limit on the number of requests in flight (AIMD: additive increase, multiplicative
+ * decrease).
+ * <p>
+ * The limiter keeps the shortest response time observed for the host as its baseline, re-sampled every
+ * {@code baselineInterval}. A request that is answered within {@code latencyTolerance} times the baseline while the
+ * limit is in use raises the limit by {@code 1 / limit}, i.e. by one per limit's worth of requests. A request that
+ * is slower than that, fails without a response, or is answered with 429 or 5xx, scales the limit down by
+ * {@code backoffRatio}. The limit stays between {@code minLimit} and {@code maxLimit}.
+ * </p>
+ * <p>
+ * Requests beyond the limit wait for a request to complete, at most for {@code maxWait}, and then fail with an
+ * {@link InterruptedIOException}. Limiters are shared by every client of the process, one per host and port, and
+ * are created with the {@link Config} of the client that first sends a request to the host. A client with another
+ * configuration for the same host is warned about once, and uses the existing limiter.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class ConcurrencyLimiter {
+
+    private static final Printer log = new Printer(ConcurrencyLimiter.class);
+
+    private static final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final String host;
+    private final Config config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Set<Config> mismatches = ConcurrentHashMap.newKeySet();
+
+    private double limit;
+    private int inFlight;
+    private long baselineNanos;
+    private long baselineResetAt;
+
+    private ConcurrencyLimiter(String host, Config config) {
+        this.host = host;
+        this.config = config;
+        this.limit = config.initialLimit();
+    }
+
+    /**
+     * Returns the limiter of the given host, creating it with the given configuration on first use.
+     *
+     * @param host   the host and port
+     * @param config the configuration the limiter is created with
+     * @return the {@link ConcurrencyLimiter} of the host
+     */
+    static ConcurrencyLimiter forHost(String host, Config config) {
+        ConcurrencyLimiter limiter = limiters.get(host);
+        if (limiter == null) limiter = limiters.computeIfAbsent(host, name -> new ConcurrencyLimiter(name, config));
+        if (!limiter.config.equals(config) && limiter.mismatches.add(config))
+            log.warning("The concurrency limiter of " + host + " was created with " + limiter.config + ", ignoring " + config);
+        return limiter;
+    }
+
+    /**
+     * Returns the state of every limiter, ordered by host.
+     *
+     * @return a list of {@link Stats}, one per host
+     */
+    public static List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>();
+        new TreeMap<>(limiters).values().forEach(limiter -> stats.add(limiter.snapshot()));
+        return stats;
+    }
+
+    /**
+     * Discards every limiter.
+     */
+    public static void reset() {
+        limiters.clear();
+    }
+
+    /**
+     * Waits until a request can be sent within the limit. Every acquired request has to be released with
+     * {@link #release(long, boolean)}.
+     *
+     * @throws InterruptedIOException if no request completed within {@code maxWait}, or the thread was interrupted
+     */
+    void acquire() throws InterruptedIOException {
+        lock.lock();
+        try {
+            long remaining = config.maxWait().toNanos();
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0)
+                    throw new InterruptedIOException(
+                            "Timed out waiting for one of the " + inFlight + " requests in flight to " + host + " to complete"
+                    );
+                remaining = available.awaitNanos(remaining);
+            }
+            inFlight++;
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a request to " + host);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a request and adapts the limit to its outcome.
+     *
+     * @param nanos      the response time of the request, or -1 if it does not tell anything about the host,
+     *                   e.g. because it was canceled or answered from the cache
+     * @param overloaded whether the request failed or was answered with 429 or 5xx
+     */
+    void release(long nanos, boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (nanos >= 0) {
+                long now = System.nanoTime();
+                boolean slow = baselineNanos > 0 && nanos > baselineNanos * config.latencyTolerance();
+                if (overloaded || slow)
+                    limit = Math.max(config.minLimit(), limit * config.backoffRatio());
+                else if (inFlight + 1 >= limit / 2)
+                    limit = Math.min(config.maxLimit(), limit + 1 / limit);
+
+                if (!overloaded) {
+                    if (baselineNanos == 0 || now - baselineResetAt >= 0) {
+                        baselineNanos = nanos;
+                        baselineResetAt = now + config.baselineInterval().toNanos();
+                    }
+                    else if (nanos < baselineNanos) baselineNanos = nanos;
+                }
+            }
+            available.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private Stats snapshot() {
+        lock.lock();
+        try {
+            return new Stats(host, (int) limit, inFlight, Duration.ofNanos(baselineNanos));
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The state of a concurrency limiter.
+     *
+     * @param host     the host and port
+     * @param limit    the current limit
+     * @param inFlight the number of requests in flight
+     * @param baseline the baseline response time
+     */
+    public record Stats(String host, int limit, int inFlight, Duration baseline) { }
+
+    /**
+     * The configuration of a concurrency limiter.
+     *
+     * @param initialLimit     the limit before any request completed
+     * @param minLimit         the lowest limit
+     * @param maxLimit         the highest limit
+     * @param backoffRatio     the factor the limit is scaled down by (0 to 1)
+     * @param latencyTolerance how many times slower than the baseline a request can be before the limit is lowered
+     * @param baselineInterval how often the baseline response time is re-sampled
+     * @param maxWait          how long a request waits for room within the limit
+     */
+    public record Config(
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            double backoffRatio,
+            double latencyTolerance,
+            Duration baselineInterval,
+            Duration maxWait
+    ) {
+
+        /**
+         * Creates a configuration from the {@code concurrency-limit-initial} (default: 20),
+         * {@code concurrency-limit-min} (default: 1), {@code concurrency-limit-max} (default: 200),
+         * {@code concurrency-limit-backoff-ratio} (default: 0.9), {@code concurrency-limit-latency-tolerance}
+         * (default: 2), {@code concurrency-limit-baseline-interval} (default: 30000ms) and
+         * {@code concurrency-limit-max-wait} (default: 1000ms) properties.
+         *
+         * @return a new {@link Config}
+         */
+        public static Config fromContext() {
+            return new Config(
+                    Integer.parseInt(ContextStore.get("concurrency-limit-initial", "20")),
+                    Integer.parseInt(ContextStore.get("concurrency-limit-min", "1")),
+                    Integer.parseInt(ContextStore.get("concurrency-limit-max", "200")),
+                    Double.parseDouble(ContextStore.get("concurrency-limit-backoff-ratio", "0.9")),
+                    Double.parseDouble(ContextStore.get("concurrency-limit-latency-tolerance", "2")),
+                    Duration.ofMillis(Long.parseLong(ContextStore.get("concurrency-limit-baseline-interval", "30000"))),
+                    Duration.ofMillis(Long.parseLong(ContextStore.get("concurrency-limit-max-wait", "1000")))
+            );
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package wasapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import context.ContextStore;
+import retrofit2.Converter;
+import wasapi.exceptions.WasapiException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static utils.mapping.MappingUtilities.Json.mapper;
+
+/**
+ * The converters a service can be built with.
+ * <p>
+ * Converter factories are referenced by name and created reflectively on first use, then shared by every service,
+ * so the classes of a converter library are only loaded if a service is built with it. Libraries of converters no
+ * service uses can be left off the classpath.
+ * </p>
+ *
+ * @see wasapi.annotations.Converters
+ * @see WasapiClient.Builder#converters(ConverterType...)
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public enum ConverterType {
+    JACKSON("retrofit2.converter.jackson.JacksonConverterFactory"),
+    GSON("retrofit2.converter.gson.GsonConverterFactory"),
+    SCALARS("retrofit2.converter.scalars.ScalarsConverterFactory"),
+    MOSHI("retrofit2.converter.moshi.MoshiConverterFactory"),
+    WIRE("retrofit2.converter.wire.WireConverterFactory"),
+    PROTOBUF("retrofit2.converter.protobuf.ProtoConverterFactory");
+
+    /**
+     * The converters of the last {@code converters} property value that was parsed.
+     */
+    private static volatile Defaults defaults;
+
+    private final String factoryClass;
+    private volatile Converter.Factory factory;
+
+    ConverterType(String factoryClass) {
+        this.factoryClass = factoryClass;
+    }
+
+    /**
+     * Returns the converters listed in the {@code converters} property (default: jackson,gson,scalars,moshi,wire,protobuf),
+     * in order. The list is parsed again only when the property changes.
+     *
+     * @return the default converters
+     */
+    public static List<ConverterType> fromContext() {
+        String property = ContextStore.get("converters", "jackson,gson,scalars,moshi,wire,protobuf");
+        Defaults current = defaults;
+        if (current == null || !current.property().equals(property)) {
+            current = new Defaults(property, Arrays.stream(property.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .map(name -> ConverterType.valueOf(name.toUpperCase()))
+                    .toList());
+            defaults = current;
+        }
+        return current.converters();
+    }
+
+    /**
+     * Returns the shared factory of this converter, creating it on first use. Jackson converters use the shared
+     * object mapper.
+     *
+     * @return the {@link Converter.Factory}
+     * @throws WasapiException if the converter library is not on the classpath
+     */
+    Converter.Factory factory() {
+        Converter.Factory current = factory;
+        if (current == null) {
+            synchronized (this) {
+                if (factory == null) factory = create();
+                current = factory;
+            }
+        }
+        return current;
+    }
+
+    private Converter.Factory create() {
+        return create(name().toLowerCase(), factoryClass, this == JACKSON);
+    }
+
+    /**
+     * Creates a converter factory with the static {@code create} method of its class.
+     *
+     * @param name         the name of the converter, for error messages
+     * @param factoryClass the name of the factory class
+     * @param jackson      whether the factory is created with the shared object mapper
+     * @return the {@link Converter.Factory}
+     * @throws WasapiException if the factory class is not on the classpath, or could not create the factory
+     */
+    static Converter.Factory create(String name, String factoryClass, boolean jackson) {
+        try {
+            Class<?> type = Class.forName(factoryClass);
+            Object created = jackson ?
+                    type.getMethod("create", ObjectMapper.class).invoke(null, mapper) :
+                    type.getMethod("create").invoke(null);
+            return (Converter.Factory) created;
+        }
+        catch (ClassNotFoundException exception) {
+            throw new WasapiException(
+                    "The " + name + " converter is not on the classpath (" + factoryClass + ")",
+                    exception
+            );
+        }
+        catch (ReflectiveOperationException exception) {
+            throw new WasapiException("Could not create the " + name + " converter", exception);
+        }
+    }
+
+    /**
+     * A value of the {@code converters} property, and the converters it lists.
+     */
+    private record Defaults(String property, List<ConverterType> converters) { }
+}
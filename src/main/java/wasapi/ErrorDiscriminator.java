@@ -0,0 +1,76 @@
+package wasapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Picks the error model of an unsuccessful response up front, instead of trying every candidate model in turn.
+ * <p>
+ * A discriminator either maps status codes to error models, or maps the values of a top level JSON field of the
+ * error body to error models. When it selects a model, {@link Caller} tries that model first; when it does not
+ * (or the selected model does not match), the error models passed to the call are tried as usual.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     ErrorDiscriminator discriminator = ErrorDiscriminator.byStatus(Map.of(
+ *         400, ValidationError.class,
+ *         404, NotFoundError.class
+ *     ));
+ *     perform(call, true, true, discriminator, GenericError.class);
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class ErrorDiscriminator {
+
+    private final Map<Integer, Class<?>> statusModels;
+    private final String field;
+    private final Map<String, Class<?>> fieldModels;
+
+    private ErrorDiscriminator(Map<Integer, Class<?>> statusModels, String field, Map<String, Class<?>> fieldModels) {
+        this.statusModels = statusModels;
+        this.field = field;
+        this.fieldModels = fieldModels;
+    }
+
+    /**
+     * Creates a discriminator that selects the error model by response code.
+     *
+     * @param models error models keyed by response code
+     * @return the {@link ErrorDiscriminator}
+     */
+    public static ErrorDiscriminator byStatus(Map<Integer, Class<?>> models) {
+        return new ErrorDiscriminator(Map.copyOf(models), null, Map.of());
+    }
+
+    /**
+     * Creates a discriminator that selects the error model by the value of a top level field of the error body.
+     *
+     * @param field  the name of the field
+     * @param models error models keyed by field value
+     * @return the {@link ErrorDiscriminator}
+     */
+    public static ErrorDiscriminator byField(String field, Map<String, Class<?>> models) {
+        return new ErrorDiscriminator(Map.of(), field, Map.copyOf(models));
+    }
+
+    /**
+     * Selects the error model for the given response.
+     *
+     * @param code the response code
+     * @param tree supplies the parsed error body, or null if the body is not JSON
+     * @return the selected error model, or null if none is selected
+     */
+    Class<?> select(int code, Supplier<JsonNode> tree) {
+        Class<?> model = statusModels.get(code);
+        if (model != null || field == null) return model;
+        JsonNode body = tree.get();
+        JsonNode value = body == null ? null : body.get(field);
+        return value == null || !value.isValueNode() ? null : fieldModels.get(value.asText());
+    }
+}
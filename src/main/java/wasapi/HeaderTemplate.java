@@ -0,0 +1,104 @@
+package wasapi;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * An immutable, precompiled set of default headers that is merged into requests in a single pass.
+ * <p>
+ * The default headers are resolved once, when the template is created. {@link #apply(Request)} then looks each
+ * default header up in the request without allocating intermediate header sets, and rebuilds the request at most
+ * once, only if a header actually has to be added or changed.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     HeaderTemplate template = HeaderTemplate.of(new Headers.Builder().add("Accept", "application/json").build());
+ *     Request prepared = template.apply(request);
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class HeaderTemplate {
+
+    private final String[] names;
+    private final String[] values;
+
+    private HeaderTemplate(String[] names, String[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * Compiles the given headers into a template. For headers with multiple values, the last value is used.
+     *
+     * @param headers the default headers
+     * @return the compiled {@link HeaderTemplate}
+     */
+    public static HeaderTemplate of(Headers headers) {
+        String[] names = headers.names().toArray(new String[0]);
+        String[] values = new String[names.length];
+        for (int index = 0; index < names.length; index++)
+            values[index] = Objects.requireNonNull(headers.get(names[index]));
+        return new HeaderTemplate(names, values);
+    }
+
+    /**
+     * Prepares the given request for execution: sets the {@code Host} header, adds every default header the
+     * request does not already have, and sets {@code Content-Length} and {@code Content-Type} from a body of known
+     * length and type.
+     *
+     * @param request the request to prepare
+     * @return the given request if nothing had to change, a request rebuilt once otherwise
+     * @throws IOException if the content length of the body cannot be determined
+     */
+    public Request apply(Request request) throws IOException {
+        Request.Builder builder = null;
+
+        String host = request.url().host();
+        if (!host.equals(request.header("Host")))
+            builder = request.newBuilder().header("Host", host);
+
+        for (int index = 0; index < names.length; index++)
+            if (request.header(names[index]) == null) {
+                if (builder == null) builder = request.newBuilder();
+                builder.addHeader(names[index], values[index]);
+            }
+
+        RequestBody body = request.body();
+        if (body != null) {
+            long contentLength = body.contentLength();
+            MediaType contentType = body.contentType();
+            if (contentLength > 0 && contentType != null) {
+                String length = Long.toString(contentLength);
+                if (!length.equals(request.header("Content-Length"))) {
+                    if (builder == null) builder = request.newBuilder();
+                    builder.header("Content-Length", length);
+                }
+                String type = contentType.toString();
+                if (!type.equals(request.header("Content-Type"))) {
+                    if (builder == null) builder = request.newBuilder();
+                    builder.header("Content-Type", type);
+                }
+            }
+        }
+
+        return builder == null ? request : builder.build();
+    }
+
+    /**
+     * Returns the number of default headers in the template.
+     *
+     * @return the number of default headers
+     */
+    public int size() {
+        return names.length;
+    }
+}
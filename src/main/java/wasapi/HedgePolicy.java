@@ -0,0 +1,296 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedges idempotent calls of a service: when a call has not been answered within the hedge delay, a second copy of
+ * it is sent, the first response wins and the other copy is cancelled.
+ * <p>
+ * The hedge delay is either fixed, or a percentile (e.g. the p95) of the latencies the policy has observed, so only
+ * the slowest calls are hedged. To cap the extra load, at most {@code maxHedgeRatio} of the calls are hedged.
+ * A policy keeps the latencies and counters of the calls it hedges, so every latency-critical service should have
+ * its own, see {@link #forService(String)}. Calls of non-idempotent requests are executed once, without hedging.
+ * </p>
+ * <p>
+ * Hedged calls are enqueued on the dispatcher of their client, so its {@code maxRequestsPerHost} has to leave room
+ * for the hedges.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     HedgePolicy hedging = HedgePolicy.forService("ItemServices.getItem");
+ *     Item item = perform(api.getItem(id), true, false, hedging);
+ *     HedgePolicy.Stats stats = hedging.stats();
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class HedgePolicy {
+
+    /**
+     * The number of observed latencies a percentile delay is computed from at least.
+     */
+    private static final long MIN_SAMPLES = 100;
+
+    /**
+     * How often a percentile delay is recomputed.
+     */
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Map<String, HedgePolicy> services = new ConcurrentHashMap<>();
+
+    private final Duration delay;
+    private final double percentile;
+    private final double maxHedgeRatio;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final AtomicLong hedges = new AtomicLong();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    private volatile long percentileDelayNanos = -1;
+    private volatile long refreshedAt;
+
+    private HedgePolicy(Duration delay, double percentile, double maxHedgeRatio) {
+        this.delay = delay;
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    /**
+     * Creates a policy that hedges calls after a fixed delay.
+     *
+     * @param delay         how long a call waits for its response before it is hedged
+     * @param maxHedgeRatio the maximum fraction of calls that are hedged, e.g. 0.05
+     * @return a new {@link HedgePolicy}
+     */
+    public static HedgePolicy fixed(Duration delay, double maxHedgeRatio) {
+        return new HedgePolicy(delay, 0, maxHedgeRatio);
+    }
+
+    /**
+     * Creates a policy that hedges calls after the given percentile of the latencies it has observed.
+     *
+     * @param percentile    the percentile of the latencies the hedge delay is set to, e.g. 0.95
+     * @param initialDelay  the hedge delay until enough latencies are observed
+     * @param maxHedgeRatio the maximum fraction of calls that are hedged, e.g. 0.05
+     * @return a new {@link HedgePolicy}
+     */
+    public static HedgePolicy percentile(double percentile, Duration initialDelay, double maxHedgeRatio) {
+        return new HedgePolicy(initialDelay, percentile, maxHedgeRatio);
+    }
+
+    /**
+     * Creates a percentile policy from the {@code hedge-percentile} (default: 0.95), {@code hedge-initial-delay}
+     * (default: 100ms) and {@code hedge-max-ratio} (default: 0.05) properties.
+     *
+     * @return a new {@link HedgePolicy}
+     */
+    public static HedgePolicy fromContext() {
+        return percentile(
+                Double.parseDouble(ContextStore.get("hedge-percentile", "0.95")),
+                Duration.ofMillis(Long.parseLong(ContextStore.get("hedge-initial-delay", "100"))),
+                Double.parseDouble(ContextStore.get("hedge-max-ratio", "0.05"))
+        );
+    }
+
+    /**
+     * Returns the policy of the given service, created from the context on first use.
+     *
+     * @param serviceName the name of the service
+     * @return the {@link HedgePolicy} of the service
+     */
+    public static HedgePolicy forService(String serviceName) {
+        return services.computeIfAbsent(serviceName, name -> fromContext());
+    }
+
+    /**
+     * Returns the counters of this policy.
+     *
+     * @return the {@link Stats}
+     */
+    public Stats stats() {
+        return new Stats(calls.sum(), hedges.get(), hedgesWon.sum(), Duration.ofNanos(delayNanos()));
+    }
+
+    /**
+     * Executes the given call, hedging it if it is idempotent and is not answered within the hedge delay.
+     *
+     * @param call the call to execute
+     * @param <T>  the type of the response body
+     * @return the first response
+     * @throws IOException if every copy of the call failed without a response
+     */
+    <T> Response<T> execute(Call<T> call) throws IOException {
+        Request request = call.request();
+        if (!RetryPolicy.isIdempotent(request)) return call.execute();
+
+        calls.increment();
+        Race<T> race = new Race<>();
+        race.enqueue(call, false);
+        try {
+            Response<T> response;
+            try {
+                response = race.winner.get(delayNanos(), TimeUnit.NANOSECONDS);
+            }
+            catch (TimeoutException timeout) {
+                Call<T> copy = call.clone();
+                RetryInterceptor.inherit(call, copy);
+                RequestCoalescer.bypass(copy);
+                if (tryHedge()) {
+                    if (race.enqueue(copy, true)) WasapiMetrics.recordHedge(request, false);
+                    else hedges.decrementAndGet();
+                }
+                response = race.winner.get();
+            }
+            return response;
+        }
+        catch (InterruptedException exception) {
+            race.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        }
+        catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the current hedge delay.
+     */
+    private long delayNanos() {
+        if (percentile <= 0) return delay.toNanos();
+        long now = System.nanoTime();
+        if (percentileDelayNanos < 0 || now - refreshedAt > REFRESH_NANOS) {
+            Duration observed = latency.percentile(percentile, MIN_SAMPLES);
+            refreshedAt = now;
+            if (observed != null) percentileDelayNanos = observed.toNanos();
+        }
+        return percentileDelayNanos < 0 ? delay.toNanos() : percentileDelayNanos;
+    }
+
+    /**
+     * Claims a hedge, unless that would exceed the maximum fraction of hedged calls.
+     *
+     * @return true if the call may be hedged
+     */
+    private boolean tryHedge() {
+        long sent;
+        do {
+            sent = hedges.get();
+            if (sent + 1 > maxHedgeRatio * calls.sum()) return false;
+        } while (!hedges.compareAndSet(sent, sent + 1));
+        return true;
+    }
+
+    /**
+     * The copies of a hedged call, racing for the first response.
+     * <p>
+     * The hedge delay is derived from the latency of the first copy alone, since the latency of the race is cut
+     * short by the hedges. A first copy that lost the race is recorded with the time until it was cancelled, which
+     * is less than it would have taken.
+     * </p>
+     */
+    private final class Race<T> {
+        final CompletableFuture<Response<T>> winner = new CompletableFuture<>();
+        private final long start = System.nanoTime();
+        private final List<Call<T>> copies = new ArrayList<>(2);
+        private int pending;
+
+        /**
+         * Enqueues a copy of the call, unless the race is already decided.
+         *
+         * @return true if the copy was enqueued
+         */
+        synchronized boolean enqueue(Call<T> copy, boolean hedge) {
+            if (winner.isDone()) return false;
+            copies.add(copy);
+            pending++;
+            copy.enqueue(new Callback<>() {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    if (!hedge) latency.record(System.nanoTime() - start);
+                    if (winner.complete(response)) {
+                        if (hedge) {
+                            hedgesWon.increment();
+                            WasapiMetrics.recordHedge(call.request(), true);
+                        }
+                        cancel();
+                    }
+                    else discard(response);
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable throwable) {
+                    if (!hedge) latency.record(System.nanoTime() - start);
+                    synchronized (Race.this) {
+                        if (--pending == 0) winner.completeExceptionally(throwable);
+                    }
+                }
+            });
+            return true;
+        }
+
+        /**
+         * Releases the connection of a response that lost the race, including a streamed body.
+         */
+        private void discard(Response<T> response) {
+            if (response.body() instanceof Closeable body) {
+                try {
+                    body.close();
+                }
+                catch (IOException ignored) {}
+            }
+            if (response.errorBody() != null) response.errorBody().close();
+        }
+
+        /**
+         * Cancels every copy; cancelling the copy that has already answered has no effect.
+         */
+        synchronized void cancel() {
+            for (Call<T> copy : copies) copy.cancel();
+        }
+    }
+
+    /**
+     * The counters of a hedge policy.
+     *
+     * @param calls     number of idempotent calls executed by the policy
+     * @param hedges    number of hedges sent
+     * @param hedgesWon number of hedges that answered before the call they hedged
+     * @param delay     the current hedge delay
+     */
+    public record Stats(long calls, long hedges, long hedgesWon, Duration delay) {
+
+        /**
+         * @return the fraction of calls that were hedged
+         */
+        public double hedgeRate() {
+            return calls == 0 ? 0 : (double) hedges / calls;
+        }
+    }
+}
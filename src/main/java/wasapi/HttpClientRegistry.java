@@ -0,0 +1,200 @@
+package wasapi;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import utils.Printer;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A process-wide registry of shared {@link OkHttpClient} instances, keyed by their effective transport configuration.
+ * <p>
+ * Every {@link OkHttpClient} owns a {@link ConnectionPool} and a {@link Dispatcher} (with its own thread pool).
+ * Creating a fresh client per {@link WasapiClient.Builder#build(Class)} leaves behind idle pools and sockets, and
+ * forces every new client through a new TCP/TLS handshake. This registry keeps exactly one base client per
+ * {@link TransportKey}; per-builder differences (headers, logging, metrics) are layered on top of it through
+ * {@link OkHttpClient#newBuilder()}, so all derived clients share the same pool and dispatcher.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     for (HttpClientRegistry.ClientStats stats : HttpClientRegistry.stats())
+ *         log.info(stats.toString());
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@SuppressWarnings("unused")
+public final class HttpClientRegistry {
+
+    /**
+     * Shared base clients, one per transport configuration.
+     */
+    private static final Map<TransportKey, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * The logger object for logging information.
+     */
+    private static final Printer log = new Printer(HttpClientRegistry.class);
+
+    private HttpClientRegistry() {}
+
+    /**
+     * Returns the shared base client for the given transport configuration, creating it on first use.
+     *
+     * @param key the effective transport configuration
+     * @return the shared {@link OkHttpClient} for the given configuration
+     */
+    public static OkHttpClient getClient(TransportKey key) {
+        return clients.computeIfAbsent(key, HttpClientRegistry::createClient);
+    }
+
+    /**
+     * Creates a new base client for the given transport configuration.
+     * <p>
+     * Only transport level settings belong here. Anything that does not affect how connections are established
+     * (headers, logging, interceptors, event listeners) must be layered on with {@link OkHttpClient#newBuilder()}.
+     *
+     * @param key the effective transport configuration
+     * @return a new {@link OkHttpClient} instance
+     */
+    private static OkHttpClient createClient(TransportKey key) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(key.connectionTimeout(), TimeUnit.SECONDS)
+                .readTimeout(key.readTimeout(), TimeUnit.SECONDS)
+                .writeTimeout(key.writeTimeout(), TimeUnit.SECONDS)
+                .followRedirects(key.followRedirects());
+
+        if (!key.hostnameVerification())
+            builder.hostnameVerifier((hostname, session) -> true);
+
+        builder.protocols(key.protocol().protocols());
+        if (key.pingInterval() > 0)
+            builder.pingInterval(key.pingInterval(), TimeUnit.MILLISECONDS);
+
+        Dispatcher dispatcher = new Dispatcher();
+        if (key.virtualThreads()) {
+            if (VirtualThreads.isSupported())
+                dispatcher = new Dispatcher(VirtualThreads.newExecutor());
+            else
+                log.warning("Virtual threads are not supported by JDK " + Runtime.version() + ", using platform threads.");
+        }
+        dispatcher.setMaxRequests(key.maxRequests());
+        dispatcher.setMaxRequestsPerHost(key.maxRequestsPerHost());
+        builder.dispatcher(dispatcher);
+
+        if (key.proxyHost() != null)
+            builder.proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(key.proxyHost(), key.proxyPort())));
+
+        log.info("Creating a shared http client for " + key);
+        return builder.build();
+    }
+
+    /**
+     * Returns connection pool and dispatcher statistics for every registered client.
+     *
+     * @return a list of {@link ClientStats}, one per registered transport configuration
+     */
+    public static List<ClientStats> stats() {
+        List<ClientStats> stats = new ArrayList<>();
+        clients.forEach((key, client) -> stats.add(ClientStats.of(key, client)));
+        return stats;
+    }
+
+    /**
+     * Returns connection pool and dispatcher statistics for the client registered with the given key.
+     *
+     * @param key the transport configuration
+     * @return the {@link ClientStats}, or null if no client is registered for the key
+     */
+    public static ClientStats stats(TransportKey key) {
+        OkHttpClient client = clients.get(key);
+        return client == null ? null : ClientStats.of(key, client);
+    }
+
+    /**
+     * Returns the number of shared clients in the registry.
+     *
+     * @return the number of registered clients
+     */
+    public static int size() {
+        return clients.size();
+    }
+
+    /**
+     * Evicts idle connections of every registered client and removes all clients from the registry.
+     * <p>
+     * Derived clients that are still referenced keep working; their connections are re-established on demand.
+     */
+    public static void evictAll() {
+        clients.values().forEach(client -> client.connectionPool().evictAll());
+        clients.clear();
+    }
+
+    /**
+     * The effective transport configuration a shared client is keyed by.
+     *
+     * @param connectionTimeout    connection timeout in seconds
+     * @param readTimeout          read timeout in seconds
+     * @param writeTimeout         write timeout in seconds
+     * @param followRedirects      whether redirects are followed
+     * @param hostnameVerification whether hostnames are verified
+     * @param proxyHost            proxy host, or null when no proxy is used
+     * @param proxyPort            proxy port
+     * @param virtualThreads       whether the dispatcher runs calls on virtual threads
+     * @param protocol             the HTTP version connections speak
+     * @param pingInterval         interval of HTTP/2 pings in milliseconds, or 0 to not send them
+     * @param maxRequests          maximum number of asynchronous calls in flight at once
+     * @param maxRequestsPerHost   maximum number of asynchronous calls in flight at once per host
+     */
+    public record TransportKey(
+            int connectionTimeout,
+            int readTimeout,
+            int writeTimeout,
+            boolean followRedirects,
+            boolean hostnameVerification,
+            String proxyHost,
+            int proxyPort,
+            boolean virtualThreads,
+            HttpProtocol protocol,
+            long pingInterval,
+            int maxRequests,
+            int maxRequestsPerHost
+    ) { }
+
+    /**
+     * A snapshot of connection pool and dispatcher statistics of a shared client.
+     *
+     * @param key                 the transport configuration of the client
+     * @param connectionCount     total number of connections in the pool
+     * @param idleConnectionCount number of idle connections in the pool
+     * @param runningCalls        number of calls currently executing
+     * @param queuedCalls         number of calls waiting to be executed
+     */
+    public record ClientStats(
+            TransportKey key,
+            int connectionCount,
+            int idleConnectionCount,
+            int runningCalls,
+            int queuedCalls
+    ) {
+        static ClientStats of(TransportKey key, OkHttpClient client) {
+            return new ClientStats(
+                    key,
+                    client.connectionPool().connectionCount(),
+                    client.connectionPool().idleConnectionCount(),
+                    client.dispatcher().runningCallsCount(),
+                    client.dispatcher().queuedCallsCount()
+            );
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.Protocol;
+
+import java.util.List;
+
+/**
+ * The HTTP versions a client can speak.
+ * <p>
+ * HTTP/2 multiplexes concurrent calls to a host over one connection instead of opening a connection per call in
+ * flight. Over TLS, it is negotiated with ALPN and falls back to HTTP/1.1; plaintext internal services that speak
+ * HTTP/2 can be called with {@link #H2C} (HTTP/2 with prior knowledge), which skips the negotiation and cannot be used
+ * with {@code https} URLs.
+ * </p>
+ *
+ * @see WasapiClient.Builder#protocol(HttpProtocol)
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public enum HttpProtocol {
+    /**
+     * HTTP/1.1 only, one call in flight per connection.
+     */
+    HTTP_1_1(List.of(Protocol.HTTP_1_1)),
+    /**
+     * HTTP/2 over TLS when the server accepts it, HTTP/1.1 otherwise. (the OkHttp default)
+     */
+    HTTP_2(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)),
+    /**
+     * HTTP/2 over plaintext connections, without negotiation.
+     */
+    H2C(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+
+    private final List<Protocol> protocols;
+
+    HttpProtocol(List<Protocol> protocols) {
+        this.protocols = protocols;
+    }
+
+    /**
+     * Returns the protocol in the {@code http-protocol} property (default: http_2).
+     *
+     * @return the default protocol
+     */
+    public static HttpProtocol fromContext() {
+        return HttpProtocol.valueOf(ContextStore.get("http-protocol", "http_2").trim().toUpperCase());
+    }
+
+    /**
+     * @return the OkHttp protocols of this version, in order of preference
+     */
+    List<Protocol> protocols() {
+        return protocols;
+    }
+}
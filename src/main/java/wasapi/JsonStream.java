@@ -0,0 +1,249 @@
+package wasapi;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import wasapi.exceptions.WasapiException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static utils.mapping.MappingUtilities.Json.mapper;
+
+/**
+ * The elements of a JSON array response, decoded one at a time while the response body streams in.
+ * <p>
+ * Only the element being decoded is held in memory, so memory use stays flat however large the array is, and the
+ * first element is available as soon as its bytes arrive. The elements can be consumed once, as an {@link Iterator},
+ * a {@link Stream} or a {@link Flow.Publisher} that decodes only as many elements as its subscriber requested.
+ * Closing the stream before the last element cancels the call, which drops the connection instead of reading the
+ * rest of the body. The stream closes itself after the last element.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     try (Stream&lt;Order&gt; orders = performStreaming(api.getOrders(), Order.class).stream()) {
+ *         orders.filter(Order::isOpen).limit(10).forEach(this::process);
+ *     }
+ * </pre>
+ *
+ * @param <T> the type of the elements
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class JsonStream<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Readers of the element types, cached per type.
+     */
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Call<?> call;
+    private final ResponseBody body;
+    private final ObjectReader reader;
+    private final JsonParser parser;
+
+    private T next;
+    private boolean hasNext;
+    private boolean exhausted;
+    private boolean closed;
+
+    /**
+     * Starts decoding the given response body.
+     *
+     * @param call        the call the body is the response of, cancelled when the stream is closed early
+     * @param body        the response body, which has to be a JSON array
+     * @param elementType the type of the elements
+     * @throws WasapiException if the body is not a JSON array
+     */
+    JsonStream(Call<?> call, ResponseBody body, Class<T> elementType) {
+        this.call = call;
+        this.body = body;
+        this.reader = readers.computeIfAbsent(elementType, mapper::readerFor);
+        try {
+            parser = mapper.getFactory().createParser(body.byteStream());
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY)
+                throw new WasapiException("Expected a JSON array, but the response body starts with " + token);
+        }
+        catch (IOException | RuntimeException exception) {
+            cancel();
+            body.close();
+            throw exception instanceof WasapiException wasapiException ?
+                    wasapiException :
+                    new WasapiException("Could not read the response body: " + exception.getMessage(), exception);
+        }
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        if (hasNext) return true;
+        if (closed) return false;
+        try {
+            JsonToken token = parser.nextToken();
+            if (token != null && token != JsonToken.END_ARRAY) {
+                next = reader.readValue(parser);
+                hasNext = true;
+                return true;
+            }
+            exhausted = true;
+            close();
+            return false;
+        }
+        catch (IOException exception) {
+            close();
+            throw new WasapiException("Could not read the next element: " + exception.getMessage(), exception);
+        }
+    }
+
+    @Override
+    public synchronized T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T element = next;
+        next = null;
+        hasNext = false;
+        return element;
+    }
+
+    /**
+     * Returns the elements as a sequential stream. Closing the stream closes this {@link JsonStream}.
+     *
+     * @return a {@link Stream} of the elements
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Returns a publisher of the elements, which decodes elements on the background executor of {@link Caller} only
+     * as its subscriber requests them. It accepts a single subscriber; cancelling the subscription closes this
+     * {@link JsonStream}.
+     *
+     * @return a {@link Flow.Publisher} of the elements
+     */
+    public Flow.Publisher<T> publisher() {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return subscriber -> {
+            if (subscribed.compareAndSet(false, true))
+                subscriber.onSubscribe(new Subscription(subscriber, Caller.executor()));
+            else {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override public void request(long n) {}
+                    @Override public void cancel() {}
+                });
+                subscriber.onError(new IllegalStateException("A JsonStream can only be subscribed to once"));
+            }
+        };
+    }
+
+    /**
+     * Closes the stream. If not every element was read, the call is cancelled first, so the rest of the body is not
+     * read.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (!exhausted) cancel();
+        try {
+            parser.close();
+        }
+        catch (IOException ignored) {}
+        finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Cancels the call, which makes a read blocked on another thread fail. Unlike {@link #close()}, this can be
+     * called while another thread reads the stream.
+     */
+    private void cancel() {
+        call.cancel();
+    }
+
+    /**
+     * A subscription that decodes as many elements as were requested.
+     */
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private volatile boolean cancelled;
+
+        Subscription(Flow.Subscriber<? super T> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) return;
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("The number of requested elements must be positive"));
+                return;
+            }
+            long previous = demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            if (previous == 0) executor.execute(this::drain);
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            JsonStream.this.cancel();
+            executor.execute(JsonStream.this::close);
+        }
+
+        /**
+         * Emits elements until the demand is met, the elements run out, or the subscription is cancelled.
+         */
+        private void drain() {
+            long emitted = 0;
+            while (true) {
+                long requested = demand.get();
+                while (emitted != requested) {
+                    if (cancelled) return;
+                    T element;
+                    try {
+                        if (!hasNext()) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                        element = next();
+                    }
+                    catch (RuntimeException exception) {
+                        if (!cancelled) {
+                            cancelled = true;
+                            subscriber.onError(exception);
+                        }
+                        return;
+                    }
+                    subscriber.onNext(element);
+                    emitted++;
+                }
+                if (demand.addAndGet(-emitted) == 0) return;
+                emitted = 0;
+            }
+        }
+    }
+}
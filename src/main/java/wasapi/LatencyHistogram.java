@@ -0,0 +1,112 @@
+package wasapi;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free, fixed-size latency histogram with microsecond resolution.
+ * <p>
+ * Values are counted in log-linear buckets: exact below 16µs, and 16 buckets per power of two above that, so every
+ * reported percentile is within about 6% of the recorded value. Recording is a handful of atomic increments on
+ * preallocated counters and never allocates; values above roughly 12 days are clamped.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_MICROS = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records the given latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1_000, 0), MAX_MICROS);
+        counts.incrementAndGet(indexOf(micros));
+        sumMicros.add(micros);
+        if (micros > maxMicros.get()) maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns a snapshot of the recorded latencies. Concurrent recordings may or may not be included.
+     *
+     * @return the {@link WasapiMetrics.LatencySnapshot}
+     */
+    WasapiMetrics.LatencySnapshot snapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++)
+            count += snapshot[index] = counts.get(index);
+        long max = maxMicros.get();
+        return new WasapiMetrics.LatencySnapshot(
+                count,
+                Duration.ofNanos(count == 0 ? 0 : sumMicros.sum() * 1_000 / count),
+                Duration.ofNanos(percentile(snapshot, count, 0.5, max) * 1_000),
+                Duration.ofNanos(percentile(snapshot, count, 0.99, max) * 1_000),
+                Duration.ofNanos(percentile(snapshot, count, 0.999, max) * 1_000),
+                Duration.ofNanos(max * 1_000)
+        );
+    }
+
+    /**
+     * Returns the given percentile of the recorded latencies.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @param minCount   the number of latencies that have to be recorded for the percentile to be meaningful
+     * @return the percentile, or null if fewer than {@code minCount} latencies were recorded
+     */
+    Duration percentile(double percentile, long minCount) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++)
+            count += snapshot[index] = counts.get(index);
+        if (count < Math.max(minCount, 1)) return null;
+        return Duration.ofNanos(percentile(snapshot, count, percentile, maxMicros.get()) * 1_000);
+    }
+
+    /**
+     * Returns the upper bound of the bucket the given percentile falls into, capped at the recorded maximum.
+     */
+    private static long percentile(long[] snapshot, long count, double percentile, long max) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int index = 0; index < snapshot.length; index++) {
+            seen += snapshot[index];
+            if (seen >= rank) return Math.min(upperBoundOf(index), max);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the bucket the given value is counted in.
+     */
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKET_COUNT) return (int) micros;
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the largest value counted in the given bucket.
+     */
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
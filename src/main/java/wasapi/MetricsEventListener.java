@@ -0,0 +1,124 @@
+package wasapi;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * An {@link EventListener} that feeds {@link WasapiMetrics} with the phase timings and byte counts of a call.
+ * <p>
+ * OkHttp creates one listener per call, so the phase start times are plain fields; every callback is a timestamp
+ * and at most one histogram recording.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class MetricsEventListener extends EventListener {
+
+    /**
+     * Creates a listener for every call of the client it is installed on.
+     */
+    static final EventListener.Factory FACTORY = MetricsEventListener::new;
+
+    private final WasapiMetrics.ServiceMetrics metrics;
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long requestEnd;
+
+    private MetricsEventListener(Call call) {
+        this.metrics = WasapiMetrics.service(call.request());
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        metrics.recordPhase(WasapiMetrics.Phase.DNS, System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        metrics.recordPhase(WasapiMetrics.Phase.TLS, System.nanoTime() - secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        metrics.recordPhase(WasapiMetrics.Phase.CONNECT, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestEnd = System.nanoTime();
+        metrics.bytesSent.add(request.headers().byteCount());
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestEnd = System.nanoTime();
+        metrics.bytesSent.add(byteCount);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        long now = System.nanoTime();
+        metrics.recordPhase(WasapiMetrics.Phase.REQUEST_WRITE, requestEnd - requestStart);
+        metrics.recordPhase(WasapiMetrics.Phase.TIME_TO_FIRST_BYTE, now - requestEnd);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        metrics.bytesReceived.add(response.headers().byteCount());
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        metrics.bytesReceived.add(byteCount);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        metrics.recordPhase(WasapiMetrics.Phase.CALL, System.nanoTime() - callStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        metrics.recordPhase(WasapiMetrics.Phase.CALL, System.nanoTime() - callStart);
+    }
+}
@@ -0,0 +1,55 @@
+package wasapi;
+
+import context.ContextStore;
+
+import java.time.Duration;
+
+/**
+ * How often the monitors of {@link WasapiUtilities} poll: exponential backoff from {@code initialDelay}, by
+ * {@code multiplier} per attempt, up to {@code maxDelay}, with every delay randomized by up to {@code jitter} (as a
+ * fraction of the delay) in either direction so that concurrent monitors do not poll in lockstep.
+ * A {@code Retry-After} header in a polled response always takes precedence over a shorter delay.
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     MonitorPolicy policy = new MonitorPolicy(Duration.ofMillis(250), Duration.ofSeconds(5), 2, 0.2);
+ *     CompletableFuture&lt;Response&lt;Job&gt;&gt; job = monitorAsync(api.getJob(id), response -&gt; response.code() == 200, 60, policy);
+ * </pre>
+ *
+ * @param initialDelay the delay after the first attempt
+ * @param maxDelay     the maximum delay between attempts
+ * @param multiplier   the factor the delay grows by after every attempt
+ * @param jitter       the maximum random deviation of a delay, as a fraction of the delay (0 to 1)
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public record MonitorPolicy(Duration initialDelay, Duration maxDelay, double multiplier, double jitter) {
+
+    /**
+     * Creates the default policy from the {@code monitor-initial-delay} (default: 500ms), {@code monitor-max-delay}
+     * (default: 5000ms), {@code monitor-backoff-multiplier} (default: 2) and {@code monitor-jitter} (default: 0.2)
+     * properties.
+     *
+     * @return the default {@link MonitorPolicy}
+     */
+    public static MonitorPolicy fromContext() {
+        return new MonitorPolicy(
+                Duration.ofMillis(Long.parseLong(ContextStore.get("monitor-initial-delay", "500"))),
+                Duration.ofMillis(Long.parseLong(ContextStore.get("monitor-max-delay", "5000"))),
+                Double.parseDouble(ContextStore.get("monitor-backoff-multiplier", "2")),
+                Double.parseDouble(ContextStore.get("monitor-jitter", "0.2"))
+        );
+    }
+
+    /**
+     * Returns the delay before the next attempt.
+     *
+     * @param attempt the number of attempts made so far, starting at 1
+     * @return the delay in milliseconds
+     */
+    long delayMillis(int attempt) {
+        return Backoff.delayMillis(initialDelay, maxDelay, multiplier, jitter, attempt);
+    }
+}
@@ -0,0 +1,18 @@
+package wasapi;
+
+/**
+ * Is notified whenever a chunk of a {@link ChunkedUpload} or a range of a {@link RangedDownload} is completed. It is
+ * called from the threads that transfer the chunks.
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param transferredBytes the bytes of the completed chunks
+     * @param totalBytes       the size of the file
+     */
+    void onProgress(long transferredBytes, long totalBytes);
+}
@@ -0,0 +1,389 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+import utils.Printer;
+import wasapi.exceptions.FailedCallException;
+import wasapi.exceptions.WasapiException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Downloads a file in byte ranges, several at a time, and resumes from the completed ranges after a failure.
+ * <p>
+ * A one byte range is requested first, to learn the size of the file and whether the server serves ranges. The file
+ * is then split into ranges of {@code rangeSize} bytes, and up to {@code parallelism} of them are fetched at once on
+ * the background executor of {@link Caller}, each over its own connection. Every range is transferred from the
+ * response straight to its offset in the target file, without being read onto the heap as a whole, and can be
+ * checked against an expected checksum. A range that fails without a response or with a response code in
+ * {@code retry-status-codes}, arrives short, or does not match its checksum is fetched again, up to {@code maxAttempts}
+ * times, with the backoff of the default {@link RetryPolicy}. If the server ignores ranges, the file is downloaded as a single stream.
+ * </p>
+ * <p>
+ * With a journal file (see {@link #journal(File)}), completed ranges are remembered, so an interrupted download only
+ * fetches the missing ranges when it is started again, provided the file still has the same size and {@code ETag}.
+ * The service method has to be annotated with {@code @Streaming}, so response bodies are not read into memory.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     &#64;Streaming
+ *     &#64;GET("reports/{id}")
+ *     Call&lt;ResponseBody&gt; getReport(@Path("id") String id, @Header("Range") String range);
+ *
+ *     RangedDownload.Result result = new RangedDownload(range -&gt; api.getReport(id, range), new File("report.csv"))
+ *             .journal(new File("report.csv.download"))
+ *             .download();
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class RangedDownload {
+
+    private static final Printer log = new Printer(RangedDownload.class);
+
+    /**
+     * Sends every attempt once, so the retries of the client do not multiply the attempts of a range.
+     */
+    private static final RetryPolicy singleAttempt = RetryPolicy.getDefault().withMaxRetries(0);
+
+    private final RangeFetcher fetcher;
+    private final File target;
+    private long rangeSize = Long.parseLong(ContextStore.get("download-range-size", "8388608"));
+    private int parallelism = Integer.parseInt(ContextStore.get("download-parallelism", "4"));
+    private int maxAttempts = Integer.parseInt(ContextStore.get("download-range-attempts", "3"));
+    private String checksumAlgorithm;
+    private Function<Range, String> checksums;
+    private ProgressListener progress;
+    private File journal;
+
+    /**
+     * Creates a download to the given file with the {@code download-range-size} (default: 8 MiB),
+     * {@code download-parallelism} (default: 4) and {@code download-range-attempts} (default: 3) properties.
+     *
+     * @param fetcher builds the call that fetches a range
+     * @param target  the file to download to
+     */
+    public RangedDownload(RangeFetcher fetcher, File target) {
+        this.fetcher = fetcher;
+        this.target = target;
+    }
+
+    /**
+     * Sets the size of the ranges.
+     */
+    public RangedDownload rangeSize(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("The range size has to be positive");
+        this.rangeSize = bytes;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of ranges fetched at once.
+     */
+    public RangedDownload parallelism(int ranges) {
+        this.parallelism = ranges;
+        return this;
+    }
+
+    /**
+     * Sets how many times a range is fetched before the download fails.
+     */
+    public RangedDownload maxAttempts(int attempts) {
+        this.maxAttempts = attempts;
+        return this;
+    }
+
+    /**
+     * Checks every range against its expected checksum.
+     *
+     * @param algorithm the {@link MessageDigest} algorithm, e.g. {@code SHA-256}
+     * @param checksums returns the expected checksum of a range in hexadecimal, or null to not check it
+     */
+    public RangedDownload checksums(String algorithm, Function<Range, String> checksums) {
+        try {
+            MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException exception) {
+            throw new IllegalArgumentException("Unknown checksum algorithm: " + algorithm, exception);
+        }
+        this.checksumAlgorithm = algorithm;
+        this.checksums = checksums;
+        return this;
+    }
+
+    /**
+     * Sets the listener that is notified whenever a range is completed.
+     */
+    public RangedDownload progress(ProgressListener listener) {
+        this.progress = listener;
+        return this;
+    }
+
+    /**
+     * Remembers completed ranges in the given journal file, and skips the ranges it already lists. The journal is
+     * discarded if it was written for a file of another size or {@code ETag}, or with another range size.
+     */
+    public RangedDownload journal(File journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    /**
+     * Fetches the ranges that have not been completed yet, and waits for them.
+     *
+     * @return the {@link Result} of the download
+     * @throws FailedCallException if a range could not be fetched in {@code maxAttempts} attempts; the ranges
+     *                             completed so far are skipped when the download is started again with a journal
+     */
+    public Result download() {
+        long start = System.nanoTime();
+        Response<ResponseBody> probe = fetch(fetcher.call("bytes=0-0"));
+        try (ResponseBody body = probe.body()) {
+            if (probe.code() == 416)
+                return downloadStream(null, start);
+            if (!probe.isSuccessful())
+                throw new FailedCallException(
+                        "The download of " + target.getName() + " was rejected with response code " + probe.code()
+                );
+            if (probe.code() == 206 && contentLength(probe) >= 0)
+                return downloadRanges(contentLength(probe), Objects.requireNonNullElse(probe.headers().get("ETag"), ""), start);
+            if (probe.code() != 206) {
+                log.info("The server does not serve ranges of " + target.getName() + ", downloading it as a single stream");
+                return downloadStream(body, start);
+            }
+            log.info("The size of " + target.getName() + " is unknown, downloading it as a single stream");
+        }
+        catch (IOException exception) {
+            throw new WasapiException("Could not download " + target.getName() + ": " + exception.getMessage(), exception);
+        }
+
+        // The size of the file is unknown, so it is fetched from its start to its end
+        Response<ResponseBody> response = fetch(fetcher.call("bytes=0-"));
+        try (ResponseBody body = response.body()) {
+            if (!response.isSuccessful())
+                throw new FailedCallException(
+                        "The download of " + target.getName() + " was rejected with response code " + response.code()
+                );
+            return downloadStream(body, start);
+        }
+        catch (IOException exception) {
+            throw new WasapiException("Could not download " + target.getName() + ": " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Downloads the file in ranges.
+     */
+    private Result downloadRanges(long length, String etag, long start) throws IOException {
+        int count = (int) ((length + rangeSize - 1) / rangeSize);
+        try (FileChannel channel = FileChannel.open(
+                target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             ChunkJournal journal = ChunkJournal.open(this.journal, length + ":" + rangeSize + ":" + etag)) {
+            BitSet completed = journal.completed();
+            if (completed.isEmpty() || channel.size() != length) {
+                completed.clear();
+                channel.truncate(length);
+                if (channel.size() < length) channel.write(ByteBuffer.allocate(1), length - 1);
+            }
+
+            int skipped = completed.cardinality();
+            long downloaded = 0;
+            for (int index = completed.nextSetBit(0); index >= 0 && index < count; index = completed.nextSetBit(index + 1))
+                downloaded += range(index, count, length).length();
+            if (skipped > 0) log.info("Resuming the download of " + target.getName() + ", " + skipped + " of " + count + " ranges are complete");
+
+            ChunkTransfer.run(target.getName(), count, parallelism, completed::get, downloaded, length, progress, index -> {
+                Range range = range(index, count, length);
+                fetch(range, channel, etag);
+                channel.force(false); // The range is on the disk before the journal lists it
+                synchronized (journal) {
+                    journal.append(index);
+                }
+                return range.length();
+            });
+            return new Result(length, count, count - skipped, true, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Downloads the file from the given response body, which has the whole file, or an empty file if it is null.
+     */
+    private Result downloadStream(ResponseBody body, long start) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long length = body == null ? 0 : transfer(body.source(), channel, 0, Long.MAX_VALUE);
+            Range range = new Range(0, 1, 0, length);
+            if (!matchesChecksum(range, channel))
+                throw new FailedCallException(target.getName() + " does not match its checksum");
+            if (progress != null) progress.onProgress(length, length);
+            return new Result(length, 1, 1, false, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Fetches a range to its offset in the file until it is complete and matches its checksum, or fails for good.
+     */
+    private void fetch(Range range, FileChannel channel, String etag) {
+        for (int attempt = 1; ; attempt++) {
+            Response<ResponseBody> response = null;
+            String problem;
+            try {
+                response = fetch(fetcher.call(range.header()));
+                try (ResponseBody body = response.body()) {
+                    int code = response.code();
+                    if (code == 206) {
+                        if (!etag.equals(Objects.requireNonNullElse(response.headers().get("ETag"), "")))
+                            throw new FailedCallException(target.getName() + " changed during the download");
+                        long written = transfer(body.source(), channel, range.offset(), range.length());
+                        if (written < range.length())
+                            problem = "it ended after " + written + " of " + range.length() + " bytes";
+                        else if (!matchesChecksum(range, channel))
+                            problem = "it does not match its checksum";
+                        else return;
+                    }
+                    else if (ChunkTransfer.isRetryable(code))
+                        problem = "response code " + code;
+                    else throw new FailedCallException(
+                            "Range " + range.index() + " of " + target.getName() + " was rejected with response code " + code
+                    );
+                }
+            }
+            catch (FailedCallException exception) {
+                if (response != null) throw exception;
+                problem = exception.getMessage();
+            }
+            catch (IOException exception) {
+                problem = exception.getMessage();
+            }
+            if (attempt >= maxAttempts)
+                throw new FailedCallException(
+                        "Range " + range.index() + " of " + target.getName() + " failed " + attempt + " times, " + problem
+                );
+            long delay = ChunkTransfer.retryDelay(attempt, response == null ? null : response.headers());
+            log.warning("Fetching range " + range.index() + " of " + target.getName() + " again in " + delay + "ms (" + problem + ")");
+            ChunkTransfer.awaitRetry(delay, "downloading " + target.getName());
+        }
+    }
+
+    private static Response<ResponseBody> fetch(Call<ResponseBody> call) {
+        return Caller.getResponse(call, false, false, singleAttempt);
+    }
+
+    /**
+     * Transfers at most {@code count} bytes of the source to the given position of the file.
+     *
+     * @return the number of bytes transferred, less than {@code count} if the source ended first
+     */
+    private static long transfer(ReadableByteChannel source, FileChannel channel, long position, long count) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long bytes = channel.transferFrom(source, position + transferred, count - transferred);
+            if (bytes <= 0) break;
+            transferred += bytes;
+        }
+        return transferred;
+    }
+
+    /**
+     * Checks a written range against its expected checksum, reading it back through a mapped buffer.
+     */
+    private boolean matchesChecksum(Range range, FileChannel channel) throws IOException {
+        String expected = checksums == null ? null : checksums.apply(range);
+        if (expected == null) return true;
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(checksumAlgorithm);
+        }
+        catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+        if (range.length() > 0)
+            for (long offset = 0; offset < range.length(); offset += Integer.MAX_VALUE)
+                digest.update(channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        range.offset() + offset,
+                        Math.min(Integer.MAX_VALUE, range.length() - offset)
+                ));
+        return HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(expected);
+    }
+
+    private Range range(int index, int count, long length) {
+        long offset = index * rangeSize;
+        return new Range(index, count, offset, Math.min(rangeSize, length - offset));
+    }
+
+    /**
+     * Returns the full length of the file from the {@code Content-Range} of a partial response, or -1 if it is unknown.
+     */
+    private static long contentLength(Response<?> response) {
+        String contentRange = response.headers().get("Content-Range");
+        if (contentRange == null) return -1;
+        int slash = contentRange.lastIndexOf('/');
+        try {
+            return slash < 0 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+        }
+        catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * Builds the call that fetches a range.
+     */
+    @FunctionalInterface
+    public interface RangeFetcher {
+
+        /**
+         * @param range the value of the {@code Range} header, e.g. {@code bytes=0-8388607}
+         * @return the call that fetches the range; a new call is requested for every attempt
+         */
+        Call<ResponseBody> call(String range);
+    }
+
+    /**
+     * A range of the file.
+     *
+     * @param index  the index of the range, starting at 0
+     * @param count  the number of ranges of the file
+     * @param offset the offset of the range in the file
+     * @param length the length of the range
+     */
+    public record Range(int index, int count, long offset, long length) {
+
+        /**
+         * @return the {@code Range} header of the range, e.g. {@code bytes=0-8388607}
+         */
+        public String header() {
+            return "bytes=" + offset + "-" + (offset + length - 1);
+        }
+    }
+
+    /**
+     * The outcome of a download.
+     *
+     * @param bytes         the size of the file
+     * @param ranges        the number of ranges of the file
+     * @param rangesFetched the number of ranges fetched by this download, the others were completed before
+     * @param ranged        false if the server did not serve ranges, and the file was downloaded as a single stream
+     * @param elapsed       how long the download took
+     */
+    public record Result(long bytes, int ranges, int rangesFetched, boolean ranged, Duration elapsed) { }
+}
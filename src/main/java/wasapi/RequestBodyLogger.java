@@ -0,0 +1,176 @@
+package wasapi;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import utils.Printer;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static utils.mapping.MappingUtilities.Json.getJsonString;
+import static utils.mapping.MappingUtilities.Json.mapper;
+
+/**
+ * A network interceptor that logs outgoing request bodies.
+ * <p>
+ * The body is not written twice: it is streamed to the network through a tee that copies at most
+ * {@code maxBytes} bytes aside. Requests can be sampled (one in every {@code sampleRate}), or restricted to slow or
+ * failed calls. Parsing and pretty-printing happen on a dedicated logging thread, never on the request thread.
+ * The interceptor is only installed when request body logging is enabled, so it costs nothing otherwise.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class RequestBodyLogger implements Interceptor {
+
+    /**
+     * The logger object for logging information.
+     */
+    private static final Printer log = new Printer(RequestBodyLogger.class);
+
+    /**
+     * Formats and logs captured bodies in submission order, off the request threads.
+     */
+    private static final ExecutorService formatter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wasapi-request-body-logger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxBytes;
+    private final int sampleRate;
+    private final long slowThresholdMillis;
+    private final Consumer<String> output;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * @param maxBytes            the maximum number of body bytes captured per request
+     * @param sampleRate          log one in every {@code sampleRate} requests
+     * @param slowThresholdMillis if not negative, only calls that take at least this long or fail are logged
+     */
+    RequestBodyLogger(int maxBytes, int sampleRate, long slowThresholdMillis) {
+        this(maxBytes, sampleRate, slowThresholdMillis, log::info);
+    }
+
+    /**
+     * @param maxBytes            the maximum number of body bytes captured per request
+     * @param sampleRate          log one in every {@code sampleRate} requests
+     * @param slowThresholdMillis if not negative, only calls that take at least this long or fail are logged
+     * @param output              receives the formatted bodies on the logging thread
+     */
+    RequestBodyLogger(int maxBytes, int sampleRate, long slowThresholdMillis, Consumer<String> output) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.sampleRate = Math.max(1, sampleRate);
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.output = output;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || body.isDuplex() || maxBytes == 0 || requestCount.getAndIncrement() % sampleRate != 0)
+            return chain.proceed(request);
+
+        TeeRequestBody tee = new TeeRequestBody(body, maxBytes);
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request.newBuilder().method(request.method(), tee).build());
+        }
+        catch (IOException exception) {
+            submit(tee, "failed: " + exception.getMessage());
+            throw exception;
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        if (slowThresholdMillis < 0 || !response.isSuccessful() || elapsedMillis >= slowThresholdMillis)
+            submit(tee, "response code " + response.code() + " in " + elapsedMillis + "ms");
+        return response;
+    }
+
+    /**
+     * Hands the captured body over to the logging thread.
+     */
+    private void submit(TeeRequestBody tee, String outcome) {
+        Buffer captured = tee.captured;
+        long contentLength = tee.written;
+        formatter.execute(() -> output.accept(format(captured, contentLength, outcome)));
+    }
+
+    /**
+     * Formats the captured bytes as pretty JSON if possible, as plain text otherwise.
+     */
+    private static String format(Buffer captured, long contentLength, String outcome) {
+        long capturedBytes = captured.size();
+        boolean truncated = contentLength > capturedBytes;
+        String bodyString = captured.readString(UTF_8);
+        String header = "The request body (" + outcome + ")" +
+                (truncated ? ", first " + capturedBytes + " of " + contentLength + " bytes" : "") + " is: \n";
+        if (!truncated)
+            try {
+                return header + getJsonString(mapper.readValue(bodyString, Object.class));
+            }
+            catch (IOException ignored) {}
+        return header + bodyString;
+    }
+
+    /**
+     * A request body that copies at most {@code maxBytes} of the bytes it writes into {@link #captured}.
+     */
+    private static final class TeeRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+        private final long maxBytes;
+        private final Buffer captured = new Buffer();
+        private long written;
+
+        TeeRequestBody(RequestBody delegate, long maxBytes) {
+            this.delegate = delegate;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return delegate.isOneShot();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            captured.clear();
+            written = 0;
+            BufferedSink teeSink = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    long remaining = maxBytes - captured.size();
+                    if (remaining > 0) source.copyTo(captured, 0, Math.min(byteCount, remaining));
+                    written += byteCount;
+                    super.write(source, byteCount);
+                }
+            });
+            delegate.writeTo(teeSink);
+            teeSink.emit();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package wasapi;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Invocation;
+import retrofit2.http.Streaming;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An application interceptor that coalesces identical GET requests that are in flight at the same time.
+ * <p>
+ * The first request for a given URL and set of headers (the leader) goes to the network. Identical requests that
+ * arrive while it is in flight (the followers) wait for the leader instead of sending their own, and each gets its
+ * own copy of the leader's buffered response body. A leader that has no followers by the time its response arrives
+ * returns it untouched, so requests that are not contended are never buffered. Bodies larger than
+ * {@code maxBodyBytes} are not shared: the leader streams its body as usual and the followers send their own
+ * requests. A failure of the leader is rethrown to its followers. Requests of {@code @Streaming} service methods
+ * are never coalesced, since their bodies are meant to be streamed, and neither are the hedged copies of a call,
+ * which would otherwise wait for the very request they are meant to race.
+ * </p>
+ * <p>
+ * The interceptor is installed per client, after the interceptors that authorize requests, so only requests with
+ * the same credentials are ever coalesced.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class RequestCoalescer implements Interceptor {
+
+    private static final LongAdder leaders = new LongAdder();
+    private static final LongAdder coalesced = new LongAdder();
+
+    /**
+     * The requests of calls that are sent on their own. Requests compare by identity, and are held weakly.
+     */
+    private static final Set<Request> bypassed = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final long maxBodyBytes;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxBodyBytes the maximum size of a response body shared with followers
+     */
+    RequestCoalescer(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Returns the number of requests that were sent to the network while other identical requests waited for them.
+     *
+     * @return the number of leader requests
+     */
+    public static long leaderCount() {
+        return leaders.sum();
+    }
+
+    /**
+     * Returns the number of requests that were answered with the response of an identical in-flight request
+     * instead of being sent.
+     *
+     * @return the number of coalesced requests
+     */
+    public static long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Sends the given call on its own, e.g. a hedged copy, even if an identical request is in flight.
+     *
+     * @param call the call that is not coalesced
+     */
+    static void bypass(retrofit2.Call<?> call) {
+        try {
+            bypassed.add(call.request());
+        }
+        catch (RuntimeException ignored) {
+            // The request could not be created; executing the call reports the failure
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!request.method().equals("GET") || request.body() != null) return chain.proceed(request);
+        if (isStreaming(request) || bypassed.contains(chain.call().request())) return chain.proceed(request);
+
+        String key = request.url() + "\n" + request.headers();
+        Flight flight = new Flight();
+        Flight leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) return follow(chain, leader);
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        }
+        catch (IOException | RuntimeException exception) {
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(exception);
+            throw exception;
+        }
+        inFlight.remove(key, flight);
+        if (flight.followers.get() == 0) {
+            flight.result.complete(null);
+            return response;
+        }
+
+        Shared shared = null;
+        try {
+            shared = share(response);
+        }
+        finally {
+            flight.result.complete(shared);
+        }
+        if (shared == null) return response;
+        leaders.increment();
+        return shared.toResponse(request);
+    }
+
+    /**
+     * Waits for the leader and answers the request with a copy of its response, or sends the request itself if
+     * the leader's response is not shared.
+     */
+    private Response follow(Chain chain, Flight leader) throws IOException {
+        leader.followers.incrementAndGet();
+        Shared shared;
+        try {
+            shared = leader.result.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an identical in-flight request");
+        }
+        catch (ExecutionException exception) {
+            throw new IOException("The identical in-flight request failed", exception.getCause());
+        }
+        if (shared == null) return chain.proceed(chain.request());
+        coalesced.increment();
+        return shared.toResponse(chain.request());
+    }
+
+    /**
+     * Returns whether the request was made by a service method annotated with {@link Streaming}.
+     */
+    private static boolean isStreaming(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Streaming.class);
+    }
+
+    /**
+     * Buffers the body of the given response, if it is small enough to be shared.
+     */
+    private Shared share(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) return new Shared(response, null, new byte[0]);
+        BufferedSource source = body.source();
+        if (source.request(maxBodyBytes + 1)) return null;
+        byte[] bytes = source.readByteArray();
+        body.close();
+        return new Shared(response, body.contentType(), bytes);
+    }
+
+    /**
+     * An in-flight leader request: the followers waiting for it and its shared response, which is null if the
+     * response is not shared.
+     */
+    private static final class Flight {
+        final AtomicInteger followers = new AtomicInteger();
+        final CompletableFuture<Shared> result = new CompletableFuture<>();
+    }
+
+    /**
+     * A buffered response, shared by a leader and its followers.
+     */
+    private record Shared(Response response, MediaType contentType, byte[] body) {
+
+        /**
+         * Returns a copy of the response with its own body, for the given request.
+         */
+        Response toResponse(Request request) {
+            return response.newBuilder()
+                    .request(request)
+                    .body(ResponseBody.create(body, contentType))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package wasapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static utils.mapping.MappingUtilities.Json.getJsonString;
+import static utils.mapping.MappingUtilities.Json.mapper;
+
+/**
+ * An application interceptor that captures the raw bytes of JSON response bodies while they are decoded, so that
+ * {@link Caller} can log what the server actually sent instead of serializing the decoded model again.
+ * <p>
+ * The response source is wrapped in a tee that copies at most {@code maxBytes} bytes aside as the converter reads
+ * them; the body is never read twice or buffered in full. The capture is opt-in, with the
+ * {@code response-body-log-limit} property or {@link WasapiClient.Builder#responseBodyLogLimit(int)}, and nothing is
+ * captured while logging is off (see {@link Caller#keepsLogs()}). The captured bytes are only formatted when a body is actually logged, and are
+ * pretty-printed with a streaming copy rather than by binding them to a tree.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class ResponseBodyCapture implements Interceptor {
+
+    private final long maxBytes;
+
+    /**
+     * @param maxBytes the maximum number of body bytes captured per response
+     */
+    ResponseBodyCapture(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        if (!Caller.keepsLogs()) return chain.proceed(chain.request());
+
+        Capture capture = new Capture(maxBytes);
+        Request request = chain.request().newBuilder().tag(Capture.class, capture).build();
+        Response response = chain.proceed(request);
+        ResponseBody body = response.body();
+        MediaType contentType = body == null ? null : body.contentType();
+        if (contentType == null || !contentType.subtype().contains("json")) return response;
+        return response.newBuilder().body(capture.tee(body)).build();
+    }
+
+    /**
+     * Returns the body of the given response for logging: the captured raw bytes, pretty-printed if they are
+     * complete, or the decoded body serialized to JSON if nothing was captured.
+     *
+     * @param raw     the raw response
+     * @param decoded the decoded response body
+     * @return the loggable body
+     */
+    static String describe(okhttp3.Response raw, Object decoded) {
+        Capture capture = raw.request().tag(Capture.class);
+        if (capture == null || !capture.teed) return getJsonString(decoded);
+        return capture.describe();
+    }
+
+    /**
+     * The bytes captured from a response body.
+     */
+    static final class Capture {
+
+        private final long maxBytes;
+        private final Buffer captured = new Buffer();
+        private long read;
+        private boolean teed;
+
+        Capture(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Wraps the given body so that the bytes read from it are copied into this capture.
+         */
+        ResponseBody tee(ResponseBody body) {
+            teed = true;
+            BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long bytesRead = super.read(sink, byteCount);
+                    if (bytesRead > 0) {
+                        long remaining = maxBytes - captured.size();
+                        if (remaining > 0)
+                            sink.copyTo(captured, sink.size() - bytesRead, Math.min(bytesRead, remaining));
+                        read += bytesRead;
+                    }
+                    return bytesRead;
+                }
+            });
+            return ResponseBody.create(source, body.contentType(), body.contentLength());
+        }
+
+        /**
+         * Formats the captured bytes: pretty-printed if complete and valid JSON, as plain text otherwise.
+         */
+        String describe() {
+            long capturedBytes = captured.size();
+            String bodyString = captured.snapshot().string(UTF_8);
+            if (read > capturedBytes)
+                return "(first " + capturedBytes + " of " + read + " bytes read) " + bodyString;
+            try (JsonParser parser = mapper.getFactory().createParser(bodyString)) {
+                StringWriter writer = new StringWriter(bodyString.length() * 2);
+                try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+                    generator.useDefaultPrettyPrinter();
+                    while (parser.nextToken() != null) generator.copyCurrentEvent(parser);
+                }
+                return writer.toString();
+            }
+            catch (IOException exception) {
+                return bodyString;
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package wasapi;
+
+import okhttp3.Cache;
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response caching for the services generated by {@link WasapiClient}, in two tiers.
+ * <p>
+ * The HTTP tier is OkHttp's disk-backed {@link Cache} (see {@link WasapiClient.Builder#httpCache(File, long)}): it
+ * follows the cache headers of the server and revalidates stale responses with conditional requests
+ * ({@code If-None-Match} for an {@code ETag}, {@code If-Modified-Since} for a {@code Last-Modified}), so an
+ * unchanged resource costs a {@code 304} instead of a full body. There is one {@link Cache} per directory, shared
+ * by every client configured with it.
+ * </p>
+ * <p>
+ * An instance of this class is the optional in-memory tier (see
+ * {@link WasapiClient.Builder#responseCache(ResponseCache)}): it keeps the decoded models of successful GET
+ * responses for a fixed time to live, up to a maximum number of entries, so a hit skips both the network and
+ * deserialization. Entries are keyed by the client, the URL and the headers of the service method, so a cache shared
+ * by clients with different credentials never serves the response of one client to another. A hit returns the same
+ * model instance every time, so cached models must not be modified.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     ResponseCache referenceData = new ResponseCache(Duration.ofMinutes(5), 1_000);
+ *     CountryServices countries = new WasapiClient.Builder()
+ *         .httpCache(new File("build/http-cache"), 50L * 1024 * 1024)
+ *         .responseCache(referenceData)
+ *         .build(CountryServices.class);
+ *     ...
+ *     log.info(referenceData.stats().toString());
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@SuppressWarnings("unused")
+public final class ResponseCache {
+
+    /**
+     * Disk caches, one per directory.
+     */
+    private static final Map<File, Cache> diskCaches = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final CallAdapter.Factory factory = new CachingCallAdapterFactory();
+
+    /**
+     * @param ttl        how long a decoded response is served from memory
+     * @param maxEntries the maximum number of decoded responses kept; the least recently used one is evicted first
+     */
+    public ResponseCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) evictions.increment();
+                return evict;
+            }
+        });
+    }
+
+    /**
+     * Returns the disk cache of the given directory, creating it on first use.
+     * The size of the first cache created for a directory wins.
+     *
+     * @param directory the cache directory
+     * @param maxSize   the maximum size of the cache in bytes
+     * @return the shared {@link Cache} of the directory
+     */
+    public static Cache disk(File directory, long maxSize) {
+        return diskCaches.computeIfAbsent(directory.getAbsoluteFile(), dir -> new Cache(dir, maxSize));
+    }
+
+    /**
+     * Returns the statistics of every disk cache.
+     *
+     * @return a list of {@link DiskStats}, one per directory
+     */
+    public static List<DiskStats> diskStats() {
+        List<DiskStats> stats = new ArrayList<>();
+        diskCaches.forEach((directory, cache) -> {
+            long size;
+            try {
+                size = cache.size();
+            }
+            catch (IOException exception) {
+                size = -1;
+            }
+            stats.add(new DiskStats(
+                    directory.getPath(),
+                    size,
+                    cache.maxSize(),
+                    cache.requestCount(),
+                    cache.networkCount(),
+                    cache.hitCount()
+            ));
+        });
+        return stats;
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the in-memory tier.
+     *
+     * @return the {@link Stats}
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size());
+    }
+
+    /**
+     * Removes the decoded responses of every URL that starts with the given prefix.
+     *
+     * @param urlPrefix the URL prefix, e.g. the base URL of a service
+     */
+    public void invalidate(String urlPrefix) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.url().startsWith(urlPrefix));
+        }
+    }
+
+    /**
+     * Removes every decoded response.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the call adapter factory that serves GET calls from this cache.
+     *
+     * @return the {@link CallAdapter.Factory}
+     */
+    CallAdapter.Factory callAdapterFactory() {
+        return factory;
+    }
+
+    /**
+     * Returns the unexpired response cached for the given request, or null.
+     */
+    private Response<?> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.storedAt < ttlNanos) {
+            hits.increment();
+            return entry.response;
+        }
+        if (entry != null && entries.remove(key, entry)) expirations.increment();
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the given response if it is a successful response with a body.
+     */
+    private void put(Key key, Response<?> response) {
+        if (response.isSuccessful() && response.body() != null)
+            entries.put(key, new Entry(Response.success(response.body(), response.raw()), System.nanoTime()));
+    }
+
+    /**
+     * The key a response is cached by: the client that sends the request, which carries the credentials of the
+     * caller (headers, token provider), and the URL and headers of the request. Clients compare by identity.
+     *
+     * @param client  the client of the service
+     * @param url     the URL of the request
+     * @param headers the headers of the service method
+     */
+    private record Key(okhttp3.Call.Factory client, String url, Headers headers) {
+
+        static Key of(okhttp3.Call.Factory client, Request request) {
+            return new Key(client, request.url().toString(), request.headers());
+        }
+    }
+
+    /**
+     * A decoded response and the time it was stored at.
+     */
+    private record Entry(Response<?> response, long storedAt) { }
+
+    /**
+     * Hit, miss and eviction statistics of the in-memory tier.
+     *
+     * @param hits        number of calls served from memory
+     * @param misses      number of calls that went to the network
+     * @param evictions   number of entries evicted because the cache was full
+     * @param expirations number of entries removed because their time to live elapsed
+     * @param size        number of entries currently cached
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+
+        /**
+         * @return the share of calls served from memory, between 0 and 1
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * Statistics of a disk cache.
+     *
+     * @param directory    the cache directory
+     * @param size         the current size of the cache in bytes, -1 if it could not be determined
+     * @param maxSize      the maximum size of the cache in bytes
+     * @param requestCount number of requests that went through the cache
+     * @param networkCount number of requests that went to the network, including conditional requests
+     * @param hitCount     number of requests served by the cache, including revalidated ones
+     */
+    public record DiskStats(String directory, long size, long maxSize, int requestCount, int networkCount, int hitCount) { }
+
+    /**
+     * Wraps the calls of GET service methods in {@link CachingCall}s; every other method is left to the next factory,
+     * and so are methods that return a raw {@link ResponseBody} or are annotated with {@link Streaming}, since their
+     * bodies can only be read once.
+     */
+    private final class CachingCallAdapterFactory extends CallAdapter.Factory {
+
+        @Override
+        public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+            if (getRawType(returnType) != Call.class) return null;
+            boolean get = false;
+            for (Annotation annotation : annotations)
+                if (annotation instanceof GET) get = true;
+            if (!get) return null;
+            if (!(returnType instanceof ParameterizedType parameterized)) return null;
+            if (getRawType(getParameterUpperBound(0, parameterized)) == ResponseBody.class) return null;
+            for (Annotation annotation : annotations)
+                if (annotation instanceof Streaming) return null;
+
+            @SuppressWarnings("unchecked")
+            CallAdapter<Object, Object> delegate =
+                    (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+            return new CallAdapter<Object, Object>() {
+                @Override
+                public Type responseType() {
+                    return delegate.responseType();
+                }
+
+                @Override
+                public Object adapt(Call<Object> call) {
+                    return delegate.adapt(new CachingCall<>(call, retrofit.callFactory()));
+                }
+            };
+        }
+    }
+
+    /**
+     * A call that is served from the cache when possible, and stores its successful response otherwise.
+     */
+    private final class CachingCall<T> implements Call<T> {
+
+        private final Call<T> delegate;
+        private final okhttp3.Call.Factory client;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+
+        CachingCall(Call<T> delegate, okhttp3.Call.Factory client) {
+            this.delegate = delegate;
+            this.client = client;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Response<T> execute() throws IOException {
+            markExecuted();
+            Key key = Key.of(client, delegate.request());
+            Response<T> cached = (Response<T>) ResponseCache.this.get(key);
+            if (cached != null) return cached;
+            }
+            Response<T> response = delegate.execute();
+            put(key, response);
+            return response;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void enqueue(Callback<T> callback) {
+            markExecuted();
+            Key key = Key.of(client, delegate.request());
+            Response<T> cached = (Response<T>) ResponseCache.this.get(key);
+            if (cached != null) {
+                callback.onResponse(this, cached);
+                return;
+            }
+            delegate.enqueue(new Callback<>() {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    put(key, response);
+                    callback.onResponse(CachingCall.this, response);
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable throwable) {
+                    callback.onFailure(CachingCall.this, throwable);
+                }
+            });
+        }
+
+        /**
+         * Fails like a Retrofit call that is executed twice, whether the first execution was served from the cache.
+         */
+        private synchronized void markExecuted() {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed || delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || delegate.isCanceled();
+        }
+
+        @Override
+        @SuppressWarnings("MethodDoesntCallSuperMethod")
+        public Call<T> clone() {
+            return new CachingCall<>(delegate.clone(), client);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
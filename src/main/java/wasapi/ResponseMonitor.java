@@ -0,0 +1,152 @@
+package wasapi;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Polls a call until its response satisfies a condition, without holding a thread while it waits.
+ * <p>
+ * Every attempt enqueues a clone of the call; the next attempt is scheduled on a single shared scheduler thread
+ * once the response is in, after a delay given by the {@link MonitorPolicy} or by the {@code Retry-After} header of
+ * the response. Any number of monitors can therefore run at once: between attempts, a monitor is just a scheduled
+ * task. Calls that fail without a response count as attempts that did not satisfy the condition. The timeout is a
+ * task of its own, so the monitor fails on time even while an attempt is still in flight.
+ * </p>
+ *
+ * @param <SuccessModel> the type of the successful response body
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class ResponseMonitor<SuccessModel> {
+
+    /**
+     * Schedules the attempts of every monitor.
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wasapi-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Call<SuccessModel> call;
+    private final String serviceName;
+    private final Predicate<Response<SuccessModel>> condition;
+    private final MonitorPolicy policy;
+    private final long deadline;
+    private final String timeoutMessage;
+    private final CompletableFuture<Response<SuccessModel>> result = new CompletableFuture<>();
+
+    private volatile int attempts;
+    private volatile Future<?> pending;
+    private volatile Throwable lastFailure;
+
+    private ResponseMonitor(
+            Call<SuccessModel> call,
+            String serviceName,
+            Predicate<Response<SuccessModel>> condition,
+            long timeoutMillis,
+            MonitorPolicy policy,
+            String timeoutMessage) {
+        this.call = call;
+        this.serviceName = serviceName;
+        this.condition = condition;
+        this.policy = policy;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.timeoutMessage = timeoutMessage;
+    }
+
+    /**
+     * Starts polling the given call.
+     *
+     * @param call           the call to poll, cloned for every attempt
+     * @param serviceName    the name the attempts are logged under
+     * @param condition      the condition the response has to satisfy
+     * @param timeoutMillis  how long to poll for
+     * @param policy         the {@link MonitorPolicy} the attempts are scheduled by
+     * @param timeoutMessage the message of the {@link AssertionError} the future fails with when the time is up
+     * @param <SuccessModel> the type of the successful response body
+     * @return a future of the first response that satisfies the condition; cancelling it stops the monitor
+     */
+    static <SuccessModel> CompletableFuture<Response<SuccessModel>> start(
+            Call<SuccessModel> call,
+            String serviceName,
+            Predicate<Response<SuccessModel>> condition,
+            long timeoutMillis,
+            MonitorPolicy policy,
+            String timeoutMessage) {
+        ResponseMonitor<SuccessModel> monitor =
+                new ResponseMonitor<>(call, serviceName, condition, timeoutMillis, policy, timeoutMessage);
+        Future<?> deadline = scheduler.schedule(monitor::timeout, timeoutMillis, TimeUnit.MILLISECONDS);
+        monitor.result.whenComplete((response, throwable) -> {
+            deadline.cancel(false);
+            Future<?> pending = monitor.pending;
+            if (pending != null) pending.cancel(true);
+        });
+        monitor.pending = scheduler.submit(monitor::attempt);
+        return monitor.result;
+    }
+
+    /**
+     * Enqueues the next attempt.
+     */
+    private void attempt() {
+        if (result.isDone()) return;
+        attempts++;
+        try {
+            CompletableFuture<Response<SuccessModel>> attempt =
+                    Caller.getResponseAsync(serviceName, call.clone(), false, false);
+            pending = attempt;
+            attempt.whenComplete(this::evaluate);
+        }
+        catch (RuntimeException exception) {
+            evaluate(null, exception);
+        }
+    }
+
+    /**
+     * Fails the monitor with the timeout message, unless it is already done.
+     */
+    private void timeout() {
+        AssertionError timeout = new AssertionError(timeoutMessage + " (" + attempts + " attempts)");
+        Throwable lastFailure = this.lastFailure;
+        if (lastFailure != null) timeout.initCause(lastFailure);
+        result.completeExceptionally(timeout);
+    }
+
+    /**
+     * Completes the monitor if the response satisfies the condition, schedules the next attempt otherwise.
+     */
+    private void evaluate(Response<SuccessModel> response, Throwable throwable) {
+        if (result.isDone()) return;
+        if (throwable == null) {
+            try {
+                if (condition.test(response)) {
+                    result.complete(response);
+                    return;
+                }
+            }
+            catch (RuntimeException exception) {
+                result.completeExceptionally(exception);
+                return;
+            }
+        }
+        else lastFailure = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            timeout();
+            return;
+        }
+        long delay = Math.max(policy.delayMillis(attempts), response == null ? 0 : Backoff.retryAfterMillis(response.headers()));
+        pending = scheduler.schedule(this::attempt, Math.min(delay, remainingMillis), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,99 @@
+package wasapi;
+
+import context.ContextStore;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token bucket that limits retries to a fraction of the requests, so that retries cannot multiply the load on a
+ * backend that is already failing.
+ * <p>
+ * Every request deposits {@code retryRatio} tokens, up to {@code maxTokens}, and every retry withdraws one token.
+ * While the backend is healthy the bucket stays full; during an outage, at most about one retry per
+ * {@code 1 / retryRatio} requests is granted once the initial {@code maxTokens} are spent.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class RetryBudget {
+
+    private static final long MILLI_TOKENS = 1_000;
+
+    private final long capacity;
+    private final long deposit;
+    private final AtomicLong balance;
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxTokens  the maximum number of retries that can be granted in a row
+     * @param retryRatio the number of retries each request earns, e.g. 0.1 for one retry per ten requests
+     */
+    public RetryBudget(int maxTokens, double retryRatio) {
+        this.capacity = maxTokens * MILLI_TOKENS;
+        this.deposit = Math.round(retryRatio * MILLI_TOKENS);
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Creates a budget from the {@code retry-budget-tokens} (default: 10) and {@code retry-budget-ratio}
+     * (default: 0.1) properties.
+     *
+     * @return a new {@link RetryBudget}
+     */
+    public static RetryBudget fromContext() {
+        return new RetryBudget(
+                Integer.parseInt(ContextStore.get("retry-budget-tokens", "10")),
+                Double.parseDouble(ContextStore.get("retry-budget-ratio", "0.1"))
+        );
+    }
+
+    /**
+     * Deposits the share of a request.
+     */
+    void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) return;
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * Withdraws a token for a retry, if one is available.
+     *
+     * @return true if the retry is granted
+     */
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < MILLI_TOKENS) {
+                rejected.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - MILLI_TOKENS));
+        granted.increment();
+        return true;
+    }
+
+    /**
+     * Returns the current state of the budget.
+     *
+     * @return the {@link Stats}
+     */
+    public Stats stats() {
+        return new Stats((double) balance.get() / MILLI_TOKENS, granted.sum(), rejected.sum());
+    }
+
+    /**
+     * The state of a retry budget.
+     *
+     * @param availableTokens the number of retries that can currently be granted
+     * @param granted         the number of retries granted
+     * @param rejected        the number of retries rejected because the budget was exhausted
+     */
+    public record Stats(double availableTokens, long granted, long rejected) { }
+}
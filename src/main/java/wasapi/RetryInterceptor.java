@@ -0,0 +1,114 @@
+package wasapi;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import wasapi.exceptions.CircuitBreakerOpenException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * An application interceptor that retries requests by a client's {@link RetryPolicy}.
+ * <p>
+ * It is the first interceptor of the client, so every attempt passes through the others again, e.g. to be
+ * authorized with a fresh token. The response of a failed attempt is closed before the next attempt is made.
+ * While a call made through {@link Caller} is retried by a per-call policy, the client's policy stands down for that
+ * call and its hedged copies, so that retries are never multiplied. Requests that fail fast because a circuit breaker is open are not retried.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class RetryInterceptor implements Interceptor {
+
+    /**
+     * The requests of calls that are retried by a per-call policy. Requests compare by identity, and are held weakly,
+     * so a call that is never released does not leak.
+     */
+    private static final Set<Request> suppressed = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final RetryPolicy policy;
+
+    /**
+     * @param policy the policy requests are retried by
+     */
+    RetryInterceptor(RetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Disables the retries of the client of the given call, for this call only. The suppression goes with the call,
+     * not with the calling thread, so it also holds when the call is enqueued, e.g. as a hedged copy.
+     *
+     * @param call a call that is retried by a per-call policy
+     */
+    static void suppress(retrofit2.Call<?> call) {
+        try {
+            suppressed.add(call.request());
+        }
+        catch (RuntimeException ignored) {
+            // The request could not be created; executing the call reports the failure
+        }
+    }
+
+    /**
+     * Re-enables the retries of the client of the given call.
+     *
+     * @param call a call passed to {@link #suppress(retrofit2.Call)}
+     */
+    static void release(retrofit2.Call<?> call) {
+        try {
+            suppressed.remove(call.request());
+        }
+        catch (RuntimeException ignored) {}
+    }
+
+    /**
+     * Suppresses the retries of a copy of a call if they are suppressed for the call.
+     *
+     * @param call the original call
+     * @param copy a clone of the call
+     */
+    static void inherit(retrofit2.Call<?> call, retrofit2.Call<?> copy) {
+        boolean inherited;
+        try {
+            inherited = suppressed.contains(call.request());
+        }
+        catch (RuntimeException exception) {
+            inherited = false;
+        }
+        if (inherited) suppress(copy);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (suppressed.contains(chain.call().request())) return chain.proceed(request);
+
+        policy.onCall();
+        for (int retry = 1; ; retry++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            }
+            catch (CircuitBreakerOpenException exception) {
+                throw exception;
+            }
+            catch (IOException exception) {
+                long delay = policy.retryDelay(retry, request, -1, null, chain.call().isCanceled());
+                if (delay < 0) throw exception;
+                RetryPolicy.sleep(delay, chain.call()::isCanceled);
+                continue;
+            }
+            if (response.isSuccessful()) return response;
+
+            long delay = policy.retryDelay(retry, request, response.code(), response.headers(), chain.call().isCanceled());
+            if (delay < 0) return response;
+            response.close();
+            RetryPolicy.sleep(delay, chain.call()::isCanceled);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.Headers;
+import okhttp3.Request;
+import utils.Printer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * When and how often failed calls are retried.
+ * <p>
+ * A call is retried when it fails without a response, or when its response code is one of
+ * {@code retryableCodes}, at most {@code maxRetries} times. Only idempotent methods (GET, HEAD, PUT, DELETE,
+ * OPTIONS, TRACE) are retried unless {@code retryNonIdempotent} is set. Retries are delayed with exponential
+ * backoff and jitter; a {@code Retry-After} header takes precedence over a shorter delay, and a call that is asked
+ * to wait longer than {@code maxDelay} is not retried. Every retry has to be granted by the {@link RetryBudget},
+ * if there is one.
+ * </p>
+ * <p>
+ * Retries are counted in {@link WasapiMetrics}, with their delays.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     MyApi api = new WasapiClient.Builder()
+ *         .retryPolicy(RetryPolicy.getDefault().withMaxRetries(5))
+ *         .build(MyApi.class);
+ *
+ *     perform(api.createOrder(order), true, false, RetryPolicy.getDefault().withNonIdempotentRetries(true));
+ * </pre>
+ *
+ * @param maxRetries         the maximum number of retries per call
+ * @param initialDelay       the delay before the first retry
+ * @param maxDelay           the maximum delay before a retry
+ * @param multiplier         the factor the delay grows by after every retry
+ * @param jitter             the maximum random deviation of a delay, as a fraction of the delay (0 to 1)
+ * @param retryableCodes     the response codes that are retried
+ * @param retryNonIdempotent whether non-idempotent methods (POST, PATCH) are retried as well
+ * @param budget             the budget retries are withdrawn from, or null for no limit
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public record RetryPolicy(
+        int maxRetries,
+        Duration initialDelay,
+        Duration maxDelay,
+        double multiplier,
+        double jitter,
+        Set<Integer> retryableCodes,
+        boolean retryNonIdempotent,
+        RetryBudget budget
+) {
+
+    private static final Printer log = new Printer(RetryPolicy.class);
+
+    private static final Set<String> idempotentMethods = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+
+    private static volatile RetryPolicy defaultPolicy;
+
+    /**
+     * Returns the policy clients are built with when {@code retry-enabled} is true, created from the context on
+     * first use. Clients that use it share one budget.
+     *
+     * @return the default {@link RetryPolicy}
+     */
+    public static RetryPolicy getDefault() {
+        RetryPolicy policy = defaultPolicy;
+        if (policy == null) {
+            synchronized (RetryPolicy.class) {
+                if (defaultPolicy == null) defaultPolicy = fromContext();
+                policy = defaultPolicy;
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * Creates a policy from the {@code retry-max-retries} (default: 3), {@code retry-initial-delay} (default: 200ms),
+     * {@code retry-max-delay} (default: 5000ms), {@code retry-backoff-multiplier} (default: 2), {@code retry-jitter}
+     * (default: 0.2), {@code retry-status-codes} (default: 429,502,503,504) and {@code retry-non-idempotent}
+     * (default: false) properties, with a new budget (see {@link RetryBudget#fromContext()}).
+     *
+     * @return a new {@link RetryPolicy}
+     */
+    public static RetryPolicy fromContext() {
+        return new RetryPolicy(
+                Integer.parseInt(ContextStore.get("retry-max-retries", "3")),
+                Duration.ofMillis(Long.parseLong(ContextStore.get("retry-initial-delay", "200"))),
+                Duration.ofMillis(Long.parseLong(ContextStore.get("retry-max-delay", "5000"))),
+                Double.parseDouble(ContextStore.get("retry-backoff-multiplier", "2")),
+                Double.parseDouble(ContextStore.get("retry-jitter", "0.2")),
+                Arrays.stream(ContextStore.get("retry-status-codes", "429,502,503,504").split(","))
+                        .map(String::trim)
+                        .filter(code -> !code.isEmpty())
+                        .map(Integer::valueOf)
+                        .collect(Collectors.toUnmodifiableSet()),
+                Boolean.parseBoolean(ContextStore.get("retry-non-idempotent", "false")),
+                RetryBudget.fromContext()
+        );
+    }
+
+    /**
+     * @param maxRetries the maximum number of retries per call
+     * @return a copy of this policy with the given maximum number of retries
+     */
+    public RetryPolicy withMaxRetries(int maxRetries) {
+        return new RetryPolicy(maxRetries, initialDelay, maxDelay, multiplier, jitter, retryableCodes, retryNonIdempotent, budget);
+    }
+
+    /**
+     * @param retryNonIdempotent whether non-idempotent methods are retried as well
+     * @return a copy of this policy that does or does not retry non-idempotent methods
+     */
+    public RetryPolicy withNonIdempotentRetries(boolean retryNonIdempotent) {
+        return new RetryPolicy(maxRetries, initialDelay, maxDelay, multiplier, jitter, retryableCodes, retryNonIdempotent, budget);
+    }
+
+    /**
+     * @param budget the budget retries are withdrawn from, or null for no limit
+     * @return a copy of this policy with the given budget
+     */
+    public RetryPolicy withBudget(RetryBudget budget) {
+        return new RetryPolicy(maxRetries, initialDelay, maxDelay, multiplier, jitter, retryableCodes, retryNonIdempotent, budget);
+    }
+
+    /**
+     * Records a new call, which earns the budget its share of retries.
+     */
+    void onCall() {
+        if (budget != null) budget.deposit();
+    }
+
+    /**
+     * Decides whether the given attempt is retried.
+     *
+     * @param retry        the number of the retry that would follow, starting at 1
+     * @param request      the request of the call
+     * @param responseCode the response code of the attempt, or -1 if it failed without a response
+     * @param headers      the response headers of the attempt, or null if it failed without a response
+     * @param canceled     whether the call was canceled
+     * @return the delay before the retry in milliseconds, or -1 if the attempt is not retried
+     */
+    long retryDelay(int retry, Request request, int responseCode, Headers headers, boolean canceled) {
+        if (canceled || retry > maxRetries) return -1;
+        if (request.body() != null && request.body().isOneShot()) return -1;
+        if (!retryNonIdempotent && !isIdempotent(request)) return -1;
+        if (responseCode >= 0 && !retryableCodes.contains(responseCode)) return -1;
+
+        long delay = Backoff.delayMillis(initialDelay, maxDelay, multiplier, jitter, retry);
+        if (headers != null) {
+            long retryAfter = Backoff.retryAfterMillis(headers);
+            if (retryAfter > maxDelay.toMillis()) return -1;
+            delay = Math.max(delay, retryAfter);
+        }
+        if (budget != null && !budget.tryWithdraw()) {
+            log.warning("Retry budget exhausted, not retrying " + request.method() + " " + request.url());
+            return -1;
+        }
+
+        WasapiMetrics.recordRetry(request, delay);
+        if (Caller.keepsLogs())
+            log.warning("Retrying " + request.method() + " " + request.url() + " in " + delay + "ms (retry " + retry +
+                    " of " + maxRetries + ", " + (responseCode < 0 ? "no response" : "response code " + responseCode) + ")");
+        return delay;
+    }
+
+    /**
+     * Returns whether the given request can be sent more than once without changing its outcome: whether its
+     * method is idempotent and its body, if any, can be written again.
+     *
+     * @param request the request
+     * @return true if the request is idempotent
+     */
+    static boolean isIdempotent(Request request) {
+        return idempotentMethods.contains(request.method()) && (request.body() == null || !request.body().isOneShot());
+    }
+
+    /**
+     * Waits for the given delay.
+     *
+     * @param delayMillis the delay in milliseconds
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    static void sleep(long delayMillis) throws IOException {
+        sleep(delayMillis, () -> false);
+    }
+
+    /**
+     * Waits for the given delay, in slices of at most {@code 50ms}, and stops waiting as soon as the call is canceled.
+     *
+     * @param delayMillis the delay in milliseconds
+     * @param canceled    whether the call that is waiting to be retried was canceled
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     * @throws IOException            if the call is canceled while waiting
+     */
+    static void sleep(long delayMillis, BooleanSupplier canceled) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        try {
+            for (long remaining = delayMillis; remaining > 0; remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) {
+                if (canceled.getAsBoolean()) throw new IOException("Canceled while waiting to retry");
+                Thread.sleep(Math.min(remaining, 50));
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+        if (canceled.getAsBoolean()) throw new IOException("Canceled while waiting to retry");
+    }
+}
@@ -0,0 +1,220 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * A process-wide cache of the objects {@link WasapiClient} generates for each service.
+ * <p>
+ * Building a {@link Retrofit} instance registers every converter and call adapter factory again, and every new
+ * service proxy starts with an empty per-method parse cache, so annotation parsing and reflection are paid again
+ * on every {@link WasapiClient.Builder#build(Class)}. This cache keeps derived {@link OkHttpClient} instances per
+ * client profile, {@link Retrofit} instances per {@link RetrofitKey} (base URL, client identity and converter set)
+ * and service proxies per service class and {@link Retrofit} instance.
+ * </p>
+ * <p>
+ * Each tier is bounded by the {@code service-cache-size} property (default: 256 entries) and evicts its least
+ * recently used entry once full. Entries are built outside the lock of their tier: the first caller of a key builds
+ * it, and concurrent callers of the same key wait for that one build, while callers of other keys are not blocked.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@SuppressWarnings("unused")
+public final class ServiceCache {
+
+    /**
+     * Maximum number of entries kept in each cache tier.
+     */
+    private static final int maxEntries = Integer.parseInt(ContextStore.get("service-cache-size", "256"));
+
+    /**
+     * Derived clients, keyed by the client profile they were built for.
+     */
+    private static final Map<Object, CompletableFuture<OkHttpClient>> clients = boundedMap(maxEntries);
+
+    /**
+     * Retrofit instances, keyed by base URL, client identity and converter set.
+     */
+    private static final Map<RetrofitKey, CompletableFuture<Retrofit>> retrofits = boundedMap(maxEntries);
+
+    /**
+     * Service proxies, keyed by service class and the Retrofit instance that created them.
+     */
+    private static final Map<ServiceKey, CompletableFuture<Object>> services = boundedMap(maxEntries);
+
+    private ServiceCache() {}
+
+    /**
+     * Returns the client cached for the given profile, creating it with the given factory on first use.
+     *
+     * @param profile an immutable value describing everything the derived client is configured with
+     * @param factory creates the client if it is not cached yet
+     * @return the cached {@link OkHttpClient}
+     */
+    static OkHttpClient getClient(Object profile, Supplier<OkHttpClient> factory) {
+        return computeIfAbsent(clients, profile, factory);
+    }
+
+    /**
+     * Returns the Retrofit instance cached for the given key, creating it with the given factory on first use.
+     *
+     * @param key     the base URL, client and converter set of the Retrofit instance
+     * @param factory creates the Retrofit instance if it is not cached yet
+     * @return the cached {@link Retrofit} instance
+     */
+    static Retrofit getRetrofit(RetrofitKey key, Supplier<Retrofit> factory) {
+        return computeIfAbsent(retrofits, key, factory);
+    }
+
+    /**
+     * Returns the service proxy cached for the given service class and Retrofit instance, creating it on first use.
+     *
+     * @param serviceClass the service interface
+     * @param retrofit     the Retrofit instance the service is created with
+     * @return the cached service proxy
+     */
+    @SuppressWarnings("unchecked")
+    static <S> S getService(Class<S> serviceClass, Retrofit retrofit) {
+        return (S) computeIfAbsent(services, new ServiceKey(serviceClass, retrofit), () -> retrofit.create(serviceClass));
+    }
+
+    /**
+     * Evicts every cached proxy of the given service class.
+     *
+     * @param serviceClass the service interface to evict
+     */
+    public static void evict(Class<?> serviceClass) {
+        synchronized (services) {
+            services.keySet().removeIf(key -> key.serviceClass().equals(serviceClass));
+        }
+    }
+
+    /**
+     * Evicts every cached Retrofit instance and service proxy created for the given base URL. URLs are compared in
+     * their canonical form, so {@code HTTP://Example.com:80/api/} evicts the services of {@code http://example.com/api/}.
+     *
+     * @param baseUrl the base URL to evict
+     * @throws IllegalArgumentException if the base URL is not a valid HTTP or HTTPS URL
+     */
+    public static void evict(String baseUrl) {
+        String canonical = HttpUrl.get(baseUrl).toString();
+        synchronized (retrofits) {
+            retrofits.keySet().removeIf(key -> canonical.equals(canonical(key.baseUrl())));
+        }
+        synchronized (services) {
+            services.keySet().removeIf(key -> canonical.equals(key.retrofit().baseUrl().toString()));
+        }
+    }
+
+    /**
+     * Returns the canonical form of the given URL, or null if it is not a valid HTTP or HTTPS URL.
+     */
+    private static String canonical(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        return parsed == null ? null : parsed.toString();
+    }
+
+    /**
+     * Clears every cache tier. Previously generated services keep working.
+     */
+    public static void clear() {
+        services.clear();
+        retrofits.clear();
+        clients.clear();
+    }
+
+    /**
+     * Clears every cache tier and evicts the connections of the shared clients in {@link HttpClientRegistry}.
+     */
+    public static void close() {
+        clear();
+        HttpClientRegistry.evictAll();
+    }
+
+    /**
+     * Returns the number of cached service proxies.
+     *
+     * @return the number of cached service proxies
+     */
+    public static int size() {
+        return services.size();
+    }
+
+    /**
+     * Returns the value of the given key, building it with the given factory on first use. The factory runs outside
+     * the lock of the map; callers of a key that is being built wait for its build, and a failed build is removed so
+     * that the next caller builds the value again.
+     */
+    private static <K, V> V computeIfAbsent(Map<K, CompletableFuture<V>> map, K key, Supplier<? extends V> factory) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> cached = map.putIfAbsent(key, created);
+        if (cached != null) {
+            try {
+                return cached.join();
+            }
+            catch (CompletionException exception) {
+                throw exception.getCause() instanceof RuntimeException cause ? cause : exception;
+            }
+        }
+        try {
+            V value = factory.get();
+            created.complete(value);
+            return value;
+        }
+        catch (RuntimeException | Error exception) {
+            map.remove(key, created);
+            created.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    /**
+     * Creates a synchronized, access ordered map that evicts its eldest entry once it holds more than the given
+     * number of entries.
+     */
+    private static <K, V> Map<K, V> boundedMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * The key a Retrofit instance is cached by. The client and the response cache are compared by identity.
+     *
+     * @param baseUrl         the base URL of the service
+     * @param client          the client the Retrofit instance is built with
+     * @param converters      the registered converters, in order
+     * @param validateEagerly whether service methods are parsed when the service is created
+     * @param responseCache   the in-memory response cache GET calls are served from, or null
+     */
+    record RetrofitKey(
+            String baseUrl,
+            OkHttpClient client,
+            List<ConverterType> converters,
+            boolean validateEagerly,
+            ResponseCache responseCache
+    ) { }
+
+    /**
+     * The key a service proxy is cached by. The Retrofit instance is compared by identity.
+     *
+     * @param serviceClass the service interface
+     * @param retrofit     the Retrofit instance the proxy was created with
+     */
+    private record ServiceKey(Class<?> serviceClass, Retrofit retrofit) { }
+}
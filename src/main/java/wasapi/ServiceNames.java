@@ -0,0 +1,99 @@
+package wasapi;
+
+import okhttp3.Request;
+import retrofit2.Call;
+import retrofit2.Invocation;
+import wasapi.annotations.ServiceName;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the names calls are logged and reported under.
+ * <p>
+ * Retrofit tags every request it creates with an {@link Invocation}, so the name is derived from the service method
+ * ({@code Interface.method}, or the value of its {@link ServiceName} annotation) and cached per {@link Method}; no
+ * stack is captured. Only calls without an invocation tag fall back to the stack, and only while logging is enabled:
+ * the name is then the first method outside of wasapi that called into it, as before.
+ * Otherwise, the request line is used.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class ServiceNames {
+
+    /**
+     * Service names, cached per service method.
+     */
+    private static final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * The classes whose frames are skipped when a name is resolved from the stack.
+     */
+    private static final Set<String> internalClasses = Set.of(
+            Caller.class.getName(),
+            WasapiUtilities.class.getName(),
+            BatchExecutor.class.getName(),
+            ServiceNames.class.getName()
+    );
+
+    private static final StackWalker walker = StackWalker.getInstance();
+
+    private ServiceNames() {}
+
+    /**
+     * Returns the name of the given call.
+     *
+     * @param call the call
+     * @return the name of the service method the call was created from
+     */
+    static String of(Call<?> call) {
+        Request request = call.request();
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) return names.computeIfAbsent(invocation.method(), ServiceNames::nameOf);
+        if (Caller.keepsLogs()) {
+            Optional<String> caller = walker.walk(frames -> frames
+                    .filter(frame -> !isInternal(frame.getClassName()))
+                    .findFirst()
+                    .map(StackWalker.StackFrame::getMethodName)
+            );
+            if (caller.isPresent()) return caller.get();
+        }
+        return request.method() + " " + request.url().encodedPath();
+    }
+
+    /**
+     * Returns the name the metrics of the given request are kept under: the name of the service method the request
+     * was created from, or the host for requests that were not created by Retrofit.
+     * This never walks the stack and never allocates once the name of the service method is cached.
+     *
+     * @param request the request
+     * @return the service name of the request
+     */
+    static String metricName(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) return names.computeIfAbsent(invocation.method(), ServiceNames::nameOf);
+        return request.url().host();
+    }
+
+    /**
+     * Derives the name of the given service method.
+     */
+    private static String nameOf(Method method) {
+        ServiceName serviceName = method.getAnnotation(ServiceName.class);
+        if (serviceName != null) return serviceName.value();
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * Whether the given class, or the class it is nested in, is one of wasapi's calling classes.
+     */
+    private static boolean isInternal(String className) {
+        int nested = className.indexOf('$');
+        return internalClasses.contains(nested < 0 ? className : className.substring(0, nested));
+    }
+}
@@ -0,0 +1,78 @@
+package wasapi;
+
+import wasapi.exceptions.WasapiException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors wasapi runs blocking work and OkHttp dispatching on.
+ * <p>
+ * Wasapi is compiled for JDK 17, so virtual threads (JDK 21+) are looked up reflectively. When they are not
+ * available, the platform thread executors are used instead.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+final class VirtualThreads {
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}, or null if the running JDK does not support virtual threads.
+     */
+    private static final Method newVirtualThreadPerTaskExecutor = lookup();
+
+    private VirtualThreads() {}
+
+    /**
+     * Returns whether the running JDK supports virtual threads.
+     *
+     * @return true if virtual threads are available
+     */
+    static boolean isSupported() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return a virtual-thread-per-task {@link ExecutorService}
+     * @throws WasapiException if the running JDK does not support virtual threads
+     */
+    static ExecutorService newExecutor() {
+        if (!isSupported())
+            throw new WasapiException("Virtual threads require JDK 21 or newer (running " + Runtime.version() + ")");
+        try {
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new WasapiException("Could not create a virtual thread executor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a cached executor of daemon platform threads, named after the given prefix.
+     *
+     * @param name the thread name prefix
+     * @return a cached platform thread {@link ExecutorService}
+     */
+    static ExecutorService newPlatformExecutor(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
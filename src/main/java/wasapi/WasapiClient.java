@@ -5,27 +5,17 @@ import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.logging.HttpLoggingInterceptor;
-import okio.Buffer;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
-import retrofit2.converter.gson.GsonConverterFactory;
-import retrofit2.converter.jackson.JacksonConverterFactory;
-import retrofit2.converter.moshi.MoshiConverterFactory;
-import retrofit2.converter.protobuf.ProtoConverterFactory;
-import retrofit2.converter.scalars.ScalarsConverterFactory;
-import retrofit2.converter.wire.WireConverterFactory;
-import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Proxy;
-import java.util.Objects;
-import java.util.concurrent.TimeUnit;
+import wasapi.annotations.Converters;
+import wasapi.auth.TokenAuthenticator;
+import wasapi.auth.TokenProvider;
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
 import utils.Printer;
 import utils.reflection.ReflectionUtilities;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static utils.mapping.MappingUtilities.Json.getJsonString;
-import static utils.mapping.MappingUtilities.Json.mapper;
-
 /**
  * A utility class for generating Wasapi (Retrofit) service instances with flexible HTTP client configurations.
  * <p>
@@ -42,7 +32,7 @@ import static utils.mapping.MappingUtilities.Json.mapper;
  * <h2>Key Features:</h2>
  * <ul>
  *     <li>Automatic detection of {@code BASE_URL} from service classes using reflection.</li>
- *     <li>Support for multiple converter factories (Gson, Jackson, Moshi, Protobuf, etc.).</li>
+ *     <li>Support for multiple converter factories (Gson, Jackson, Moshi, Protobuf, etc.), selected per service and loaded lazily.</li>
  *     <li>Customizable logging of headers and request bodies.</li>
  *     <li>Built-in support for proxy and redirect handling.</li>
  *     <li>Convenience methods for service generation.</li>
@@ -91,6 +81,27 @@ public class WasapiClient {
      */
     boolean logRequestBody = Boolean.parseBoolean(ContextStore.get("log-request-body", "false"));
 
+    /**
+     * Maximum number of request body bytes logged per request.
+     */
+    int requestBodyLogLimit = Integer.parseInt(ContextStore.get("request-body-log-limit", "16384"));
+
+    /**
+     * Log the request body of one in every this many requests.
+     */
+    int requestBodyLogSampleRate = Integer.parseInt(ContextStore.get("request-body-log-sample-rate", "1"));
+
+    /**
+     * If not negative, only request bodies of calls that take at least this many milliseconds or fail are logged.
+     */
+    long requestBodyLogSlowThreshold = Long.parseLong(ContextStore.get("request-body-log-slow-threshold", "-1"));
+
+    /**
+     * Maximum number of raw response body bytes captured for logging per response; 0 (the default) disables the
+     * capture, and logged bodies are serialized from the decoded model instead.
+     */
+    int responseBodyLogLimit = Integer.parseInt(ContextStore.get("response-body-log-limit", "0"));
+
     /**
      * Connection timeout in seconds.
      */
@@ -126,6 +137,107 @@ public class WasapiClient {
      */
     boolean useProxy = proxyHost != null;
 
+    /**
+     * Provides the tokens requests are authorized with. (default: null)
+     */
+    TokenProvider tokenProvider;
+
+    /**
+     * Refresh tokens this many seconds before they expire.
+     */
+    int tokenRefreshAhead = Integer.parseInt(ContextStore.get("token-refresh-ahead", "30"));
+
+    /**
+     * Run the OkHttp dispatcher on virtual threads? (requires JDK 21+)
+     */
+    boolean virtualThreads = Boolean.parseBoolean(ContextStore.get("virtual-threads", "false"));
+
+    /**
+     * Record phase timings and byte counts in {@link WasapiMetrics}?
+     */
+    boolean metrics = Boolean.parseBoolean(ContextStore.get("metrics-enabled", "true"));
+
+    /**
+     * The HTTP version connections speak. (default: HTTP/2 over TLS, HTTP/1.1 otherwise)
+     */
+    HttpProtocol protocol = HttpProtocol.fromContext();
+
+    /**
+     * Interval of HTTP/2 pings in milliseconds, or 0 to not send them.
+     */
+    long pingInterval = Long.parseLong(ContextStore.get("ping-interval", "0"));
+
+    /**
+     * Maximum number of asynchronous calls in flight at once.
+     */
+    int maxRequests = Integer.parseInt(ContextStore.get("max-requests", "64"));
+
+    /**
+     * Maximum number of asynchronous calls in flight at once per host.
+     */
+    int maxRequestsPerHost = Integer.parseInt(ContextStore.get("max-requests-per-host", "5"));
+
+    /**
+     * Directory of the disk-backed HTTP cache, or null to disable it.
+     */
+    String httpCacheDirectory = ContextStore.get("http-cache-directory", null);
+
+    /**
+     * Maximum size of the disk-backed HTTP cache in bytes.
+     */
+    long httpCacheSize = Long.parseLong(ContextStore.get("http-cache-size", "10485760"));
+
+    /**
+     * In-memory cache of decoded GET responses. (default: null)
+     */
+    ResponseCache responseCache;
+
+    /**
+     * Coalesce identical GET requests that are in flight at the same time?
+     */
+    boolean coalesceRequests = Boolean.parseBoolean(ContextStore.get("coalesce-requests", "false"));
+
+    /**
+     * Maximum size of a response body shared by coalesced requests.
+     */
+    long coalesceMaxBodyBytes = Long.parseLong(ContextStore.get("coalesce-max-body-bytes", "1048576"));
+
+    /**
+     * Policy failed requests are retried by, or null to not retry. (default: {@link RetryPolicy#getDefault()} if
+     * {@code retry-enabled} is true)
+     */
+    RetryPolicy retryPolicy = Boolean.parseBoolean(ContextStore.get("retry-enabled", "false")) ? RetryPolicy.getDefault() : null;
+
+    /**
+     * Configuration of the per-host circuit breakers, or null to not break circuits. (default:
+     * {@link CircuitBreaker.Config#fromContext()} if {@code circuit-breaker-enabled} is true)
+     */
+    CircuitBreaker.Config circuitBreaker = Boolean.parseBoolean(ContextStore.get("circuit-breaker-enabled", "false")) ?
+            CircuitBreaker.Config.fromContext() : null;
+
+    /**
+     * Configuration of the per-host adaptive concurrency limiters, or null to not limit concurrency. (default:
+     * {@link ConcurrencyLimiter.Config#fromContext()} if {@code concurrency-limit-enabled} is true)
+     */
+    ConcurrencyLimiter.Config concurrencyLimit = Boolean.parseBoolean(ContextStore.get("concurrency-limit-enabled", "false")) ?
+            ConcurrencyLimiter.Config.fromContext() : null;
+
+    /**
+     * Cache generated Retrofit instances and service proxies?
+     */
+    boolean cacheServices = Boolean.parseBoolean(ContextStore.get("cache-services", "true"));
+
+    /**
+     * Parse every service method when the service is created?
+     */
+    boolean validateEagerly = Boolean.parseBoolean(ContextStore.get("validate-services-eagerly", "false"));
+
+    /**
+     * Converters services are built with, or null to use the {@link Converters} of the service, if any, or the
+     * {@code converters} property. (default: null)
+     */
+    List<ConverterType> converters;
+
     /**
      * The base URL for the service.
      */
@@ -138,6 +250,9 @@ public class WasapiClient {
 
     /**
      * Creates Retrofit Service based on the provided service class and configurations.
+     * <p>
+     * Unless service caching is disabled, the Retrofit instance and the service proxy are taken from
+     * {@link ServiceCache}, so repeated builds of the same service reuse the already parsed service methods.
      *
      * @param serviceClass The service class (api data store) to be used when creating Retrofit Service.
      * @return The created Retrofit Service.
@@ -149,23 +264,54 @@ public class WasapiClient {
         client = client == null ? getDefaultHttpClient() : client;
 
         assert BASE_URL != null;
-        Retrofit retrofit = new Retrofit.Builder()
+        List<ConverterType> converters = getConverters(serviceClass);
+        if (!cacheServices) return getRetrofit(converters).create(serviceClass);
+
+        Retrofit retrofit = ServiceCache.getRetrofit(
+                new ServiceCache.RetrofitKey(BASE_URL, client, converters, validateEagerly, responseCache),
+                () -> getRetrofit(converters)
+        );
+        return ServiceCache.getService(serviceClass, retrofit);
+    }
+
+    /**
+     * Returns the converters the given service is built with: the converters set on the builder, or the
+     * {@link Converters} of the service, or the converters of the {@code converters} property.
+     *
+     * @param serviceClass the service class
+     * @return the converters, in the order Retrofit tries them
+     */
+    private List<ConverterType> getConverters(Class<?> serviceClass) {
+        if (converters != null) return converters;
+        Converters annotation = serviceClass.getAnnotation(Converters.class);
+        return annotation != null ? List.of(annotation.value()) : ConverterType.fromContext();
+    }
+
+    /**
+     * Creates a new Retrofit instance for the current base URL and client, with the given converters.
+     * Converter factories are created on first use and shared, see {@link ConverterType}.
+     *
+     * @param converters the converters, in the order Retrofit tries them
+     * @return a new {@link Retrofit} instance
+     */
+    private Retrofit getRetrofit(List<ConverterType> converters) {
+        Retrofit.Builder builder = new Retrofit.Builder();
+        if (responseCache != null) builder.addCallAdapterFactory(responseCache.callAdapterFactory());
+        for (ConverterType converter : converters) builder.addConverterFactory(converter.factory());
+        return builder
                 .baseUrl(BASE_URL)
-                .addConverterFactory(JacksonConverterFactory.create(mapper))
-                .addConverterFactory(GsonConverterFactory.create())
                 .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
-                .addConverterFactory(ScalarsConverterFactory.create())
-                .addConverterFactory(MoshiConverterFactory.create())
-                .addConverterFactory(WireConverterFactory.create())
-                .addConverterFactory(ProtoConverterFactory.create())
+                .validateEagerly(validateEagerly)
                 .client(client)
                 .build();
-        return retrofit.create(serviceClass);
     }
 
     /**
      * Creates and returns a default OkHttpClient instance with predefined configurations.
      * <p>
+     * The returned client is derived from the shared client registered in {@link HttpClientRegistry} for the
+     * effective transport configuration (timeouts, proxy, redirects and hostname verification), so every client
+     * built with the same transport configuration shares one connection pool and dispatcher.
      * This client includes:
      * <ul>
      *     <li>Logging interceptors for both body and headers.</li>
@@ -173,86 +319,143 @@ public class WasapiClient {
      *     <li>Redirect handling.</li>
      *     <li>A network interceptor for modifying requests before execution.</li>
      * </ul>
-     * The interceptor ensures headers are set, logs the request body if enabled,
-     * and logs headers when required.
+     * The interceptor merges the precompiled {@link HeaderTemplate} of the configured headers into each request,
+     * and logs headers when required. Request bodies are logged by {@link RequestBodyLogger} if enabled.
      *
      * @return a configured OkHttpClient instance
      */
     private OkHttpClient getDefaultHttpClient(){
-        OkHttpClient client =  new OkHttpClient.Builder()
-                .connectTimeout(connectionTimeout, TimeUnit.SECONDS)
-                .readTimeout(readTimeout, TimeUnit.SECONDS)
-                .writeTimeout(writeTimeout, TimeUnit.SECONDS)
-                .followRedirects(followRedirects)
+        return cacheServices ? ServiceCache.getClient(getClientProfile(), this::createDefaultHttpClient) : createDefaultHttpClient();
+    }
+
+    /**
+     * Creates a new client derived from the shared client of the current transport configuration.
+     *
+     * @return a configured OkHttpClient instance
+     * @see #getDefaultHttpClient()
+     */
+    private OkHttpClient createDefaultHttpClient(){
+        HeaderTemplate headerTemplate = HeaderTemplate.of(headers);
+        boolean logHeaders = this.logHeaders; // The cached client must not follow later changes of this generator
+        OkHttpClient.Builder builder = HttpClientRegistry.getClient(getTransportKey()).newBuilder()
                 .addNetworkInterceptor(chain -> {
-                    Request request = chain.request().newBuilder().build();
-                    request = request.newBuilder()
-                            .header("Host", request.url().host())
-                            .method(request.method(), request.body())
-                            .build();
-                    for (String header: headers.names()) {
-                        if (!request.headers().names().contains(header)){
-                            request = request.newBuilder()
-                                    .addHeader(header, Objects.requireNonNull(headers.get(header)))
-                                    .build();
-                        }
-                    }
-                    if (request.body() != null) {
-                        Boolean contentLength = Objects.requireNonNull(request.body()).contentLength()!=0;
-                        Boolean contentType = Objects.requireNonNull(request.body()).contentType() != null;
-
-                        if (contentLength && contentType)
-                            request = request.newBuilder()
-                                    .header(
-                                            "Content-Length",
-                                            String.valueOf(Objects.requireNonNull(request.body()).contentLength()))
-                                    .header(
-                                            "Content-Type",
-                                            String.valueOf(Objects.requireNonNull(request.body()).contentType()))
-                                    .build();
-
-                        if (logRequestBody) {
-                            Request cloneRequest = request.newBuilder().build();
-                            if (cloneRequest.body()!= null){
-                                Buffer buffer = new Buffer();
-                                cloneRequest.body().writeTo(buffer);
-                                String bodyString = buffer.readString(UTF_8);
-                                try {
-                                    Object jsonObject = mapper.readValue(bodyString, Object.class);
-                                    String outgoingRequestLog = "The request body is: \n" + getJsonString(jsonObject);
-                                    log.info(outgoingRequestLog);
-                                }
-                                catch (IOException ignored) {
-                                    log.warning("Could not log request body!\nBody: " + bodyString);
-                                }
-                            }
-                            else log.warning("Request body is null!");
-                        }
-                    }
+                    Request request = headerTemplate.apply(chain.request());
                     if (logHeaders)
                         log.info(("Headers(" + request.headers().size() + "): \n" + request.headers()).trim());
                     return chain.proceed(request);
-                }).build();
+                });
+
+        if (metrics)
+            builder.eventListenerFactory(MetricsEventListener.FACTORY);
+
+        if (retryPolicy != null)
+            builder.addInterceptor(new RetryInterceptor(retryPolicy));
+
+        if (tokenProvider != null) {
+            TokenAuthenticator authenticator = new TokenAuthenticator(tokenProvider, Duration.ofSeconds(tokenRefreshAhead));
+            builder.addInterceptor(authenticator).authenticator(authenticator);
+        }
+
+        if (logRequestBody)
+            builder.addNetworkInterceptor(
+                    new RequestBodyLogger(requestBodyLogLimit, requestBodyLogSampleRate, requestBodyLogSlowThreshold)
+            );
+
+        if (httpCacheDirectory != null)
+            builder.cache(ResponseCache.disk(new File(httpCacheDirectory), httpCacheSize));
+
+        if (responseBodyLogLimit > 0)
+            builder.addInterceptor(new ResponseBodyCapture(responseBodyLogLimit));
+
+        if (coalesceRequests)
+            builder.addInterceptor(new RequestCoalescer(coalesceMaxBodyBytes));
+
+        if (circuitBreaker != null || concurrencyLimit != null)
+            builder.addInterceptor(new CircuitBreakerInterceptor(circuitBreaker, concurrencyLimit));
 
         if (detailedLogging)
-            client = new OkHttpClient.Builder(client)
-                    .addInterceptor(getLogginInterceptor(HttpLoggingInterceptor.Level.BODY))
-                    .addInterceptor(getLogginInterceptor(HttpLoggingInterceptor.Level.HEADERS))
-                    .build();
-
-        if (!hostnameVerification)
-            client = new OkHttpClient.Builder(client)
-                    .hostnameVerifier((hostname, session) -> true)
-                    .build();
-
-        if (useProxy)
-            client = new OkHttpClient.Builder(client)
-                    .proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, proxyPort)))
-                    .build();
-
-        return client;
+            builder.addInterceptor(getLogginInterceptor(HttpLoggingInterceptor.Level.BODY))
+                    .addInterceptor(getLogginInterceptor(HttpLoggingInterceptor.Level.HEADERS));
+
+        return builder.build();
+    }
+
+    /**
+     * Returns the transport configuration the shared base client of this generator is keyed by.
+     *
+     * @return the {@link HttpClientRegistry.TransportKey} of the current configuration
+     */
+    HttpClientRegistry.TransportKey getTransportKey(){
+        return new HttpClientRegistry.TransportKey(
+                connectionTimeout,
+                readTimeout,
+                writeTimeout,
+                followRedirects,
+                hostnameVerification,
+                useProxy ? proxyHost : null,
+                useProxy ? proxyPort : 0,
+                virtualThreads,
+                protocol,
+                pingInterval,
+                maxRequests,
+                maxRequestsPerHost
+        );
     }
 
+    /**
+     * Returns the profile derived clients are cached by; it covers every setting the derived client is built with.
+     *
+     * @return the {@link ClientProfile} of the current configuration
+     */
+    ClientProfile getClientProfile(){
+        return new ClientProfile(
+                getTransportKey(),
+                metrics,
+                headers,
+                logHeaders,
+                logRequestBody,
+                requestBodyLogLimit,
+                requestBodyLogSampleRate,
+                requestBodyLogSlowThreshold,
+                responseBodyLogLimit,
+                tokenProvider,
+                tokenRefreshAhead,
+                detailedLogging,
+                httpCacheDirectory,
+                httpCacheSize,
+                coalesceRequests,
+                coalesceMaxBodyBytes,
+                retryPolicy,
+                circuitBreaker,
+                concurrencyLimit
+        );
+    }
+
+    /**
+     * Everything a client derived from a shared base client is configured with.
+     */
+    record ClientProfile(
+            HttpClientRegistry.TransportKey transportKey,
+            boolean metrics,
+            Headers headers,
+            boolean logHeaders,
+            boolean logRequestBody,
+            int requestBodyLogLimit,
+            int requestBodyLogSampleRate,
+            long requestBodyLogSlowThreshold,
+            int responseBodyLogLimit,
+            TokenProvider tokenProvider,
+            int tokenRefreshAhead,
+            boolean detailedLogging,
+            String httpCacheDirectory,
+            long httpCacheSize,
+            boolean coalesceRequests,
+            long coalesceMaxBodyBytes,
+            RetryPolicy retryPolicy,
+            CircuitBreaker.Config circuitBreaker,
+            ConcurrencyLimiter.Config concurrencyLimit
+    ) { }
+
     /**
      * Creates and returns an {@link HttpLoggingInterceptor} with the specified logging level.
      * <p>
@@ -280,6 +483,10 @@ public class WasapiClient {
             generator.detailedLogging = Boolean.parseBoolean(ContextStore.get("detailed-logging", "false"));
             generator.hostnameVerification = Boolean.parseBoolean(ContextStore.get("verify-hostname", "true"));
             generator.logRequestBody = Boolean.parseBoolean(ContextStore.get("log-request-body", "false"));
+            generator.requestBodyLogLimit = Integer.parseInt(ContextStore.get("request-body-log-limit", "16384"));
+            generator.requestBodyLogSampleRate = Integer.parseInt(ContextStore.get("request-body-log-sample-rate", "1"));
+            generator.requestBodyLogSlowThreshold = Long.parseLong(ContextStore.get("request-body-log-slow-threshold", "-1"));
+            generator.responseBodyLogLimit = Integer.parseInt(ContextStore.get("response-body-log-limit", "0"));
             generator.connectionTimeout = Integer.parseInt(ContextStore.get("connection-timeout", "60"));
             generator.readTimeout = Integer.parseInt(ContextStore.get("connection-read-timeout", "30"));
             generator.writeTimeout = Integer.parseInt(ContextStore.get("connection-write-timeout", "30"));
@@ -287,6 +494,24 @@ public class WasapiClient {
             generator.proxyPort = Integer.parseInt(ContextStore.get("proxy-port", "8888"));
             generator.useProxy = generator.proxyHost != null;
             generator.followRedirects = Boolean.parseBoolean(ContextStore.get("request-follows-redirects", "false"));
+            generator.tokenRefreshAhead = Integer.parseInt(ContextStore.get("token-refresh-ahead", "30"));
+            generator.virtualThreads = Boolean.parseBoolean(ContextStore.get("virtual-threads", "false"));
+            generator.metrics = Boolean.parseBoolean(ContextStore.get("metrics-enabled", "true"));
+            generator.protocol = HttpProtocol.fromContext();
+            generator.pingInterval = Long.parseLong(ContextStore.get("ping-interval", "0"));
+            generator.maxRequests = Integer.parseInt(ContextStore.get("max-requests", "64"));
+            generator.maxRequestsPerHost = Integer.parseInt(ContextStore.get("max-requests-per-host", "5"));
+            generator.httpCacheDirectory = ContextStore.get("http-cache-directory", null);
+            generator.httpCacheSize = Long.parseLong(ContextStore.get("http-cache-size", "10485760"));
+            generator.coalesceRequests = Boolean.parseBoolean(ContextStore.get("coalesce-requests", "false"));
+            generator.coalesceMaxBodyBytes = Long.parseLong(ContextStore.get("coalesce-max-body-bytes", "1048576"));
+            generator.retryPolicy = Boolean.parseBoolean(ContextStore.get("retry-enabled", "false")) ? RetryPolicy.getDefault() : null;
+            generator.circuitBreaker = Boolean.parseBoolean(ContextStore.get("circuit-breaker-enabled", "false")) ?
+                    CircuitBreaker.Config.fromContext() : null;
+            generator.concurrencyLimit = Boolean.parseBoolean(ContextStore.get("concurrency-limit-enabled", "false")) ?
+                    ConcurrencyLimiter.Config.fromContext() : null;
+            generator.cacheServices = Boolean.parseBoolean(ContextStore.get("cache-services", "true"));
+            generator.validateEagerly = Boolean.parseBoolean(ContextStore.get("validate-services-eagerly", "false"));
         }
 
         /**
@@ -321,6 +546,41 @@ public class WasapiClient {
             return this;
         }
 
+        /**
+         * Sets the maximum number of request body bytes logged per request.
+         */
+        public Builder requestBodyLogLimit(int maxBytes) {
+            generator.requestBodyLogLimit = maxBytes;
+            return this;
+        }
+
+        /**
+         * Logs the request body of one in every {@code oneInEvery} requests.
+         */
+        public Builder requestBodyLogSampleRate(int oneInEvery) {
+            generator.requestBodyLogSampleRate = oneInEvery;
+            return this;
+        }
+
+        /**
+         * Only logs request bodies of calls that take at least the given number of milliseconds or fail.
+         * A negative threshold logs every sampled request.
+         */
+        public Builder requestBodyLogSlowThreshold(long millis) {
+            generator.requestBodyLogSlowThreshold = millis;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of raw response body bytes captured for logging per response. (default: 0, off)
+         * Responses are logged from these bytes rather than by serializing the decoded body. Every JSON response is
+         * copied while the capture is on, logged or not, so it is meant for services whose bodies are printed.
+         */
+        public Builder responseBodyLogLimit(int bytes) {
+            generator.responseBodyLogLimit = bytes;
+            return this;
+        }
+
         /**
          * Enables or disables hostname verification.
          */
@@ -379,6 +639,82 @@ public class WasapiClient {
             return this;
         }
 
+        /**
+         * Enables the disk-backed HTTP cache, which revalidates stale responses with conditional requests.
+         * Clients configured with the same directory share one cache.
+         */
+        public Builder httpCache(File directory, long maxSizeBytes) {
+            generator.httpCacheDirectory = directory.getPath();
+            generator.httpCacheSize = maxSizeBytes;
+            return this;
+        }
+
+        /**
+         * Serves successful GET responses from the given in-memory cache of decoded responses.
+         */
+        public Builder responseCache(ResponseCache cache) {
+            generator.responseCache = cache;
+            return this;
+        }
+
+        /**
+         * Enables or disables coalescing of identical GET requests that are in flight at the same time: followers
+         * get a copy of the leader's response instead of sending their own request.
+         */
+        public Builder coalesceRequests(boolean enabled) {
+            generator.coalesceRequests = enabled;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a response body shared by coalesced requests; larger responses are not shared.
+         */
+        public Builder coalesceMaxBodyBytes(long bytes) {
+            generator.coalesceMaxBodyBytes = bytes;
+            return this;
+        }
+
+        /**
+         * Sets the policy failed requests are retried by, or null to not retry.
+         */
+        public Builder retryPolicy(RetryPolicy policy) {
+            generator.retryPolicy = policy;
+            return this;
+        }
+
+        /**
+         * Builds services with exactly the given converters, in the order Retrofit tries them, overriding the
+         * {@link Converters} of the service. Converter libraries no service is built with are never loaded.
+         */
+        public Builder converters(ConverterType... converters) {
+            generator.converters = List.of(converters);
+            return this;
+        }
+
+        /**
+         * Guards every host with a circuit breaker of the given configuration, or with none if it is null.
+         * Requests to a host whose breaker is open fail fast with a CircuitBreakerOpenException.
+         */
+        public Builder circuitBreaker(CircuitBreaker.Config config) {
+            generator.circuitBreaker = config;
+            return this;
+        }
+
+        /**
+         * Limits the requests in flight to every host with an adaptive limit of the given configuration, or with
+         * none if it is null.
+         * <p>
+         * A request over the limit waits for a slot for up to {@code maxWait} on the thread that sends it. For
+         * enqueued calls that is a thread of the dispatcher, which then counts as running against
+         * {@link #maxRequests(int, int)} while it waits; keep {@code maxWait} short, or the limit above the
+         * dispatcher's per-host limit, when most calls of a host are asynchronous.
+         * </p>
+         */
+        public Builder concurrencyLimit(ConcurrencyLimiter.Config config) {
+            generator.concurrencyLimit = config;
+            return this;
+        }
+
         /**
          * Sets a custom OkHttp client.
          */
@@ -387,6 +723,84 @@ public class WasapiClient {
             return this;
         }
 
+        /**
+         * Sets the provider requests are authorized with. Tokens are cached until they expire, refreshed
+         * proactively before they expire, and refreshed once for all concurrent callers when a request is
+         * answered with 401, after which the request is replayed.
+         */
+        public Builder tokenProvider(TokenProvider provider) {
+            generator.tokenProvider = provider;
+            return this;
+        }
+
+        /**
+         * Sets how many seconds before expiry tokens are refreshed in the background.
+         */
+        public Builder tokenRefreshAhead(int seconds) {
+            generator.tokenRefreshAhead = seconds;
+            return this;
+        }
+
+        /**
+         * Enables or disables running the OkHttp dispatcher on a virtual-thread-per-task executor (requires JDK 21+).
+         */
+        public Builder virtualThreads(boolean enabled) {
+            generator.virtualThreads = enabled;
+            return this;
+        }
+
+        /**
+         * Enables or disables recording phase timings and byte counts of the calls in {@link WasapiMetrics}.
+         */
+        public Builder metrics(boolean enabled) {
+            generator.metrics = enabled;
+            return this;
+        }
+
+        /**
+         * Sets the HTTP version connections speak. {@link HttpProtocol#H2C} multiplexes calls to plaintext services
+         * that speak HTTP/2 over a single connection.
+         */
+        public Builder protocol(HttpProtocol protocol) {
+            generator.protocol = protocol;
+            return this;
+        }
+
+        /**
+         * Sets the interval of HTTP/2 pings, which keep idle connections alive and detect dead ones;
+         * {@link Duration#ZERO} disables them.
+         */
+        public Builder pingInterval(Duration interval) {
+            generator.pingInterval = interval.toMillis();
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of asynchronous calls in flight at once, in total and per host. Raise the limit per
+         * host to multiplex many calls over an HTTP/2 connection.
+         */
+        public Builder maxRequests(int maxRequests, int maxRequestsPerHost) {
+            generator.maxRequests = maxRequests;
+            generator.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Enables or disables caching of generated Retrofit instances and service proxies.
+         */
+        public Builder cacheServices(boolean enabled) {
+            generator.cacheServices = enabled;
+            return this;
+        }
+
+        /**
+         * Enables or disables parsing every service method at build time instead of on first use.
+         */
+        public Builder validateEagerly(boolean enabled) {
+            generator.validateEagerly = enabled;
+            return this;
+        }
+
         /**
          * Builds the service interface directly using the configured wasapi.ServiceGenerator.
          */
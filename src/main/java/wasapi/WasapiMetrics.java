@@ -0,0 +1,403 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.Request;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide registry of call metrics, kept per service.
+ * <p>
+ * {@link Caller} records every call it performs: the call count, failures, response codes and the end-to-end
+ * latency (including logging and deserialization). Every retry granted by a {@link RetryPolicy} is counted with
+ * its delay, and every hedge sent by a {@link HedgePolicy} is counted, with the hedges that won. When the {@code metrics-enabled} property is on (the default),
+ * the clients built by {@link WasapiClient} also carry an event listener that records the bytes sent and
+ * received, and the duration of each {@link Phase} of every exchange, including calls executed without
+ * {@link Caller}.
+ * </p>
+ * <p>
+ * Services are named after their Retrofit service method (see {@link wasapi.annotations.ServiceName}), or after
+ * the host for requests that were not created by Retrofit. Recording only increments preallocated counters, so it
+ * neither locks nor allocates on the request path; snapshots and exports are computed on demand.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     for (WasapiMetrics.ServiceSnapshot service : WasapiMetrics.snapshot())
+ *         log.info(service.service() + " p99: " + service.latency().p99().toMillis() + "ms");
+ *
+ *     String scrape = WasapiMetrics.toPrometheus();
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@SuppressWarnings("unused")
+public final class WasapiMetrics {
+
+    /**
+     * The phases of an exchange timed by the event listener.
+     */
+    public enum Phase {
+        /** Resolving the host name. */
+        DNS,
+        /** Establishing the connection, including the TLS handshake. */
+        CONNECT,
+        /** The TLS handshake. */
+        TLS,
+        /** Writing the request headers and body. */
+        REQUEST_WRITE,
+        /** From the end of the request until the response headers start arriving. */
+        TIME_TO_FIRST_BYTE,
+        /** The whole call, as seen by OkHttp, including retries and redirects. */
+        CALL
+    }
+
+    private static final Phase[] phases = Phase.values();
+
+    /**
+     * Metrics, per service name.
+     */
+    private static final Map<String, ServiceMetrics> services = new ConcurrentHashMap<>();
+
+    /**
+     * What is recorded into while metrics are disabled; it is never registered, so nothing recorded into it is exported.
+     */
+    private static final ServiceMetrics discarded = new ServiceMetrics("");
+
+    private static volatile boolean enabled = Boolean.parseBoolean(ContextStore.get("metrics-enabled", "true"));
+
+    private WasapiMetrics() {}
+
+    /**
+     * Returns whether metrics are recorded.
+     *
+     * @return true if metrics are recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns metrics recording on or off. This does not add or remove the event listener of already created clients.
+     *
+     * @param enabled whether metrics are recorded
+     */
+    public static void setEnabled(boolean enabled) {
+        WasapiMetrics.enabled = enabled;
+    }
+
+    /**
+     * Records a completed call.
+     *
+     * @param request      the request of the call
+     * @param responseCode the response code
+     * @param nanos        the end-to-end latency of the call
+     */
+    static void recordCall(Request request, int responseCode, long nanos) {
+        if (!enabled) return;
+        ServiceMetrics metrics = service(request);
+        metrics.calls.increment();
+        if (responseCode >= 0 && responseCode < ServiceMetrics.STATUS_CODES)
+            metrics.statusCodes.incrementAndGet(responseCode);
+        metrics.latency.record(nanos);
+    }
+
+    /**
+     * Records a call that failed without a response.
+     *
+     * @param request the request of the call
+     * @param nanos   the time until the call failed
+     */
+    static void recordFailure(Request request, long nanos) {
+        if (!enabled) return;
+        ServiceMetrics metrics = service(request);
+        metrics.calls.increment();
+        metrics.failures.increment();
+        metrics.latency.record(nanos);
+    }
+
+    /**
+     * Records a retry.
+     *
+     * @param request     the request that is retried
+     * @param delayMillis the delay before the retry
+     */
+    static void recordRetry(Request request, long delayMillis) {
+        if (!enabled) return;
+        ServiceMetrics metrics = service(request);
+        metrics.retries.increment();
+        metrics.retryDelay.record(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    }
+
+    /**
+     * Records a hedge that was sent, or one that won.
+     *
+     * @param request the request that is hedged
+     * @param won     whether the hedge answered before the request it hedged
+     */
+    static void recordHedge(Request request, boolean won) {
+        if (!enabled) return;
+        ServiceMetrics metrics = service(request);
+        (won ? metrics.hedgesWon : metrics.hedges).increment();
+    }
+
+    /**
+     * Returns the metrics of the service the given request belongs to, creating them on first use.
+     * While metrics are disabled, no service is created and recordings are discarded.
+     *
+     * @param request the request
+     * @return the {@link ServiceMetrics}
+     */
+    static ServiceMetrics service(Request request) {
+        if (!enabled) return discarded;
+        String name = ServiceNames.metricName(request);
+        ServiceMetrics metrics = services.get(name);
+        return metrics != null ? metrics : services.computeIfAbsent(name, ServiceMetrics::new);
+    }
+
+    /**
+     * Returns a snapshot of the metrics of every service, ordered by service name.
+     *
+     * @return a list of {@link ServiceSnapshot}, one per service
+     */
+    public static List<ServiceSnapshot> snapshot() {
+        List<ServiceSnapshot> snapshots = new ArrayList<>();
+        new TreeMap<>(services).values().forEach(metrics -> snapshots.add(metrics.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the given service.
+     *
+     * @param service the service name
+     * @return the {@link ServiceSnapshot}, or null if nothing was recorded for the service
+     */
+    public static ServiceSnapshot snapshot(String service) {
+        ServiceMetrics metrics = services.get(service);
+        return metrics == null ? null : metrics.snapshot();
+    }
+
+    /**
+     * Exports the metrics of every service in the Prometheus text exposition format.
+     * Latencies are exported as summaries in seconds, with the 0.5, 0.99 and 0.999 quantiles.
+     *
+     * @return the exported metrics
+     */
+    public static String toPrometheus() {
+        List<ServiceSnapshot> snapshots = snapshot();
+        StringBuilder export = new StringBuilder();
+
+        export.append("# TYPE wasapi_calls_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_calls_total", snapshot.service(), null, snapshot.calls());
+
+        export.append("# TYPE wasapi_call_failures_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_call_failures_total", snapshot.service(), null, snapshot.failures());
+
+        export.append("# TYPE wasapi_retries_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_retries_total", snapshot.service(), null, snapshot.retries());
+
+        export.append("# TYPE wasapi_hedges_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_hedges_total", snapshot.service(), null, snapshot.hedges());
+
+        export.append("# TYPE wasapi_hedges_won_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_hedges_won_total", snapshot.service(), null, snapshot.hedgesWon());
+
+        export.append("# TYPE wasapi_responses_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            snapshot.statusCodes().forEach((code, count) ->
+                    sample(export, "wasapi_responses_total", snapshot.service(), "code=\"" + code + "\"", count)
+            );
+
+        export.append("# TYPE wasapi_bytes_sent_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_bytes_sent_total", snapshot.service(), null, snapshot.bytesSent());
+
+        export.append("# TYPE wasapi_bytes_received_total counter\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            sample(export, "wasapi_bytes_received_total", snapshot.service(), null, snapshot.bytesReceived());
+
+        export.append("# TYPE wasapi_call_latency_seconds summary\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            summary(export, "wasapi_call_latency_seconds", snapshot.service(), null, snapshot.latency());
+
+        export.append("# TYPE wasapi_retry_delay_seconds summary\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            if (snapshot.retryDelay().count() > 0)
+                summary(export, "wasapi_retry_delay_seconds", snapshot.service(), null, snapshot.retryDelay());
+
+        export.append("# TYPE wasapi_phase_latency_seconds summary\n");
+        for (ServiceSnapshot snapshot : snapshots)
+            snapshot.phases().forEach((phase, latency) -> {
+                if (latency.count() > 0)
+                    summary(export, "wasapi_phase_latency_seconds", snapshot.service(),
+                            "phase=\"" + phase.name().toLowerCase() + "\"", latency);
+            });
+
+        return export.toString();
+    }
+
+    /**
+     * Discards every recorded metric.
+     */
+    public static void reset() {
+        services.clear();
+    }
+
+    /**
+     * Appends a latency summary: its quantiles, sum and count.
+     */
+    private static void summary(StringBuilder export, String name, String service, String labels, LatencySnapshot latency) {
+        String prefix = labels == null ? "" : labels + ",";
+        sample(export, name, service, prefix + "quantile=\"0.5\"", seconds(latency.p50()));
+        sample(export, name, service, prefix + "quantile=\"0.99\"", seconds(latency.p99()));
+        sample(export, name, service, prefix + "quantile=\"0.999\"", seconds(latency.p999()));
+        sample(export, name + "_sum", service, labels, seconds(latency.mean()) * latency.count());
+        sample(export, name + "_count", service, labels, latency.count());
+    }
+
+    /**
+     * Appends a single sample line.
+     */
+    private static void sample(StringBuilder export, String name, String service, String labels, Object value) {
+        export.append(name).append("{service=\"").append(escape(service)).append('"');
+        if (labels != null) export.append(',').append(labels);
+        export.append("} ").append(value).append('\n');
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1e9;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * The live counters of a service.
+     */
+    static final class ServiceMetrics {
+
+        static final int STATUS_CODES = 600;
+
+        final String name;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final LongAdder hedgesWon = new LongAdder();
+        final AtomicLongArray statusCodes = new AtomicLongArray(STATUS_CODES);
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram retryDelay = new LatencyHistogram();
+        private final LatencyHistogram[] phaseLatencies = new LatencyHistogram[phases.length];
+
+        ServiceMetrics(String name) {
+            this.name = name;
+            for (int index = 0; index < phaseLatencies.length; index++)
+                phaseLatencies[index] = new LatencyHistogram();
+        }
+
+        /**
+         * Records the duration of the given phase.
+         *
+         * @param phase the phase
+         * @param nanos the duration of the phase
+         */
+        void recordPhase(Phase phase, long nanos) {
+            if (enabled) phaseLatencies[phase.ordinal()].record(nanos);
+        }
+
+        ServiceSnapshot snapshot() {
+            Map<Integer, Long> codes = new TreeMap<>();
+            for (int code = 0; code < STATUS_CODES; code++) {
+                long count = statusCodes.get(code);
+                if (count > 0) codes.put(code, count);
+            }
+            Map<Phase, LatencySnapshot> phaseSnapshots = new EnumMap<>(Phase.class);
+            for (Phase phase : phases)
+                phaseSnapshots.put(phase, phaseLatencies[phase.ordinal()].snapshot());
+            return new ServiceSnapshot(
+                    name,
+                    calls.sum(),
+                    failures.sum(),
+                    retries.sum(),
+                    hedges.sum(),
+                    hedgesWon.sum(),
+                    Collections.unmodifiableMap(codes),
+                    bytesSent.sum(),
+                    bytesReceived.sum(),
+                    latency.snapshot(),
+                    retryDelay.snapshot(),
+                    Collections.unmodifiableMap(phaseSnapshots)
+            );
+        }
+    }
+
+    /**
+     * A snapshot of the metrics of a service.
+     *
+     * @param service       the service name
+     * @param calls         number of calls performed through {@link Caller}
+     * @param failures      number of those calls that failed without a response
+     * @param retries       number of retries, see {@link RetryPolicy}
+     * @param hedges        number of hedges sent, see {@link HedgePolicy}
+     * @param hedgesWon     number of hedges that answered before the request they hedged
+     * @param statusCodes   number of responses, per response code
+     * @param bytesSent     request bytes sent (headers and bodies)
+     * @param bytesReceived response bytes received (headers and bodies)
+     * @param latency       end-to-end latency of the calls performed through {@link Caller}
+     * @param retryDelay    delays before the retries
+     * @param phases        latency of each phase of the exchanges
+     */
+    public record ServiceSnapshot(
+            String service,
+            long calls,
+            long failures,
+            long retries,
+            long hedges,
+            long hedgesWon,
+            Map<Integer, Long> statusCodes,
+            long bytesSent,
+            long bytesReceived,
+            LatencySnapshot latency,
+            LatencySnapshot retryDelay,
+            Map<Phase, LatencySnapshot> phases
+    ) { }
+
+    /**
+     * A snapshot of a latency histogram. Percentiles are accurate to about 6%.
+     *
+     * @param count number of recorded latencies
+     * @param mean  mean latency
+     * @param p50   median latency
+     * @param p99   99th percentile latency
+     * @param p999  99.9th percentile latency
+     * @param max   maximum latency
+     */
+    public record LatencySnapshot(
+            long count,
+            Duration mean,
+            Duration p50,
+            Duration p99,
+            Duration p999,
+            Duration max
+    ) { }
+}
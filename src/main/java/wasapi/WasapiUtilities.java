@@ -4,19 +4,28 @@ import context.ContextStore;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
-import org.junit.Assert;
 import retrofit2.Call;
 import retrofit2.Response;
+import wasapi.collections.BatchResult;
+import wasapi.collections.ResponsePair;
+import wasapi.exceptions.FailedCallException;
 import utils.Printer;
 import utils.mapping.MappingUtilities;
 import utils.reflection.ReflectionUtilities;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import static utils.StringUtilities.*;
-import static utils.reflection.ReflectionUtilities.getPreviousMethodName;
-import static utils.reflection.ReflectionUtilities.iterativeConditionalInvocation;
 
 /**
  * A utility class that provides utility methods for building multipart requests from files,
@@ -37,6 +46,11 @@ public abstract class WasapiUtilities extends Caller {
 
     public static Printer log = new Printer(WasapiUtilities.class);
 
+    /**
+     * Probed media types, cached per file extension.
+     */
+    private static final Map<String, MediaType> mediaTypes = new ConcurrentHashMap<>();
+
     /**
      * Converts file to multipart
      *
@@ -71,13 +85,65 @@ public abstract class WasapiUtilities extends Caller {
      * @return returns the RequestBody
      */
     public static RequestBody getRequestBodyFromFile(File file) {
-        String mediaType;
+        log.info("Generating request body from " + file.getName() + " file");
+        return RequestBody.create(file, mediaTypeOf(file));
+    }
+
+    /**
+     * Uploads a file in chunks, in parallel, with the default {@link ChunkedUpload} settings.
+     *
+     * @param file     target file
+     * @param sender   builds the call that uploads a chunk
+     * @param progress notified whenever a chunk is acknowledged
+     * @return returns the result of the upload
+     * @throws FailedCallException if a chunk could not be uploaded
+     */
+    public static ChunkedUpload.Result uploadInChunks(
+            File file,
+            ChunkedUpload.ChunkSender sender,
+            ProgressListener progress) {
+        log.info("Uploading " + file.getName() + " file in chunks");
+        return new ChunkedUpload(file, sender).progress(progress).upload();
+    }
+
+    /**
+     * Downloads a file in ranges, in parallel, with the default {@link RangedDownload} settings.
+     *
+     * @param fetcher  builds the call that fetches a range
+     * @param target   the file to download to
+     * @param progress notified whenever a range is completed
+     * @return returns the result of the download
+     * @throws FailedCallException if a range could not be fetched
+     */
+    public static RangedDownload.Result downloadInRanges(
+            RangedDownload.RangeFetcher fetcher,
+            File target,
+            ProgressListener progress) {
+        log.info("Downloading " + target.getName() + " file in ranges");
+        return new RangedDownload(fetcher, target).progress(progress).download();
+    }
+
+    /**
+     * Probes the media type of a file, cached per file extension, since probing can read the platform's MIME type
+     * tables or the file itself.
+     *
+     * @param file target file
+     * @return the media type of the file, or {@code application/octet-stream} if it is unknown
+     */
+    static MediaType mediaTypeOf(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) return probeMediaType(file);
+        return mediaTypes.computeIfAbsent(name.substring(dot + 1).toLowerCase(Locale.ROOT), extension -> probeMediaType(file));
+    }
+
+    private static MediaType probeMediaType(File file) {
         try {
-            mediaType = Files.probeContentType(file.toPath());
+            String mediaType = Files.probeContentType(file.toPath());
+            return MediaType.parse(mediaType != null ? mediaType : "application/octet-stream");
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return getRequestBodyFromFile(file, mediaType);
     }
 
     /**
@@ -92,6 +158,72 @@ public abstract class WasapiUtilities extends Caller {
         return RequestBody.create(file, MediaType.parse(mediaType));
     }
 
+    /**
+     * Performs a batch of independent calls concurrently and returns their responses in input order.
+     * <p>
+     * At most {@code maxConcurrency} calls are in flight at once, and at most {@code maxConcurrencyPerHost} of them
+     * target the same host. Calls are enqueued rather than executed, so the batch does not hold a thread per call.
+     * The dispatcher of the client still applies its own {@code max-requests-per-host} limit to them: a higher
+     * {@code maxConcurrencyPerHost} only queues the extra calls in the dispatcher, where their wait counts as call time.
+     * </p>
+     *
+     * @param calls                 The calls to be performed.
+     * @param maxConcurrency        The maximum number of calls in flight at once.
+     * @param maxConcurrencyPerHost The maximum number of calls in flight at once per host.
+     * @param failFast              If true, cancels the remaining calls and throws a FailedCallException as soon as a call
+     *                              fails or returns an unsuccessful response. If false, collects every outcome.
+     * @param errorModels           Varargs parameter. Each ErrorModel class is used to try to parse the error response of unsuccessful calls.
+     * @param <SuccessModel>        The type of the successful response bodies.
+     * @return A {@link BatchResult} with a {@link ResponsePair} per call in input order, the failures and the aggregate timing.
+     * @throws FailedCallException If failFast is true and a call failed or returned an unsuccessful response.
+     */
+    public static <SuccessModel> BatchResult<SuccessModel> performAll(
+            Collection<Call<SuccessModel>> calls,
+            int maxConcurrency,
+            int maxConcurrencyPerHost,
+            boolean failFast,
+            Class<?>... errorModels
+    ) {
+        BatchResult<SuccessModel> result = new BatchExecutor<>(
+                new ArrayList<>(calls),
+                maxConcurrency,
+                maxConcurrencyPerHost,
+                failFast,
+                errorModels
+        ).execute();
+        log.info("Performed " + calls.size() + " calls in " + result.elapsed().toMillis() + "ms " +
+                "(average call: " + result.averageCallTime().toMillis() + "ms, " +
+                "slowest call: " + result.maxCallTime().toMillis() + "ms, " +
+                "failures: " + result.failures().size() + ")");
+        return result;
+    }
+
+    /**
+     * Performs a batch of independent calls concurrently and collects every outcome in input order.
+     * The concurrency limits are read from the {@code batch-concurrency} (default: 16) and
+     * {@code batch-concurrency-per-host} (default: the {@code max-requests-per-host} of the clients, 5) properties.
+     *
+     * @param calls          The calls to be performed.
+     * @param errorModels    Varargs parameter. Each ErrorModel class is used to try to parse the error response of unsuccessful calls.
+     * @param <SuccessModel> The type of the successful response bodies.
+     * @return A {@link BatchResult} with a {@link ResponsePair} per call in input order, the failures and the aggregate timing.
+     */
+    public static <SuccessModel> BatchResult<SuccessModel> performAll(
+            Collection<Call<SuccessModel>> calls,
+            Class<?>... errorModels
+    ) {
+        return performAll(
+                calls,
+                Integer.parseInt(ContextStore.get("batch-concurrency", "16")),
+                Integer.parseInt(ContextStore.get(
+                        "batch-concurrency-per-host",
+                        ContextStore.get("max-requests-per-host", "5")
+                )),
+                false,
+                errorModels
+        );
+    }
+
     /**
      * Monitors the response code of a network call within a specified time limit.
      *
@@ -99,27 +231,14 @@ public abstract class WasapiUtilities extends Caller {
      * @param expectedCode     The expected HTTP response code to be matched.
      * @param call             The network call to monitor.
      * @param <SuccessModel>   The type of the expected response model.
+     * @return The first response with the expected code, or null if the code did not match in time.
      */
-    public <SuccessModel> void monitorResponseCode(
+    public <SuccessModel> Response<SuccessModel> monitorResponseCode(
             int timeoutInSeconds,
             int expectedCode,
             Call<SuccessModel> call
     ) {
-        String serviceName = getPreviousMethodName();
-        iterativeConditionalInvocation(
-                timeoutInSeconds,
-                () -> {
-                    boolean condition;
-                    Call<?> callClone = call.clone();
-                    Response<?> response = getResponse(serviceName, callClone, false, false);
-                    condition = response.code() == expectedCode;
-                    if (condition) {
-                        log.success("Status code verified as " + expectedCode + "!");
-                        ContextStore.put("monitorResponseCodeResponse", response);
-                    }
-                    return condition;
-                }
-        );
+        return await(getResponseForCodeAsync(timeoutInSeconds, expectedCode, call), false);
     }
 
     /**
@@ -137,20 +256,9 @@ public abstract class WasapiUtilities extends Caller {
             Call<SuccessModel> call,
             boolean printLastCallBody
     ) {
-        String serviceName = getPreviousMethodName();
-        boolean codeMatch = iterativeConditionalInvocation(
-                timeoutInSeconds,
-                () -> responseCodeMatch(
-                        serviceName,
-                        expectedCode,
-                        call,
-                        false,
-                        false,
-                        printLastCallBody
-                )
-        );
-        Assert.assertTrue("Response code did not match the expected code " + expectedCode + " within " + timeoutInSeconds + " seconds!", codeMatch);
-        return ContextStore.get("monitorResponseCodeResponse");
+        Response<SuccessModel> response = await(getResponseForCodeAsync(timeoutInSeconds, expectedCode, call), true);
+        if (printLastCallBody) log.info("Response body: " + MappingUtilities.Json.getJsonStringFor(response.body()));
+        return response;
     }
 
     /**
@@ -166,20 +274,7 @@ public abstract class WasapiUtilities extends Caller {
             int expectedCode,
             Call<SuccessModel> call
     ) {
-        String serviceName = getPreviousMethodName();
-        boolean codeMatch = iterativeConditionalInvocation(
-                timeoutInSeconds,
-                () -> responseCodeMatch(
-                        serviceName,
-                        expectedCode,
-                        call,
-                        false,
-                        false,
-                        false
-                )
-        );
-        Assert.assertTrue("Response code did not match the expected code " + expectedCode + " within " + timeoutInSeconds + " seconds!", codeMatch);
-        return ContextStore.get("monitorResponseCodeResponse");
+        return getResponseForCode(timeoutInSeconds, expectedCode, call, false);
     }
 
     /**
@@ -198,23 +293,147 @@ public abstract class WasapiUtilities extends Caller {
             String fieldName,
             boolean printLastCallBody
     ) {
-        String serviceName = getPreviousMethodName();
-        boolean codeMatch = iterativeConditionalInvocation(
-                timeoutInSeconds,
-                () -> fieldValueMatch(
-                        serviceName,
-                        call,
-                        false,
-                        false,
-                        fieldName,
-                        expectedValue,
-                        printLastCallBody
-                )
+        Response<SuccessModel> response = await(
+                monitorFieldValueFromResponseAsync(timeoutInSeconds, expectedValue, call, fieldName),
+                true
         );
-        Assert.assertTrue(highlighted(Color.BLUE, fieldName) + " did not match the expected value "
-                + highlighted(Color.BLUE, expectedValue) + " within "
-                + highlighted(Color.BLUE, String.valueOf(timeoutInSeconds)) + " seconds!", codeMatch);
-        return ContextStore.get("monitorFieldValueResponse");
+        if (printLastCallBody) log.info("Response body: " + MappingUtilities.Json.getJsonStringFor(response.body()));
+        return response;
+    }
+
+    /**
+     * Monitors the response code of a network call within a specified time limit, without blocking a thread while
+     * it waits. Attempts are scheduled with the default {@link MonitorPolicy} (see {@link MonitorPolicy#fromContext()}).
+     *
+     * @param timeoutInSeconds The time limit (in seconds) for monitoring the response code.
+     * @param expectedCode     The expected HTTP response code to be matched.
+     * @param call             The network call to monitor.
+     * @param <SuccessModel>   The type of the expected response model.
+     * @return A future of the first response with the expected code, completed exceptionally with an {@link AssertionError}
+     * if the code did not match in time. Cancelling the future stops the monitor.
+     */
+    public <SuccessModel> CompletableFuture<Response<SuccessModel>> getResponseForCodeAsync(
+            int timeoutInSeconds,
+            int expectedCode,
+            Call<SuccessModel> call
+    ) {
+        return ResponseMonitor.start(
+                call,
+                ServiceNames.of(call),
+                response -> {
+                    boolean condition = response.code() == expectedCode;
+                    if (condition) log.success("Status code verified as " + expectedCode + "!");
+                    return condition;
+                },
+                TimeUnit.SECONDS.toMillis(timeoutInSeconds),
+                MonitorPolicy.fromContext(),
+                "Response code did not match the expected code " + expectedCode + " within " + timeoutInSeconds + " seconds!"
+        );
+    }
+
+    /**
+     * Monitors the response field value for compliance with the expected value, without blocking a thread while
+     * it waits. Attempts are scheduled with the default {@link MonitorPolicy} (see {@link MonitorPolicy#fromContext()}).
+     *
+     * @param timeoutInSeconds The time limit (in seconds) for monitoring the response code.
+     * @param expectedValue    The expected value to be matched.
+     * @param call             The network call to monitor.
+     * @param fieldName        The name of the field to inspect.
+     * @param <SuccessModel>   The type of the expected response model.
+     * @return A future of the first response with the expected field value, completed exceptionally with an
+     * {@link AssertionError} if the value did not match in time. Cancelling the future stops the monitor.
+     */
+    public <SuccessModel> CompletableFuture<Response<SuccessModel>> monitorFieldValueFromResponseAsync(
+            int timeoutInSeconds,
+            String expectedValue,
+            Call<SuccessModel> call,
+            String fieldName
+    ) {
+        return ResponseMonitor.start(
+                call,
+                ServiceNames.of(call),
+                response -> {
+                    SuccessModel responseBody = response.body();
+                    if (responseBody == null) return false;
+                    boolean condition = ReflectionUtilities.getField(fieldName, responseBody).toString().equals(expectedValue);
+                    if (condition) log.success(fieldName + " is verified as " + expectedValue + "!");
+                    return condition;
+                },
+                TimeUnit.SECONDS.toMillis(timeoutInSeconds),
+                MonitorPolicy.fromContext(),
+                highlighted(Color.BLUE, fieldName) + " did not match the expected value "
+                        + highlighted(Color.BLUE, expectedValue) + " within "
+                        + highlighted(Color.BLUE, String.valueOf(timeoutInSeconds)) + " seconds!"
+        );
+    }
+
+    /**
+     * Polls a network call until its response satisfies the given condition, without blocking a thread while it
+     * waits. Hundreds of monitors can run at once: between attempts, a monitor only occupies a scheduled task.
+     *
+     * @param call             The network call to monitor, cloned for every attempt.
+     * @param condition        The condition the response has to satisfy.
+     * @param timeoutInSeconds The time limit (in seconds) for monitoring the call.
+     * @param policy           The {@link MonitorPolicy} the attempts are scheduled by.
+     * @param <SuccessModel>   The type of the expected response model.
+     * @return A future of the first response that satisfies the condition, completed exceptionally with an
+     * {@link AssertionError} if no response did in time. Cancelling the future stops the monitor.
+     */
+    public static <SuccessModel> CompletableFuture<Response<SuccessModel>> monitorAsync(
+            Call<SuccessModel> call,
+            Predicate<Response<SuccessModel>> condition,
+            int timeoutInSeconds,
+            MonitorPolicy policy
+    ) {
+        return ResponseMonitor.start(
+                call,
+                ServiceNames.of(call),
+                condition,
+                TimeUnit.SECONDS.toMillis(timeoutInSeconds),
+                policy,
+                "The response did not satisfy the condition within " + timeoutInSeconds + " seconds!"
+        );
+    }
+
+    /**
+     * Polls a network call until its response satisfies the given condition, with the default {@link MonitorPolicy}.
+     *
+     * @param call             The network call to monitor, cloned for every attempt.
+     * @param condition        The condition the response has to satisfy.
+     * @param timeoutInSeconds The time limit (in seconds) for monitoring the call.
+     * @param <SuccessModel>   The type of the expected response model.
+     * @return A future of the first response that satisfies the condition, see {@link #monitorAsync(Call, Predicate, int, MonitorPolicy)}.
+     */
+    public static <SuccessModel> CompletableFuture<Response<SuccessModel>> monitorAsync(
+            Call<SuccessModel> call,
+            Predicate<Response<SuccessModel>> condition,
+            int timeoutInSeconds
+    ) {
+        return monitorAsync(call, condition, timeoutInSeconds, MonitorPolicy.fromContext());
+    }
+
+    /**
+     * Waits for the given monitor.
+     *
+     * @param monitor The monitor to wait for.
+     * @param strict  If true, rethrows the {@link AssertionError} of a monitor that timed out. If false, returns null instead.
+     * @return The response the monitor completed with.
+     */
+    private static <SuccessModel> Response<SuccessModel> await(
+            CompletableFuture<Response<SuccessModel>> monitor,
+            boolean strict
+    ) {
+        try {
+            return monitor.join();
+        }
+        catch (CompletionException exception) {
+            if (exception.getCause() instanceof AssertionError timeout) {
+                if (strict) throw timeout;
+                return null;
+            }
+            if (exception.getCause() instanceof RuntimeException cause) throw cause;
+            throw exception;
+        }
     }
 
     /**
@@ -228,6 +447,8 @@ public abstract class WasapiUtilities extends Caller {
      * @param printBody If true, prints the response body.
      * @param printLastCallBody If true, prints the response body of the last call.
      * @return True if the response code matches the expected code; otherwise, false.
+     * The matching response is published under the shared {@code monitorResponseCodeResponse} context key, which
+     * concurrent checks overwrite; prefer the monitors, which return their response directly.
      */
 
     public static <SuccessModel> boolean responseCodeMatch(String serviceName,
@@ -263,6 +484,8 @@ public abstract class WasapiUtilities extends Caller {
      * @param expectedValue The expected field value to match.
      * @param printLastCallBody If true, prints the response body of the last call.
      * @return True if the field value matches the expected value; otherwise, false.
+     * The matching response is published under the shared {@code monitorFieldValueResponse} context key, which
+     * concurrent checks overwrite; prefer the monitors, which return their response directly.
      */
     public static <SuccessModel> boolean fieldValueMatch(
             String serviceName,
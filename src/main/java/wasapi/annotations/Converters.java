@@ -0,0 +1,40 @@
+package wasapi.annotations;
+
+import wasapi.ConverterType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the converters a service is built with, in the order Retrofit tries them.
+ * <p>
+ * By default, services are built with the converters of the {@code converters} property. Converters set on the
+ * builder take precedence over this annotation.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     &#64;Converters({ConverterType.SCALARS, ConverterType.JACKSON})
+ *     public interface PetStoreServices {
+ *         &#64;GET("pet/{petId}")
+ *         Call&lt;Pet&gt; getPet(@Path("petId") long petId);
+ *     }
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Converters {
+
+    /**
+     * @return the converters of the service
+     */
+    ConverterType[] value();
+}
@@ -0,0 +1,38 @@
+package wasapi.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the name calls of a service method are logged and reported under.
+ * <p>
+ * By default, a call is named after the service interface and method it was created from
+ * (e.g. {@code PetStoreServices.getPet}).
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     public interface PetStoreServices {
+ *         &#64;ServiceName("Get pet by id")
+ *         &#64;GET("pet/{petId}")
+ *         Call&lt;Pet&gt; getPet(@Path("petId") long petId);
+ *     }
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ServiceName {
+
+    /**
+     * @return the service name
+     */
+    String value();
+}
@@ -0,0 +1,74 @@
+package wasapi.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A record that represents an access token and the time it expires at.
+ *
+ * @param value     the token value
+ * @param type      the authorization scheme, e.g. {@code Bearer}
+ * @param expiresAt the time the token expires at, or null if it does not expire
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public record AccessToken(String value, String type, Instant expiresAt) {
+
+    /**
+     * Creates a bearer token that does not expire.
+     *
+     * @param value the token value
+     * @return the {@link AccessToken}
+     */
+    public static AccessToken of(String value) {
+        return new AccessToken(value, "Bearer", null);
+    }
+
+    /**
+     * Creates a bearer token that expires after the given duration.
+     *
+     * @param value      the token value
+     * @param timeToLive the time the token is valid for, from now
+     * @return the {@link AccessToken}
+     */
+    public static AccessToken of(String value, Duration timeToLive) {
+        return new AccessToken(value, "Bearer", Instant.now().plus(timeToLive));
+    }
+
+    /**
+     * Returns whether the token expires within the given duration from now.
+     *
+     * @param duration the duration to check
+     * @return true if the token expires within the given duration
+     */
+    public boolean expiresWithin(Duration duration) {
+        return expiresAt != null && Instant.now().plus(duration).isAfter(expiresAt);
+    }
+
+    /**
+     * Returns whether the token has expired.
+     *
+     * @return true if the token has expired
+     */
+    public boolean isExpired() {
+        return expiresWithin(Duration.ZERO);
+    }
+
+    /**
+     * Returns the value of the {@code Authorization} header for this token.
+     *
+     * @return the authorization header value
+     */
+    public String headerValue() {
+        return type + " " + value;
+    }
+
+    /**
+     * Hides the token value, so tokens never end up in logs.
+     */
+    @Override
+    public String toString() {
+        return "AccessToken[type=" + type + ", expiresAt=" + expiresAt + "]";
+    }
+}
@@ -0,0 +1,201 @@
+package wasapi.auth;
+
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+import utils.Printer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Authorizes requests with the tokens of a {@link TokenProvider}.
+ * <p>
+ * As an {@link Interceptor}, it adds an {@code Authorization} header to every request that does not already have
+ * one. The current token is cached together with its expiry: an expired token is refreshed before the request is
+ * sent, and a token that is about to expire (within {@code refreshAhead}) is refreshed in the background while the
+ * still valid token keeps being used.
+ * </p>
+ * <p>
+ * As an {@link Authenticator}, it refreshes the token when a request it authorized is answered with {@code 401}, and
+ * replays the request with the new token. Requests that were sent with their own {@code Authorization} header are
+ * not re-authenticated, so their credentials are never replaced with a token of the provider. Refreshes are single-flight: however many calls need a new token at the same time,
+ * the provider is called once and every caller waits for that one refresh.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public final class TokenAuthenticator implements Interceptor, Authenticator {
+
+    /**
+     * The logger object for logging information.
+     */
+    private static final Printer log = new Printer(TokenAuthenticator.class);
+
+    /**
+     * Runs proactive refreshes, so they never delay a request.
+     */
+    private static final ExecutorService refresher = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "wasapi-token-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TokenProvider provider;
+    private final Duration refreshAhead;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    private volatile AccessToken current;
+    private CompletableFuture<AccessToken> refreshing;
+
+    /**
+     * @param provider     the provider new tokens are fetched from
+     * @param refreshAhead how long before expiry a token is refreshed in the background
+     */
+    public TokenAuthenticator(TokenProvider provider, Duration refreshAhead) {
+        this.provider = provider;
+        this.refreshAhead = refreshAhead;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.header("Authorization") != null) return chain.proceed(request);
+        return chain.proceed(
+                request.newBuilder()
+                        .header("Authorization", token().headerValue())
+                        .tag(TokenAuthenticator.class, this)
+                        .build()
+        );
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        if (response.request().tag(TokenAuthenticator.class) != this) return null; // Not authorized by this authenticator.
+        if (response.priorResponse() != null) return null; // The refreshed token was rejected as well.
+
+        String sent = response.request().header("Authorization");
+        AccessToken token = current;
+        if (token == null || token.headerValue().equals(sent)) {
+            log.warning("Token was rejected with response code " + response.code() + ", refreshing...");
+            token = await(refresh(token, false));
+        }
+        return response.request().newBuilder().header("Authorization", token.headerValue()).build();
+    }
+
+    /**
+     * Returns a valid token, refreshing it first if it is missing or expired, and in the background if it expires
+     * within the refresh-ahead window.
+     *
+     * @return a valid {@link AccessToken}
+     * @throws IOException if the token could not be fetched
+     */
+    public AccessToken token() throws IOException {
+        AccessToken token = current;
+        if (token == null || token.isExpired()) return await(refresh(token, false));
+        if (token.expiresWithin(refreshAhead)) refresh(token, true);
+        return token;
+    }
+
+    /**
+     * Returns the number of times a token has been fetched from the provider.
+     *
+     * @return the refresh count
+     */
+    public long refreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Discards the cached token, so the next request fetches a new one.
+     */
+    public void invalidate() {
+        current = null;
+    }
+
+    /**
+     * Replaces the given stale token, unless another caller has already replaced it.
+     * Only the first caller fetches a new token; everyone else joins the in-flight refresh.
+     *
+     * @param stale      the token the caller found to be stale
+     * @param background whether the token is fetched on the refresher thread instead of the calling thread
+     * @return a future of the new token
+     */
+    private CompletableFuture<AccessToken> refresh(AccessToken stale, boolean background) {
+        CompletableFuture<AccessToken> flight;
+        lock.lock();
+        try {
+            if (current != stale && current != null) return CompletableFuture.completedFuture(current);
+            if (refreshing != null) return refreshing;
+            flight = refreshing = new CompletableFuture<>();
+        }
+        finally {
+            lock.unlock();
+        }
+        if (background) {
+            flight.whenComplete((token, failure) -> {
+                if (failure != null) log.warning("Background token refresh failed: " + failure);
+            });
+            refresher.execute(() -> fetch(flight));
+        }
+        else fetch(flight);
+        return flight;
+    }
+
+    /**
+     * Fetches a new token from the provider and completes the in-flight refresh with it.
+     */
+    private void fetch(CompletableFuture<AccessToken> flight) {
+        try {
+            AccessToken token = provider.fetchToken();
+            refreshCount.incrementAndGet();
+            lock.lock();
+            try {
+                current = token;
+                refreshing = null;
+            }
+            finally {
+                lock.unlock();
+            }
+            flight.complete(token);
+        }
+        catch (IOException | RuntimeException exception) {
+            lock.lock();
+            try {
+                refreshing = null;
+            }
+            finally {
+                lock.unlock();
+            }
+            flight.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Waits for the given refresh and rethrows its failure as an {@link IOException}.
+     */
+    private static AccessToken await(CompletableFuture<AccessToken> flight) throws IOException {
+        try {
+            return flight.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a token refresh");
+        }
+        catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException cause) throw cause;
+            throw new IOException("Could not refresh the access token", exception.getCause());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package wasapi.auth;
+
+import java.io.IOException;
+
+/**
+ * Supplies the access tokens {@link TokenAuthenticator} authorizes requests with.
+ * <p>
+ * Implementations fetch a new token every time they are called (e.g. by calling an OAuth token endpoint); caching,
+ * proactive refresh and single-flight refresh are handled by {@link TokenAuthenticator}.
+ * </p>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ *     MyApi api = new WasapiClient.Builder()
+ *         .tokenProvider(() -&gt; AccessToken.of(signIn().getJwtToken(), Duration.ofMinutes(15)))
+ *         .build(MyApi.class);
+ * </pre>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+@FunctionalInterface
+public interface TokenProvider {
+
+    /**
+     * Fetches a new access token.
+     *
+     * @return the new {@link AccessToken}
+     * @throws IOException if the token could not be fetched
+     */
+    AccessToken fetchToken() throws IOException;
+}
@@ -0,0 +1,49 @@
+package wasapi.collections;
+
+import retrofit2.Response;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A record that represents the outcome of a batch of calls, in the order the calls were given.
+ *
+ * @param responses     a response and its error body per call, in input order; null for calls that failed or were never started
+ * @param failures      failures of calls that did not produce a response, keyed by the index of the call
+ * @param elapsed       wall clock time of the whole batch
+ * @param totalCallTime the sum of the durations of every completed call
+ * @param maxCallTime   the duration of the slowest call
+ * @param <SuccessModel> the type of the successful response bodies
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public record BatchResult<SuccessModel>(
+        List<ResponsePair<Response<SuccessModel>, Object>> responses,
+        Map<Integer, Throwable> failures,
+        Duration elapsed,
+        Duration totalCallTime,
+        Duration maxCallTime
+) {
+
+    /**
+     * Returns whether every call completed with a successful response.
+     *
+     * @return true if there are no failures and every response is successful
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty() && responses.stream().allMatch(pair -> pair != null && pair.response().isSuccessful());
+    }
+
+    /**
+     * Returns the average duration of the completed calls.
+     *
+     * @return the average call duration, or zero if no call completed
+     */
+    public Duration averageCallTime() {
+        long completed = responses.stream().filter(Objects::nonNull).count() + failures.size();
+        return completed == 0 ? Duration.ZERO : totalCallTime.dividedBy(completed);
+    }
+}
@@ -0,0 +1,39 @@
+package wasapi.exceptions;
+
+import java.io.IOException;
+
+/**
+ * This class represents an exception that is thrown when a request fails fast because the circuit breaker of its
+ * host is open.
+ * <p>
+ * It is an {@link IOException}, as it is thrown by an OkHttp interceptor: calls executed with raw Retrofit fail with
+ * it directly, calls performed through {@code wasapi.Caller} fail with a {@link FailedCallException} caused by it.
+ * </p>
+ *
+ * @author Umut Ay Bora
+ * @version 0.0.3
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    /**
+     * The host whose circuit breaker is open.
+     */
+    private final String host;
+
+    /**
+     * Constructs a CircuitBreakerOpenException for the specified host.
+     * @param host The host whose circuit breaker is open.
+     * @param errorMessage The error message to be associated with this exception.
+     */
+    public CircuitBreakerOpenException(String host, String errorMessage) {
+        super(errorMessage);
+        this.host = host;
+    }
+
+    /**
+     * @return the host whose circuit breaker is open
+     */
+    public String getHost() {
+        return host;
+    }
+}
@@ -15,4 +15,11 @@ public class FailedCallException extends RuntimeException {
     public FailedCallException(String errorMessage) {super(errorMessage);}
 
     public FailedCallException(RuntimeException errorMessage) {super(errorMessage);}
+
+    /**
+     * Constructs a FailedCallException with the specified detail message and cause.
+     * @param errorMessage The detail message.
+     * @param cause The failure that caused the call to fail.
+     */
+    public FailedCallException(String errorMessage, Throwable cause) {super(errorMessage, cause);}
 }
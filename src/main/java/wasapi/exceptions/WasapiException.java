@@ -15,4 +15,11 @@ public class WasapiException extends RuntimeException {
     public WasapiException(String errorMessage) {super(errorMessage);}
 
     public WasapiException(RuntimeException errorMessage) {super(errorMessage);}
+
+    /**
+     * Constructs a WasapiException with the specified error message and cause.
+     * @param errorMessage The error message to be associated with this exception.
+     * @param cause The exception that caused this exception.
+     */
+    public WasapiException(String errorMessage, Throwable cause) {super(errorMessage, cause);}
 }
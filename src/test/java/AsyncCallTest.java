@@ -0,0 +1,114 @@
+import models.ItemModel;
+import models.SimpleMessageResponseModel;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.*;
+import retrofit2.Call;
+import retrofit2.Response;
+import utils.*;
+import wasapi.collections.ResponsePair;
+import wasapi.exceptions.FailedCallException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncCallTest {
+
+    static Printer log = new Printer(AsyncCallTest.class);
+
+    static final int MISSING = 404;
+    static final int BROKEN = 500;
+    static final int DISCONNECTED = 13;
+    static final int SLOW = 99;
+
+    MockWebServer server;
+    ItemStore itemStore;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int id = Integer.parseInt(request.getRequestUrl().pathSegments().get(1));
+                return switch (id) {
+                    case MISSING -> ConcurrencyTest.json(404, "{\"message\":\"No such item\"}");
+                    case BROKEN -> ConcurrencyTest.json(500, "{\"message\":\"Broken\"}");
+                    case DISCONNECTED -> new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+                    case SLOW -> ConcurrencyTest.json(200, "{\"id\":99}").setHeadersDelay(5, TimeUnit.SECONDS);
+                    default -> ConcurrencyTest.json(200, "{\"id\":" + id + "}");
+                };
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void completionTest() throws Exception {
+        ItemModel item = itemStore.<ItemModel>getItemAsync(getItem(1), SimpleMessageResponseModel.class).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, item.getId());
+
+        SimpleMessageResponseModel error = itemStore.<SimpleMessageResponseModel>getItemAsync(getItem(MISSING), SimpleMessageResponseModel.class)
+                .get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("The error body was not parsed into the error model!", "No such item", error.getMessage());
+
+        Response<ItemModel> response = itemStore.getItemResponseAsync(getItem(2), false).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(2, response.body().getId());
+
+        ResponsePair<Response<ItemModel>, SimpleMessageResponseModel> pair = itemStore.<SimpleMessageResponseModel>getItemResponseAsync(
+                getItem(MISSING),
+                SimpleMessageResponseModel.class
+        ).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(404, pair.response().code());
+        Assert.assertEquals("No such item", pair.errorBody().getMessage());
+        log.success("completionTest PASSED!");
+    }
+
+    @Test
+    public void failureMappingTest() throws Exception {
+        Response<ItemModel> lenient = itemStore.getItemResponseAsync(getItem(BROKEN), false).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(500, lenient.code());
+
+        ExecutionException strict = Assert.assertThrows(
+                ExecutionException.class,
+                () -> itemStore.getItemResponseAsync(getItem(BROKEN), true).get(5, TimeUnit.SECONDS)
+        );
+        Assert.assertTrue("An unsuccessful strict call did not fail!", strict.getCause() instanceof FailedCallException);
+        Assert.assertTrue(strict.getCause().getMessage().contains("returned response code 500"));
+
+        ExecutionException disconnected = Assert.assertThrows(
+                ExecutionException.class,
+                () -> itemStore.getItemResponseAsync(getItem(DISCONNECTED), false).get(5, TimeUnit.SECONDS)
+        );
+        Assert.assertTrue(disconnected.getCause() instanceof FailedCallException);
+        Assert.assertTrue("The failure of the call was not kept as the cause!", disconnected.getCause().getCause() instanceof IOException);
+        log.success("failureMappingTest PASSED!");
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        Call<ItemModel> call = getItem(SLOW);
+        CompletableFuture<Response<ItemModel>> future = itemStore.getItemResponseAsync(call, false);
+        Thread.sleep(100);
+
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue("Cancelling the future did not cancel the call!", call.isCanceled());
+        Assert.assertTrue(future.isCancelled());
+        log.success("cancelTest PASSED!");
+    }
+
+    Call<ItemModel> getItem(int id) {
+        return itemStore.itemStoreServices.getItem(id);
+    }
+}
@@ -0,0 +1,108 @@
+import models.ItemModel;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Call;
+import utils.*;
+import wasapi.WasapiUtilities;
+import wasapi.collections.BatchResult;
+import wasapi.exceptions.FailedCallException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchTest {
+
+    static Printer log = new Printer(BatchTest.class);
+
+    static final int CALLS = 12;
+    static final int MAX_PER_HOST = 3;
+
+    MockWebServer server;
+    ItemStore itemStore;
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(30);
+                }
+                finally {
+                    inFlight.decrementAndGet();
+                }
+                int id = Integer.parseInt(request.getRequestUrl().pathSegments().get(1));
+                if (id == 5) return ConcurrencyTest.json(404, "{\"id\":5,\"status\":\"missing\"}");
+                return ConcurrencyTest.json(200, "{\"id\":" + id + "}");
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void collectAllTest() {
+        BatchResult<ItemModel> result = WasapiUtilities.performAll(getItemCalls(), CALLS, MAX_PER_HOST, false);
+
+        Assert.assertEquals(CALLS, result.responses().size());
+        for (int id = 0; id < CALLS; id++) {
+            Assert.assertEquals(id == 5 ? 404 : 200, result.responses().get(id).response().code());
+            if (id != 5) Assert.assertEquals("Responses are not in input order!", id, result.responses().get(id).response().body().getId());
+        }
+        Assert.assertTrue(result.failures().isEmpty());
+        Assert.assertFalse(result.isSuccessful());
+        Assert.assertEquals("The per-host limit was not used or was exceeded!", MAX_PER_HOST, maxInFlight.get());
+        log.success("collectAllTest PASSED!");
+    }
+
+    @Test
+    public void failFastTest() {
+        Assert.assertThrows(FailedCallException.class, () -> WasapiUtilities.performAll(getItemCalls(), CALLS, MAX_PER_HOST, true));
+        Assert.assertTrue("Calls were started after the batch failed!", server.getRequestCount() < CALLS);
+        log.success("failFastTest PASSED!");
+    }
+
+    @Test(timeout = 10_000)
+    public void alreadyExecutedCallTest() throws IOException {
+        List<Call<ItemModel>> calls = getItemCalls();
+        calls.get(2).execute();
+
+        BatchResult<ItemModel> result = WasapiUtilities.performAll(calls, CALLS, MAX_PER_HOST, false);
+        Assert.assertEquals(List.of(2), new ArrayList<>(result.failures().keySet()));
+        Assert.assertNull(result.responses().get(2));
+        Assert.assertEquals(200, result.responses().get(3).response().code());
+        log.success("alreadyExecutedCallTest PASSED!");
+    }
+
+    @Test(timeout = 30_000)
+    public void synchronousCompletionTest() {
+        // Every copy after the first fails as soon as it is enqueued, so each completion starts the next call
+        List<Call<ItemModel>> calls = new ArrayList<>(Collections.nCopies(10_000, itemStore.itemStoreServices.getItem(1)));
+
+        BatchResult<ItemModel> result = WasapiUtilities.performAll(calls, 1, 1, false);
+        Assert.assertEquals(200, result.responses().get(0).response().code());
+        Assert.assertEquals("Calls that completed while being started were lost!", calls.size() - 1, result.failures().size());
+        log.success("synchronousCompletionTest PASSED!");
+    }
+
+    List<Call<ItemModel>> getItemCalls() {
+        List<Call<ItemModel>> calls = new ArrayList<>();
+        for (int id = 0; id < CALLS; id++) calls.add(itemStore.itemStoreServices.getItem(id));
+        return calls;
+    }
+}
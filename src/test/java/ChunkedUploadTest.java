@@ -0,0 +1,127 @@
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import utils.*;
+import wasapi.ChunkedUpload;
+import wasapi.exceptions.FailedCallException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChunkedUploadTest {
+
+    static Printer log = new Printer(ChunkedUploadTest.class);
+
+    static final int chunkSize = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    MockWebServer server;
+    ItemStore itemStore;
+    Map<Integer, byte[]> received = new ConcurrentHashMap<>();
+    Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    volatile int rejectedChunk = -1;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int index = Integer.parseInt(request.getRequestUrl().pathSegments().get(3));
+                int attempt = attempts.computeIfAbsent(index, key -> new AtomicInteger()).incrementAndGet();
+                if (index == rejectedChunk) return new MockResponse().setResponseCode(400);
+                if (index == 1 && attempt == 1) return new MockResponse().setResponseCode(503);
+                received.put(index, request.getBody().readByteArray());
+                return new MockResponse().setResponseCode(204);
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void resumeUploadTest() throws IOException {
+        byte[] content = new byte[10 * chunkSize + 123];
+        new Random(7).nextBytes(content);
+        File file = folder.newFile("attachment.bin");
+        Files.write(file.toPath(), content);
+        File journal = new File(folder.getRoot(), "attachment.bin.upload");
+
+        rejectedChunk = 6;
+        Assert.assertThrows(FailedCallException.class, () -> itemStore.uploadAttachment("1", file, journal, chunkSize));
+        Assert.assertEquals("The chunk rejected with 400 was retried!", 1, attempts.get(6).get());
+        Assert.assertEquals("The chunk answered with 503 was not retried!", 2, attempts.get(1).get());
+
+        rejectedChunk = -1;
+        int acknowledged = received.size();
+        ChunkedUpload.Result result = itemStore.uploadAttachment("1", file, journal, chunkSize);
+        Assert.assertEquals(11, result.chunks());
+        Assert.assertEquals("Acknowledged chunks were sent again!", 11 - acknowledged, result.chunksSent());
+        for (int index = 0; index < 11; index++)
+            Assert.assertEquals("Chunk " + index + " was sent more than once!", index == 1 || index == 6 ? 2 : 1, attempts.get(index).get());
+
+        byte[] uploaded = new byte[content.length];
+        received.forEach((index, bytes) -> System.arraycopy(bytes, 0, uploaded, index * chunkSize, bytes.length));
+        Assert.assertArrayEquals(content, uploaded);
+        log.success("resumeUploadTest PASSED!");
+    }
+
+    @Test
+    public void tornJournalTest() throws IOException {
+        File file = newAttachment();
+        File journal = new File(folder.getRoot(), "attachment.bin.upload");
+
+        rejectedChunk = 6;
+        Assert.assertThrows(FailedCallException.class, () -> itemStore.uploadAttachment("1", file, journal, chunkSize));
+        Files.write(journal.toPath(), "1x".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        rejectedChunk = -1;
+        int acknowledged = received.size();
+        ChunkedUpload.Result result = itemStore.uploadAttachment("1", file, journal, chunkSize);
+        Assert.assertEquals("Acknowledged chunks were sent again!", 11 - acknowledged, result.chunksSent());
+        List<String> lines = Files.readAllLines(journal.toPath());
+        for (String line : lines.subList(1, lines.size()))
+            Assert.assertTrue("The torn line was not cut off: " + line, line.matches("\\d+"));
+        log.success("tornJournalTest PASSED!");
+    }
+
+    @Test
+    public void otherSessionTest() throws IOException {
+        File file = newAttachment();
+        File journal = new File(folder.getRoot(), "attachment.bin.upload");
+
+        rejectedChunk = 6;
+        Assert.assertThrows(FailedCallException.class, () -> itemStore.uploadAttachment("1", file, journal, chunkSize));
+
+        rejectedChunk = -1;
+        ChunkedUpload.Result result = itemStore.uploadAttachment("2", file, journal, chunkSize);
+        Assert.assertEquals("Chunks acknowledged in another session were skipped!", 11, result.chunksSent());
+        log.success("otherSessionTest PASSED!");
+    }
+
+    File newAttachment() throws IOException {
+        byte[] content = new byte[10 * chunkSize + 123];
+        new Random(7).nextBytes(content);
+        File file = folder.newFile("attachment.bin");
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
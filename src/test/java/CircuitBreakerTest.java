@@ -0,0 +1,134 @@
+import models.ItemModel;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Call;
+import utils.*;
+import wasapi.CircuitBreaker;
+import wasapi.ConcurrencyLimiter;
+import wasapi.WasapiClient;
+import wasapi.exceptions.CircuitBreakerOpenException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerTest {
+
+    static Printer log = new Printer(CircuitBreakerTest.class);
+
+    static final int SLOW_ID = 99;
+
+    MockWebServer server;
+    volatile int responseCode = 500;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int id = Integer.parseInt(request.getRequestUrl().pathSegments().get(1));
+                if (id == SLOW_ID) return ConcurrencyTest.json(200, "{\"id\":" + id + "}").setHeadersDelay(1, TimeUnit.SECONDS);
+                return ConcurrencyTest.json(responseCode, "{\"id\":" + id + "}");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+        CircuitBreaker.reset();
+        ConcurrencyLimiter.reset();
+    }
+
+    @Test
+    public void stateTransitionTest() throws IOException, InterruptedException {
+        ItemStore itemStore = itemStore(new WasapiClient.Builder().circuitBreaker(breakerConfig(1)));
+
+        for (int id = 0; id < 4; id++) itemStore.itemStoreServices.getItem(id).execute();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breakerStats().state());
+        Assert.assertThrows(CircuitBreakerOpenException.class, () -> itemStore.itemStoreServices.getItem(4).execute());
+        Assert.assertEquals(4, server.getRequestCount());
+        Assert.assertEquals(1, breakerStats().rejected());
+
+        Thread.sleep(250);
+        itemStore.itemStoreServices.getItem(5).execute();
+        Assert.assertEquals("A failed trial request did not open the breaker again!", CircuitBreaker.State.OPEN, breakerStats().state());
+
+        responseCode = 200;
+        Thread.sleep(250);
+        itemStore.itemStoreServices.getItem(6).execute();
+        Assert.assertEquals("A successful trial request did not close the breaker!", CircuitBreaker.State.CLOSED, breakerStats().state());
+        Assert.assertEquals(0, breakerStats().calls());
+        log.success("stateTransitionTest PASSED!");
+    }
+
+    @Test
+    public void staleOutcomeTest() throws Exception {
+        ItemStore itemStore = itemStore(new WasapiClient.Builder().circuitBreaker(breakerConfig(2)));
+
+        Call<ItemModel> slowCall = itemStore.itemStoreServices.getItem(SLOW_ID);
+        CompletableFuture<Integer> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return slowCall.execute().code();
+            }
+            catch (IOException exception) {
+                throw new RuntimeException(exception);
+            }
+        });
+        Thread.sleep(100);
+        for (int id = 0; id < 4; id++) itemStore.itemStoreServices.getItem(id).execute();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breakerStats().state());
+
+        responseCode = 200;
+        Thread.sleep(250);
+        itemStore.itemStoreServices.getItem(4).execute();
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breakerStats().state());
+
+        Assert.assertEquals(200, (int) slow.get());
+        Assert.assertEquals("A request sent before the breaker opened counted as a trial request!", CircuitBreaker.State.HALF_OPEN, breakerStats().state());
+        log.success("staleOutcomeTest PASSED!");
+    }
+
+    @Test
+    public void aimdLimitTest() throws IOException {
+        ConcurrencyLimiter.Config config = new ConcurrencyLimiter.Config(
+                4, 1, 10, 0.5, 1000, Duration.ofMinutes(1), Duration.ofSeconds(1)
+        );
+        ItemStore itemStore = itemStore(new WasapiClient.Builder().concurrencyLimit(config));
+
+        responseCode = 429;
+        for (int id = 0; id < 3; id++) itemStore.itemStoreServices.getItem(id).execute();
+        Assert.assertEquals("429 responses did not lower the limit multiplicatively!", 1, limiterStats().limit());
+
+        responseCode = 200;
+        for (int id = 0; id < 5; id++) itemStore.itemStoreServices.getItem(id).execute();
+        Assert.assertEquals("Fast responses did not raise the limit additively while it was in use!", 2, limiterStats().limit());
+        Assert.assertEquals(0, limiterStats().inFlight());
+        log.success("aimdLimitTest PASSED!");
+    }
+
+    static CircuitBreaker.Config breakerConfig(int halfOpenCalls) {
+        return new CircuitBreaker.Config(4, 4, 0.5, Duration.ofMillis(200), halfOpenCalls);
+    }
+
+    CircuitBreaker.Stats breakerStats() {
+        return CircuitBreaker.stats(server.getHostName() + ":" + server.getPort());
+    }
+
+    ConcurrencyLimiter.Stats limiterStats() {
+        return ConcurrencyLimiter.stats().stream()
+                .filter(stats -> stats.host().equals(server.getHostName() + ":" + server.getPort()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    ItemStore itemStore(WasapiClient.Builder builder) {
+        return new ItemStore(builder.baseUrl(server.url("/").toString()));
+    }
+}
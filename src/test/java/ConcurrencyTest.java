@@ -0,0 +1,215 @@
+import context.ContextStore;
+import models.ItemModel;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import utils.*;
+import wasapi.Caller;
+import wasapi.HttpClientRegistry;
+import wasapi.HttpProtocol;
+import wasapi.WasapiClient;
+import wasapi.WasapiUtilities;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrencyTest {
+
+    static Printer log = new Printer(ConcurrencyTest.class);
+
+    static final int THREADS = 32;
+    static final int CALLS_PER_THREAD = 10;
+    static final int SLOW_JOB = 999;
+
+    MockWebServer server;
+    ItemStore itemStore;
+    Map<Integer, AtomicInteger> jobPolls = new ConcurrentHashMap<>();
+
+    @Before
+    public void before() throws IOException {
+        ContextStore.put("monitor-initial-delay", "10");
+        ContextStore.put("monitor-max-delay", "50");
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String[] path = request.getRequestUrl().encodedPath().split("/");
+                int id = Integer.parseInt(path[2]);
+                if (path[1].equals("jobs") && id == SLOW_JOB)
+                    return json(202, "{\"id\":" + id + ",\"status\":\"running\"}").setHeadersDelay(5, TimeUnit.SECONDS);
+                if (path[1].equals("jobs")) {
+                    // Job n is done on its (n % 4 + 1)th poll
+                    int polls = jobPolls.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+                    if (polls <= id % 4)
+                        return json(202, "{\"id\":" + id + ",\"status\":\"running\"}");
+                    return json(200, "{\"id\":" + id + ",\"status\":\"done\"}");
+                }
+                return json(200, "{\"id\":" + id + "}");
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void parallelPerformTest() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread * CALLS_PER_THREAD;
+            results.add(threads.submit(() -> {
+                ItemStore store = new ItemStore(server.url("/").toString());
+                start.await();
+                for (int id = offset; id < offset + CALLS_PER_THREAD; id++)
+                    if (store.getItem(id).getId() != id) return false;
+                return true;
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results)
+            Assert.assertTrue("A call returned the response of another call!", result.get(30, TimeUnit.SECONDS));
+        threads.shutdown();
+        Assert.assertEquals(THREADS * CALLS_PER_THREAD, server.getRequestCount());
+        log.success("parallelPerformTest PASSED!");
+    }
+
+    @Test
+    public void parallelMonitorTest() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        Map<Integer, Future<Response<ItemModel>>> monitors = new ConcurrentHashMap<>();
+        for (int id = 0; id < THREADS; id++) {
+            int jobId = id;
+            monitors.put(jobId, threads.submit(() ->
+                    jobId % 2 == 0 ? itemStore.awaitJob(jobId, 10) : itemStore.awaitJobStatus(jobId, 10)
+            ));
+        }
+        for (Map.Entry<Integer, Future<Response<ItemModel>>> monitor : monitors.entrySet()) {
+            ItemModel job = monitor.getValue().get(30, TimeUnit.SECONDS).body();
+            Assert.assertNotNull(job);
+            Assert.assertEquals("A monitor returned the response of another monitor!", (int) monitor.getKey(), job.getId());
+            Assert.assertEquals("done", job.getStatus());
+        }
+        threads.shutdown();
+        log.success("parallelMonitorTest PASSED!");
+    }
+
+    @Test
+    public void monitorDeadlineTest() throws Exception {
+        CompletableFuture<Response<ItemModel>> monitor = WasapiUtilities.monitorAsync(
+                itemStore.itemStoreServices.getJob(SLOW_JOB),
+                response -> response.code() == 200,
+                1
+        );
+        long start = System.nanoTime();
+        ExecutionException exception = Assert.assertThrows(ExecutionException.class, () -> monitor.get(3, TimeUnit.SECONDS));
+        Assert.assertTrue(exception.getCause() instanceof AssertionError);
+        Assert.assertTrue(
+                "The monitor waited for an attempt in flight past its timeout!",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000
+        );
+        log.success("monitorDeadlineTest PASSED!");
+    }
+
+    @Test
+    public void callerConstructionTest() throws Exception {
+        boolean keepsLogs = Caller.keepsLogs();
+        try {
+            Caller.keepLogs(!keepsLogs);
+            ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+            List<Future<ItemStore>> stores = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++)
+                stores.add(threads.submit(() -> new ItemStore(server.url("/").toString())));
+            for (Future<ItemStore> store : stores) store.get(30, TimeUnit.SECONDS);
+            threads.shutdown();
+            Assert.assertEquals("Constructing a caller reset the logging configuration!", !keepsLogs, Caller.keepsLogs());
+        }
+        finally {
+            Caller.keepLogs(keepsLogs);
+        }
+        log.success("callerConstructionTest PASSED!");
+    }
+
+    @Test
+    public void h2cMultiplexingTest() throws Exception {
+        MockWebServer h2cServer = new MockWebServer();
+        h2cServer.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        h2cServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                }
+                finally {
+                    inFlight.decrementAndGet();
+                }
+                return json(200, "{\"id\":1}");
+            }
+        });
+        h2cServer.start();
+        try {
+            ItemStore.ItemStoreServices services = new WasapiClient.Builder()
+                    .baseUrl(h2cServer.url("/").toString())
+                    .protocol(HttpProtocol.H2C)
+                    .maxRequests(THREADS, THREADS)
+                    .build(ItemStore.ItemStoreServices.class);
+            Assert.assertEquals(200, services.getItem(1).execute().code());
+
+            List<CompletableFuture<Response<ItemModel>>> responses = new ArrayList<>();
+            for (int call = 0; call < THREADS; call++) {
+                CompletableFuture<Response<ItemModel>> response = new CompletableFuture<>();
+                services.getItem(1).enqueue(new Callback<>() {
+                    @Override
+                    public void onResponse(Call<ItemModel> call, Response<ItemModel> result) {
+                        response.complete(result);
+                    }
+
+                    @Override
+                    public void onFailure(Call<ItemModel> call, Throwable throwable) {
+                        response.completeExceptionally(throwable);
+                    }
+                });
+                responses.add(response);
+            }
+            for (CompletableFuture<Response<ItemModel>> response : responses)
+                Assert.assertEquals(Protocol.H2_PRIOR_KNOWLEDGE, response.get(30, TimeUnit.SECONDS).raw().protocol());
+            Assert.assertTrue(
+                    "The dispatcher did not run more calls at once than its default per-host limit!",
+                    maxInFlight.get() > 5
+            );
+
+            for (HttpClientRegistry.ClientStats stats : HttpClientRegistry.stats())
+                if (stats.key().protocol() == HttpProtocol.H2C)
+                    Assert.assertEquals("Concurrent calls were not multiplexed!", 1, stats.connectionCount());
+        }
+        finally {
+            h2cServer.shutdown();
+        }
+        log.success("h2cMultiplexingTest PASSED!");
+    }
+
+    static MockResponse json(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+}
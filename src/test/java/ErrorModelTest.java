@@ -0,0 +1,117 @@
+import models.ItemModel;
+import models.SimpleMessageResponseModel;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Response;
+import utils.*;
+import wasapi.ErrorDiscriminator;
+import wasapi.collections.ResponsePair;
+import wasapi.exceptions.WasapiException;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class ErrorModelTest {
+
+    static Printer log = new Printer(ErrorModelTest.class);
+
+    static final int MESSAGE = 1;
+    static final int MISSING_ITEM = 2;
+    static final int NOT_JSON = 3;
+    static final int WRONG_TYPE = 4;
+
+    MockWebServer server;
+    ItemStore itemStore;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int id = Integer.parseInt(request.getRequestUrl().pathSegments().get(1));
+                return switch (id) {
+                    case MESSAGE -> ConcurrencyTest.json(500, "{\"message\":\"Something went wrong\"}");
+                    case MISSING_ITEM -> ConcurrencyTest.json(404, "{\"id\":2,\"status\":\"missing\"}");
+                    case NOT_JSON -> new MockResponse().setResponseCode(502).setBody("Bad Gateway");
+                    case WRONG_TYPE -> ConcurrencyTest.json(400, "{\"id\":\"two\"}");
+                    default -> ConcurrencyTest.json(200, "{\"id\":" + id + "}");
+                };
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void errorModelsTest() throws IOException {
+        ResponsePair<Response<ItemModel>, SimpleMessageResponseModel> message =
+                itemStore.getItemResponse(MESSAGE, null, SimpleMessageResponseModel.class);
+        Assert.assertEquals("Something went wrong", message.errorBody().getMessage());
+
+        ResponsePair<Response<ItemModel>, String> text = itemStore.getItemResponse(NOT_JSON, null, SimpleMessageResponseModel.class, String.class);
+        Assert.assertEquals("The next error model was not tried!", "Bad Gateway", text.errorBody());
+
+        ResponsePair<Response<ItemModel>, ResponseBody> body = itemStore.getItemResponse(NOT_JSON, null, ResponseBody.class);
+        Assert.assertEquals("Bad Gateway", body.errorBody().string());
+
+        ResponsePair<Response<ItemModel>, Object> success = itemStore.getItemResponse(7, null, SimpleMessageResponseModel.class);
+        Assert.assertEquals(7, success.response().body().getId());
+        Assert.assertNull(success.errorBody());
+        log.success("errorModelsTest PASSED!");
+    }
+
+    @Test
+    public void mismatchTest() {
+        WasapiException notJson = Assert.assertThrows(
+                WasapiException.class,
+                () -> itemStore.getItemResponse(NOT_JSON, null, SimpleMessageResponseModel.class)
+        );
+        Assert.assertTrue(notJson.getMessage().startsWith("Error model(s) did not match the error body!"));
+        Assert.assertTrue(notJson.getMessage().contains("SimpleMessageResponseModel: the error body is not valid JSON"));
+
+        WasapiException wrongType = Assert.assertThrows(
+                WasapiException.class,
+                () -> itemStore.getItemResponse(WRONG_TYPE, null, ItemModel.class)
+        );
+        Assert.assertTrue("The mismatch of a model was not explained!", wrongType.getMessage().contains("\nItemModel: "));
+        log.success("mismatchTest PASSED!");
+    }
+
+    @Test
+    public void byStatusTest() {
+        ErrorDiscriminator discriminator = ErrorDiscriminator.byStatus(Map.of(500, SimpleMessageResponseModel.class));
+
+        ResponsePair<Response<ItemModel>, Object> selected = itemStore.getItemResponse(MESSAGE, discriminator, String.class);
+        Assert.assertTrue("The model of the status code was not tried first!", selected.errorBody() instanceof SimpleMessageResponseModel);
+
+        ResponsePair<Response<ItemModel>, Object> unselected = itemStore.getItemResponse(NOT_JSON, discriminator, String.class);
+        Assert.assertEquals("Bad Gateway", unselected.errorBody());
+        log.success("byStatusTest PASSED!");
+    }
+
+    @Test
+    public void byFieldTest() {
+        ErrorDiscriminator discriminator = ErrorDiscriminator.byField("status", Map.of("missing", ItemModel.class));
+
+        ResponsePair<Response<ItemModel>, Object> selected = itemStore.getItemResponse(MISSING_ITEM, discriminator, String.class);
+        Assert.assertTrue("The model of the field value was not tried first!", selected.errorBody() instanceof ItemModel);
+        Assert.assertEquals(2, ((ItemModel) selected.errorBody()).getId());
+
+        ResponsePair<Response<ItemModel>, Object> noField = itemStore.getItemResponse(MESSAGE, discriminator, String.class);
+        Assert.assertEquals("{\"message\":\"Something went wrong\"}", noField.errorBody());
+
+        ResponsePair<Response<ItemModel>, Object> notJson = itemStore.getItemResponse(NOT_JSON, discriminator, String.class);
+        Assert.assertEquals("Bad Gateway", notJson.errorBody());
+        log.success("byFieldTest PASSED!");
+    }
+}
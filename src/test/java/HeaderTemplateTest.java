@@ -0,0 +1,78 @@
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.junit.*;
+import utils.*;
+import wasapi.HeaderTemplate;
+
+import java.io.IOException;
+
+public class HeaderTemplateTest {
+
+    static Printer log = new Printer(HeaderTemplateTest.class);
+
+    static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    HeaderTemplate template = HeaderTemplate.of(new Headers.Builder()
+            .add("Accept", "application/json")
+            .add("X-Caller", "first")
+            .add("X-Caller", "second")
+            .build());
+
+    @Test
+    public void defaultHeadersTest() throws IOException {
+        Request request = template.apply(new Request.Builder()
+                .url("http://example.com/items")
+                .header("Accept", "text/plain")
+                .build());
+
+        Assert.assertEquals(2, template.size());
+        Assert.assertEquals("example.com", request.header("Host"));
+        Assert.assertEquals("A header of the request was overridden!", "text/plain", request.header("Accept"));
+        Assert.assertEquals("second", request.header("X-Caller"));
+        Assert.assertSame("A prepared request was rebuilt!", request, template.apply(request));
+        log.success("defaultHeadersTest PASSED!");
+    }
+
+    @Test
+    public void knownLengthTest() throws IOException {
+        Request request = template.apply(post(RequestBody.create("{\"id\":1}", JSON)));
+        Assert.assertEquals("8", request.header("Content-Length"));
+        Assert.assertEquals("application/json; charset=utf-8", request.header("Content-Type"));
+        log.success("knownLengthTest PASSED!");
+    }
+
+    @Test
+    public void zeroLengthTest() throws IOException {
+        Request request = template.apply(post(RequestBody.create(new byte[0], JSON)));
+        Assert.assertNull(request.header("Content-Length"));
+        Assert.assertNull(request.header("Content-Type"));
+        log.success("zeroLengthTest PASSED!");
+    }
+
+    @Test
+    public void unknownLengthTest() throws IOException {
+        RequestBody streamed = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                sink.writeUtf8("[]");
+            }
+        };
+        Request request = template.apply(post(streamed));
+        Assert.assertEquals(-1, streamed.contentLength());
+        Assert.assertNull("A body of unknown length was given a Content-Length!", request.header("Content-Length"));
+        Assert.assertNull(request.header("Content-Type"));
+        log.success("unknownLengthTest PASSED!");
+    }
+
+    static Request post(RequestBody body) {
+        return new Request.Builder().url("http://example.com/items").post(body).build();
+    }
+}
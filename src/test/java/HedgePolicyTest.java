@@ -0,0 +1,104 @@
+import models.ItemModel;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Response;
+import utils.*;
+import wasapi.HedgePolicy;
+import wasapi.HttpClientRegistry;
+import wasapi.RetryPolicy;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgePolicyTest {
+
+    static Printer log = new Printer(HedgePolicyTest.class);
+
+    static final int READ_TIMEOUT = 17; // Tells the shared client of these tests apart from the others
+
+    MockWebServer server;
+    Map<Integer, AtomicInteger> requests = new ConcurrentHashMap<>();
+    ItemStore itemStore;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int id = Integer.parseInt(request.getRequestUrl().pathSegments().get(1));
+                // The first request for an item is slow, its hedge is fast
+                boolean first = requests.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet() == 1;
+                MockResponse response = ConcurrencyTest.json(200, "{\"id\":" + id + ",\"status\":\"" + (first ? "slow" : "fast") + "\"}");
+                return first ? response.setHeadersDelay(400, TimeUnit.MILLISECONDS) : response;
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(new WasapiClient.Builder()
+                .baseUrl(server.url("/").toString())
+                .readTimeout(READ_TIMEOUT));
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void firstResponseWinsTest() throws InterruptedException {
+        HedgePolicy policy = HedgePolicy.fixed(Duration.ofMillis(50), 1);
+
+        long start = System.nanoTime();
+        Response<ItemModel> response = getItem(1, policy);
+        Assert.assertEquals("The slow response won the race!", "fast", response.body().getStatus());
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 400);
+        Assert.assertEquals(2, server.getRequestCount());
+
+        HedgePolicy.Stats stats = policy.stats();
+        Assert.assertEquals(1, stats.calls());
+        Assert.assertEquals(1, stats.hedges());
+        Assert.assertEquals(1, stats.hedgesWon());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        while (runningCalls() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+        Assert.assertEquals("The call that lost the race was not cancelled!", 0, runningCalls());
+        log.success("firstResponseWinsTest PASSED!");
+    }
+
+    @Test
+    public void maxHedgeRatioTest() {
+        HedgePolicy policy = HedgePolicy.fixed(Duration.ofMillis(50), 0.5);
+
+        for (int id = 1; id <= 4; id++) {
+            Response<ItemModel> response = getItem(id, policy);
+            Assert.assertEquals(id % 2 == 0 ? "fast" : "slow", response.body().getStatus());
+        }
+
+        HedgePolicy.Stats stats = policy.stats();
+        Assert.assertEquals(4, stats.calls());
+        Assert.assertEquals("More calls were hedged than the ratio allows!", 2, stats.hedges());
+        Assert.assertEquals(2, stats.hedgesWon());
+        Assert.assertEquals(0.5, stats.hedgeRate(), 0.0);
+        Assert.assertEquals(6, server.getRequestCount());
+        log.success("maxHedgeRatioTest PASSED!");
+    }
+
+    Response<ItemModel> getItem(int id, HedgePolicy policy) {
+        return itemStore.getItemResponse(id, RetryPolicy.getDefault().withMaxRetries(0), policy);
+    }
+
+    int runningCalls() {
+        return HttpClientRegistry.stats().stream()
+                .filter(stats -> stats.key().readTimeout() == READ_TIMEOUT)
+                .mapToInt(HttpClientRegistry.ClientStats::runningCalls)
+                .sum();
+    }
+}
@@ -0,0 +1,126 @@
+import models.ItemModel;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.http.*;
+import wasapi.ChunkedUpload;
+import wasapi.ErrorDiscriminator;
+import wasapi.HedgePolicy;
+import wasapi.JsonStream;
+import wasapi.RangedDownload;
+import wasapi.RetryPolicy;
+import wasapi.WasapiClient;
+import wasapi.WasapiUtilities;
+import wasapi.collections.ResponsePair;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+public class ItemStore extends WasapiUtilities {
+
+    ItemStoreServices itemStoreServices;
+
+    public ItemStore(String baseUrl){
+        itemStoreServices = new WasapiClient.Builder()
+                .baseUrl(baseUrl)
+                .build(ItemStoreServices.class);
+    }
+
+    public ItemStore(WasapiClient.Builder builder){
+        itemStoreServices = builder.build(ItemStoreServices.class);
+    }
+
+    public Response<ItemModel> getItemResponse(int id, RetryPolicy retryPolicy, HedgePolicy hedgePolicy){
+        Call<ItemModel> getItemCall = itemStoreServices.getItem(id);
+        return getResponse(getItemCall, false, false, retryPolicy, hedgePolicy);
+    }
+
+    public <ErrorModel> ResponsePair<Response<ItemModel>, ErrorModel> getItemResponse(
+            int id,
+            ErrorDiscriminator discriminator,
+            Class<?>... errorModels){
+        Call<ItemModel> getItemCall = itemStoreServices.getItem(id);
+        return getResponse(getItemCall, false, false, discriminator, errorModels);
+    }
+
+    public <ReturnType> CompletableFuture<ReturnType> getItemAsync(Call<ItemModel> getItemCall, Class<?>... errorModels){
+        return performAsync(getItemCall, errorModels);
+    }
+
+    public CompletableFuture<Response<ItemModel>> getItemResponseAsync(Call<ItemModel> getItemCall, boolean strict){
+        return getResponseAsync(getItemCall, strict, false);
+    }
+
+    public <ErrorModel> CompletableFuture<ResponsePair<Response<ItemModel>, ErrorModel>> getItemResponseAsync(
+            Call<ItemModel> getItemCall,
+            Class<?>... errorModels){
+        return getResponseAsync(getItemCall, false, false, errorModels);
+    }
+
+    public ItemModel getItem(int id){
+        Call<ItemModel> getItemCall = itemStoreServices.getItem(id);
+        return perform(getItemCall, true, false);
+    }
+
+    public JsonStream<ItemModel> streamItems(int count){
+        Call<ResponseBody> listItemsCall = itemStoreServices.listItems(count);
+        return performStreaming(listItemsCall, ItemModel.class);
+    }
+
+    public ChunkedUpload.Result uploadAttachment(String id, File file, File journal, long chunkSize){
+        return new ChunkedUpload(file, (chunk, body) -> itemStoreServices.uploadChunk(id, chunk.index(), chunk.contentRange(file.length()), body))
+                .chunkSize(chunkSize)
+                .journal(journal, id)
+                .upload();
+    }
+
+    public RangedDownload.Result downloadAttachment(String id, File target, File journal, long rangeSize, String checksum){
+        return new RangedDownload(range -> itemStoreServices.downloadAttachment(id, range), target)
+                .rangeSize(rangeSize)
+                .checksums("SHA-256", range -> range.index() == 5 ? checksum : null)
+                .journal(journal)
+                .download();
+    }
+
+    public Response<ItemModel> awaitJob(int id, int timeoutInSeconds){
+        Call<ItemModel> getJobCall = itemStoreServices.getJob(id);
+        return getResponseForCode(timeoutInSeconds, 200, getJobCall);
+    }
+
+    public Response<ItemModel> awaitJobStatus(int id, int timeoutInSeconds){
+        Call<ItemModel> getJobCall = itemStoreServices.getJob(id);
+        return monitorFieldValueFromResponse(timeoutInSeconds, "done", getJobCall, "status", false);
+    }
+
+    public interface ItemStoreServices {
+
+        @GET("items/{id}")
+        Call<ItemModel> getItem(@Path("id") int id);
+
+        @GET("items/{id}")
+        Call<ResponseBody> getItemBody(@Path("id") int id);
+
+        @POST("items")
+        Call<ItemModel> createItem(@Body ItemModel item);
+
+        @Streaming
+        @GET("items")
+        Call<ResponseBody> listItems(@Query("count") int count);
+
+        @PUT("items/{id}/attachment/{index}")
+        Call<ResponseBody> uploadChunk(
+                @Path("id") String id,
+                @Path("index") int index,
+                @Header("Content-Range") String contentRange,
+                @Body RequestBody body
+        );
+
+        @Streaming
+        @GET("items/{id}/attachment")
+        Call<ResponseBody> downloadAttachment(@Path("id") String id, @Header("Range") String range);
+
+        @GET("jobs/{id}")
+        Call<ItemModel> getJob(@Path("id") int id);
+    }
+}
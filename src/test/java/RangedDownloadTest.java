@@ -0,0 +1,104 @@
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import utils.*;
+import wasapi.RangedDownload;
+import wasapi.exceptions.FailedCallException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RangedDownloadTest {
+
+    static Printer log = new Printer(RangedDownloadTest.class);
+
+    static final int rangeSize = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    MockWebServer server;
+    ItemStore itemStore;
+    byte[] content = new byte[10 * rangeSize + 321];
+    Map<Long, AtomicInteger> fetches = new ConcurrentHashMap<>();
+    volatile long rejectedOffset = -1;
+    AtomicBoolean corrupted = new AtomicBoolean();
+
+    @Before
+    public void before() throws IOException {
+        new Random(11).nextBytes(content);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String[] range = request.getHeader("Range").substring("bytes=".length()).split("-");
+                int from = Integer.parseInt(range[0]);
+                int to = Integer.parseInt(range[1]);
+                if (to != 0) fetches.computeIfAbsent((long) from, key -> new AtomicInteger()).incrementAndGet();
+                if (from == rejectedOffset) return new MockResponse().setResponseCode(404);
+                byte[] bytes = Arrays.copyOfRange(content, from, to + 1);
+                if (from == 5L * rangeSize && corrupted.compareAndSet(false, true)) bytes[42] ^= 1;
+                return new MockResponse()
+                        .setResponseCode(206)
+                        .setHeader("ETag", "\"v1\"")
+                        .setHeader("Content-Range", "bytes " + from + "-" + to + "/" + content.length)
+                        .setBody(new Buffer().write(bytes));
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void resumeDownloadTest() throws IOException, NoSuchAlgorithmException {
+        File target = new File(folder.getRoot(), "attachment.bin");
+        File journal = new File(folder.getRoot(), "attachment.bin.download");
+        byte[] range = Arrays.copyOfRange(content, 5 * rangeSize, 6 * rangeSize);
+        String checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(range));
+
+        rejectedOffset = 7L * rangeSize;
+        Assert.assertThrows(FailedCallException.class, () -> itemStore.downloadAttachment("1", target, journal, rangeSize, checksum));
+        Assert.assertEquals("The corrupted range was not fetched again!", 2, fetches.get(5L * rangeSize).get());
+
+        Set<Long> missing = new TreeSet<>();
+        List<String> lines = Files.readAllLines(journal.toPath());
+        Set<String> completed = new HashSet<>(lines.subList(1, lines.size()));
+        for (int index = 0; index < 11; index++)
+            if (!completed.contains(String.valueOf(index))) missing.add((long) index * rangeSize);
+        Assert.assertTrue("The rejected range was recorded as complete!", missing.contains(7L * rangeSize));
+
+        rejectedOffset = -1;
+        fetches.clear();
+        RangedDownload.Result result = itemStore.downloadAttachment("1", target, journal, rangeSize, checksum);
+        Assert.assertTrue(result.ranged());
+        Assert.assertEquals(11, result.ranges());
+        Assert.assertEquals(missing.size(), result.rangesFetched());
+        Assert.assertEquals("Other ranges than the missing ones were fetched!", missing, new TreeSet<>(fetches.keySet()));
+        fetches.forEach((offset, count) -> Assert.assertEquals("Range at " + offset + " was fetched more than once!", 1, count.get()));
+        Assert.assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        log.success("resumeDownloadTest PASSED!");
+    }
+}
@@ -0,0 +1,118 @@
+import models.ItemModel;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Response;
+import utils.*;
+import wasapi.HedgePolicy;
+import wasapi.RequestCoalescer;
+import wasapi.RetryPolicy;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RequestCoalescerTest {
+
+    static Printer log = new Printer(RequestCoalescerTest.class);
+
+    MockWebServer server;
+    volatile long delayMillis = 300;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return ConcurrencyTest.json(200, "{\"id\":1,\"status\":\"coalesced\"}")
+                        .setHeadersDelay(delayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void coalesceTest() throws Exception {
+        ItemStore itemStore = itemStore(new WasapiClient.Builder());
+        long coalesced = RequestCoalescer.coalescedCount();
+
+        List<Response<ItemModel>> responses = TokenAuthenticatorTest.concurrently(() -> itemStore.itemStoreServices.getItem(1).execute());
+        for (Response<ItemModel> response : responses) Assert.assertEquals(1, response.body().getId());
+        Assert.assertEquals("Identical requests in flight were not coalesced!", 1, server.getRequestCount());
+        Assert.assertEquals(TokenAuthenticatorTest.CALLERS - 1, RequestCoalescer.coalescedCount() - coalesced);
+        log.success("coalesceTest PASSED!");
+    }
+
+    @Test
+    public void largeBodyTest() throws Exception {
+        ItemStore itemStore = itemStore(new WasapiClient.Builder().coalesceMaxBodyBytes(8));
+
+        List<Response<ItemModel>> responses = TokenAuthenticatorTest.concurrently(() -> itemStore.itemStoreServices.getItem(1).execute());
+        for (Response<ItemModel> response : responses) Assert.assertEquals(1, response.body().getId());
+        Assert.assertEquals("Followers of a leader with a large body did not send their own requests!", TokenAuthenticatorTest.CALLERS, server.getRequestCount());
+        log.success("largeBodyTest PASSED!");
+    }
+
+    @Test
+    public void leaderFailureTest() throws Exception {
+        delayMillis = 1500;
+        ItemStore itemStore = itemStore(new WasapiClient.Builder().readTimeout(1));
+
+        List<Boolean> failures = TokenAuthenticatorTest.concurrently(() -> {
+            try {
+                itemStore.itemStoreServices.getItem(1).execute();
+                return false;
+            }
+            catch (IOException exception) {
+                return true;
+            }
+        });
+        for (boolean failed : failures) Assert.assertTrue("The failure of the leader was not passed to a follower!", failed);
+        Assert.assertEquals(1, server.getRequestCount());
+        log.success("leaderFailureTest PASSED!");
+    }
+
+    @Test
+    public void streamingTest() throws Exception {
+        ItemStore itemStore = itemStore(new WasapiClient.Builder());
+
+        TokenAuthenticatorTest.concurrently(() -> {
+            try (ResponseBody body = itemStore.itemStoreServices.listItems(1).execute().body()) {
+                return body.contentLength();
+            }
+        });
+        Assert.assertEquals("Streaming requests were coalesced!", TokenAuthenticatorTest.CALLERS, server.getRequestCount());
+        log.success("streamingTest PASSED!");
+    }
+
+    @Test
+    public void hedgeTest() {
+        ItemStore itemStore = itemStore(new WasapiClient.Builder());
+
+        Response<ItemModel> response = itemStore.getItemResponse(
+                1,
+                RetryPolicy.getDefault().withMaxRetries(0),
+                HedgePolicy.fixed(Duration.ofMillis(50), 1)
+        );
+        Assert.assertEquals(200, response.code());
+        Assert.assertEquals("The hedged copy was coalesced with the call it races!", 2, server.getRequestCount());
+        log.success("hedgeTest PASSED!");
+    }
+
+    ItemStore itemStore(WasapiClient.Builder builder) {
+        return new ItemStore(builder
+                .baseUrl(server.url("/").toString())
+                .coalesceRequests(true));
+    }
+}
@@ -0,0 +1,143 @@
+import models.ItemModel;
+import okhttp3.Headers;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Call;
+import utils.*;
+import wasapi.ResponseCache;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class ResponseCacheTest {
+
+    static Printer log = new Printer(ResponseCacheTest.class);
+
+    MockWebServer server;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String id = request.getRequestUrl().pathSegments().get(1);
+                String caller = request.getHeader("X-Caller");
+                return ConcurrencyTest.json(200, "{\"id\":" + id + ",\"status\":\"" + caller + "\"}");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void hitTest() {
+        ResponseCache cache = new ResponseCache(Duration.ofMinutes(1), 10);
+        ItemStore itemStore = itemStore(cache, "a");
+
+        ItemModel first = itemStore.getItem(1);
+        ItemModel second = itemStore.getItem(1);
+        Assert.assertSame("The second call was not served from the cache!", first, second);
+        Assert.assertEquals(1, server.getRequestCount());
+
+        ResponseCache.Stats stats = cache.stats();
+        Assert.assertEquals(1, stats.hits());
+        Assert.assertEquals(1, stats.misses());
+        Assert.assertEquals(1, stats.size());
+        Assert.assertEquals(0.5, stats.hitRate(), 0.0);
+        log.success("hitTest PASSED!");
+    }
+
+    @Test
+    public void expiryTest() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(Duration.ofMillis(100), 10);
+        ItemStore itemStore = itemStore(cache, "a");
+
+        itemStore.getItem(1);
+        Thread.sleep(150);
+        itemStore.getItem(1);
+        Assert.assertEquals("An expired response was served!", 2, server.getRequestCount());
+        Assert.assertEquals(1, cache.stats().expirations());
+        Assert.assertEquals(0, cache.stats().hits());
+        log.success("expiryTest PASSED!");
+    }
+
+    @Test
+    public void evictionTest() {
+        ResponseCache cache = new ResponseCache(Duration.ofMinutes(1), 2);
+        ItemStore itemStore = itemStore(cache, "a");
+
+        itemStore.getItem(1);
+        itemStore.getItem(2);
+        itemStore.getItem(1);
+        itemStore.getItem(3);
+        Assert.assertEquals(3, server.getRequestCount());
+
+        itemStore.getItem(1);
+        Assert.assertEquals("The most recently used response was evicted!", 3, server.getRequestCount());
+        itemStore.getItem(2);
+        Assert.assertEquals("The least recently used response was not evicted!", 4, server.getRequestCount());
+
+        ResponseCache.Stats stats = cache.stats();
+        Assert.assertEquals(2, stats.evictions());
+        Assert.assertEquals(2, stats.size());
+        log.success("evictionTest PASSED!");
+    }
+
+    @Test
+    public void clientIsolationTest() {
+        ResponseCache cache = new ResponseCache(Duration.ofMinutes(1), 10);
+
+        Assert.assertEquals("a", itemStore(cache, "a").getItem(1).getStatus());
+        Assert.assertEquals("A response cached for another client was served!", "b", itemStore(cache, "b").getItem(1).getStatus());
+        Assert.assertEquals("a", itemStore(cache, "a").getItem(1).getStatus());
+        Assert.assertEquals(2, server.getRequestCount());
+
+        cache.invalidate(server.url("/").toString());
+        Assert.assertEquals(0, cache.stats().size());
+        log.success("clientIsolationTest PASSED!");
+    }
+
+    @Test
+    public void responseBodyTest() throws IOException {
+        ResponseCache cache = new ResponseCache(Duration.ofMinutes(1), 10);
+        ItemStore itemStore = itemStore(cache, "a");
+
+        try (ResponseBody first = itemStore.itemStoreServices.getItemBody(1).execute().body();
+             ResponseBody second = itemStore.itemStoreServices.getItemBody(1).execute().body()) {
+            Assert.assertEquals(first.string(), second.string());
+        }
+        Assert.assertEquals("A response body that can only be read once was cached!", 2, server.getRequestCount());
+        Assert.assertEquals(0, cache.stats().size());
+        log.success("responseBodyTest PASSED!");
+    }
+
+    @Test
+    public void executeTwiceTest() throws IOException {
+        ResponseCache cache = new ResponseCache(Duration.ofMinutes(1), 10);
+        ItemStore itemStore = itemStore(cache, "a");
+        itemStore.getItem(1);
+
+        Call<ItemModel> call = itemStore.itemStoreServices.getItem(1);
+        Assert.assertEquals(1, call.execute().body().getId());
+        Assert.assertThrows("A call served from the cache was executed twice!", IllegalStateException.class, call::execute);
+        Assert.assertEquals(1, server.getRequestCount());
+        log.success("executeTwiceTest PASSED!");
+    }
+
+    ItemStore itemStore(ResponseCache cache, String caller) {
+        return new ItemStore(new WasapiClient.Builder()
+                .baseUrl(server.url("/").toString())
+                .headers(new Headers.Builder().add("X-Caller", caller).build())
+                .responseCache(cache));
+    }
+}
@@ -0,0 +1,160 @@
+import models.ItemModel;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Call;
+import retrofit2.Response;
+import utils.*;
+import wasapi.HedgePolicy;
+import wasapi.RetryBudget;
+import wasapi.RetryPolicy;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryTest {
+
+    static Printer log = new Printer(RetryTest.class);
+
+    MockWebServer server;
+    AtomicInteger attempts = new AtomicInteger();
+    volatile int failures = Integer.MAX_VALUE;
+    volatile long headersDelay = 100;
+    volatile String retryAfter;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (attempts.incrementAndGet() > failures) return ConcurrencyTest.json(200, "{\"id\":1}");
+                MockResponse response = new MockResponse()
+                        .setResponseCode(503)
+                        .setHeadersDelay(headersDelay, TimeUnit.MILLISECONDS);
+                return retryAfter == null ? response : response.setHeader("Retry-After", retryAfter);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void retryWithHedgeTest() {
+        ItemStore itemStore = new ItemStore(new WasapiClient.Builder()
+                .baseUrl(server.url("/").toString())
+                .retryPolicy(policy(2)));
+
+        Response<ItemModel> response = itemStore.getItemResponse(1, policy(2), HedgePolicy.fixed(Duration.ofMillis(20), 1));
+        Assert.assertEquals(503, response.code());
+        Assert.assertEquals("The client retried the copies of a call retried by a per-call policy!", 6, attempts.get());
+        log.success("retryWithHedgeTest PASSED!");
+    }
+
+    @Test
+    public void retryAfterTest() throws IOException {
+        failures = 1;
+        headersDelay = 0;
+        retryAfter = "1";
+        ItemStore itemStore = itemStore(policy(2));
+
+        long start = System.nanoTime();
+        Response<ItemModel> response = itemStore.itemStoreServices.getItem(1).execute();
+        Assert.assertEquals(200, response.code());
+        Assert.assertTrue("The Retry-After header was not honored!", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1000));
+        Assert.assertEquals(2, attempts.get());
+        log.success("retryAfterTest PASSED!");
+    }
+
+    @Test
+    public void longRetryAfterTest() throws IOException {
+        headersDelay = 0;
+        retryAfter = "5";
+        ItemStore itemStore = itemStore(policy(2));
+
+        Response<ItemModel> response = itemStore.itemStoreServices.getItem(1).execute();
+        Assert.assertEquals(503, response.code());
+        Assert.assertEquals("A call asked to wait longer than the maximum delay was retried!", 1, attempts.get());
+        log.success("longRetryAfterTest PASSED!");
+    }
+
+    @Test
+    public void idempotencyTest() throws IOException {
+        headersDelay = 0;
+
+        itemStore(policy(2)).itemStoreServices.createItem(new ItemModel()).execute();
+        Assert.assertEquals("A non-idempotent call was retried!", 1, attempts.get());
+
+        attempts.set(0);
+        itemStore(policy(2).withNonIdempotentRetries(true)).itemStoreServices.createItem(new ItemModel()).execute();
+        Assert.assertEquals(3, attempts.get());
+        log.success("idempotencyTest PASSED!");
+    }
+
+    @Test
+    public void budgetTest() throws IOException {
+        headersDelay = 0;
+        RetryBudget budget = new RetryBudget(3, 0);
+        ItemStore itemStore = itemStore(policy(5).withBudget(budget));
+
+        itemStore.itemStoreServices.getItem(1).execute();
+        Assert.assertEquals(4, attempts.get());
+        itemStore.itemStoreServices.getItem(2).execute();
+        Assert.assertEquals("A call was retried after the budget was exhausted!", 5, attempts.get());
+        Assert.assertEquals(3, budget.stats().granted());
+        Assert.assertEquals(2, budget.stats().rejected());
+        log.success("budgetTest PASSED!");
+    }
+
+    @Test(timeout = 5_000)
+    public void cancelDuringBackoffTest() throws Exception {
+        headersDelay = 0;
+        ItemStore itemStore = itemStore(new RetryPolicy(2, Duration.ofSeconds(30), Duration.ofSeconds(30), 1, 0, Set.of(503), false, null));
+        Call<ItemModel> call = itemStore.itemStoreServices.getItem(1);
+
+        CompletableFuture<Throwable> failure = CompletableFuture.supplyAsync(() -> {
+            try {
+                call.execute();
+                return null;
+            }
+            catch (IOException exception) {
+                return exception;
+            }
+        });
+        Thread.sleep(300);
+        call.cancel();
+        Assert.assertNotNull("A canceled call kept waiting to be retried!", failure.get());
+        Assert.assertEquals(1, attempts.get());
+        log.success("cancelDuringBackoffTest PASSED!");
+    }
+
+    ItemStore itemStore(RetryPolicy policy) {
+        return new ItemStore(new WasapiClient.Builder()
+                .baseUrl(server.url("/").toString())
+                .retryPolicy(policy));
+    }
+
+    static RetryPolicy policy(int maxRetries) {
+        return new RetryPolicy(
+                maxRetries,
+                Duration.ofMillis(10),
+                Duration.ofSeconds(1),
+                1,
+                0,
+                Set.of(503),
+                false,
+                new RetryBudget(100, 1)
+        );
+    }
+}
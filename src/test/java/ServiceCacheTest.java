@@ -0,0 +1,76 @@
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.*;
+import utils.*;
+import wasapi.ServiceCache;
+import wasapi.WasapiClient;
+
+import java.io.IOException;
+import java.util.List;
+
+public class ServiceCacheTest {
+
+    static Printer log = new Printer(ServiceCacheTest.class);
+
+    MockWebServer server;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ServiceCache.clear();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+        ServiceCache.clear();
+    }
+
+    @Test
+    public void hitTest() {
+        ItemStore.ItemStoreServices first = build(server.url("/").toString());
+        ItemStore.ItemStoreServices second = build(server.url("/").toString());
+        Assert.assertSame("A service built with the same configuration was not reused!", first, second);
+        Assert.assertEquals(1, ServiceCache.size());
+
+        ItemStore.ItemStoreServices other = new WasapiClient.Builder()
+                .baseUrl(server.url("/").toString())
+                .readTimeout(7)
+                .build(ItemStore.ItemStoreServices.class);
+        Assert.assertNotSame("A service built with another client was reused!", first, other);
+        Assert.assertEquals(2, ServiceCache.size());
+        log.success("hitTest PASSED!");
+    }
+
+    @Test
+    public void singleBuildTest() throws Exception {
+        List<ItemStore.ItemStoreServices> services = TokenAuthenticatorTest.concurrently(() -> build(server.url("/").toString()));
+        for (ItemStore.ItemStoreServices service : services)
+            Assert.assertSame("Concurrent builders of the same service did not share one build!", services.get(0), service);
+        Assert.assertEquals(1, ServiceCache.size());
+        log.success("singleBuildTest PASSED!");
+    }
+
+    @Test
+    public void evictionTest() {
+        String baseUrl = server.url("/").toString();
+        String spelledOut = baseUrl.replace("http://", "HTTP://").replace(server.getHostName(), server.getHostName().toUpperCase());
+        ItemStore.ItemStoreServices service = build(spelledOut);
+
+        ServiceCache.evict(baseUrl);
+        Assert.assertEquals("A service was not evicted by its canonical base URL!", 0, ServiceCache.size());
+        Assert.assertNotSame(service, build(spelledOut));
+
+        ServiceCache.evict(spelledOut);
+        Assert.assertEquals(0, ServiceCache.size());
+
+        build(baseUrl);
+        ServiceCache.evict(ItemStore.ItemStoreServices.class);
+        Assert.assertEquals(0, ServiceCache.size());
+        log.success("evictionTest PASSED!");
+    }
+
+    static ItemStore.ItemStoreServices build(String baseUrl) {
+        return new WasapiClient.Builder().baseUrl(baseUrl).build(ItemStore.ItemStoreServices.class);
+    }
+}
@@ -0,0 +1,114 @@
+import models.ItemModel;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.*;
+import utils.*;
+import wasapi.JsonStream;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class StreamingTest {
+
+    static Printer log = new Printer(StreamingTest.class);
+
+    MockWebServer server;
+    ItemStore itemStore;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int count = Integer.parseInt(request.getRequestUrl().queryParameter("count"));
+                Buffer body = new Buffer().writeUtf8("[");
+                for (int id = 0; id < count; id++)
+                    body.writeUtf8(id == 0 ? "" : ",").writeUtf8("{\"id\":" + id + ",\"status\":\"done\"}");
+                body.writeUtf8("]");
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setChunkedBody(body, 8192)
+                        .throttleBody(64 * 1024, 10, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        itemStore = new ItemStore(server.url("/").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void streamAllElementsTest() {
+        int count = 20_000;
+        try (Stream<ItemModel> items = itemStore.streamItems(count).stream()) {
+            int[] expected = {0};
+            items.forEach(item -> Assert.assertEquals(expected[0]++, item.getId()));
+            Assert.assertEquals(count, expected[0]);
+        }
+        log.success("streamAllElementsTest PASSED!");
+    }
+
+    @Test
+    public void earlyCloseTest() {
+        try (JsonStream<ItemModel> items = itemStore.streamItems(200_000)) {
+            for (int id = 0; id < 10; id++)
+                Assert.assertEquals(id, items.next().getId());
+        }
+        Assert.assertEquals("The connection is unusable after an early close!", 3, itemStore.streamItems(3).stream().count());
+        log.success("earlyCloseTest PASSED!");
+    }
+
+    @Test
+    public void publisherBackpressureTest() throws Exception {
+        List<ItemModel> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        itemStore.streamItems(1_000).publisher().subscribe(new Flow.Subscriber<>() {
+            Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ItemModel item) {
+                received.add(item);
+                if (received.size() == 50) {
+                    subscription.cancel();
+                    done.complete(null);
+                }
+                else subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.get(30, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        Assert.assertEquals("Elements were emitted beyond the requested ones!", 50, received.size());
+        Iterator<ItemModel> ids = received.iterator();
+        for (int id = 0; id < 50; id++) Assert.assertEquals(id, ids.next().getId());
+        log.success("publisherBackpressureTest PASSED!");
+    }
+}
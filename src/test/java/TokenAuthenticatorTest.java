@@ -0,0 +1,144 @@
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import utils.*;
+import wasapi.auth.AccessToken;
+import wasapi.auth.TokenAuthenticator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenAuthenticatorTest {
+
+    static Printer log = new Printer(TokenAuthenticatorTest.class);
+
+    static final int CALLERS = 16;
+
+    MockWebServer server;
+    AtomicInteger fetches = new AtomicInteger();
+    volatile String acceptedToken = "Bearer token-1";
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                boolean accepted = acceptedToken.equals(request.getHeader("Authorization"));
+                return new MockResponse().setResponseCode(accepted ? 200 : 401);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void singleFlightRefreshTest() throws Exception {
+        TokenAuthenticator authenticator = new TokenAuthenticator(this::fetchToken, Duration.ZERO);
+        List<AccessToken> tokens = concurrently(authenticator::token);
+
+        Assert.assertEquals("Concurrent callers fetched their own tokens!", 1, fetches.get());
+        Assert.assertEquals(1, authenticator.refreshCount());
+        for (AccessToken token : tokens) Assert.assertSame(tokens.get(0), token);
+        log.success("singleFlightRefreshTest PASSED!");
+    }
+
+    @Test
+    public void singleFlightReauthenticationTest() throws Exception {
+        TokenAuthenticator authenticator = new TokenAuthenticator(this::fetchToken, Duration.ZERO);
+        OkHttpClient client = client(authenticator);
+        authenticator.token();
+        acceptedToken = "Bearer token-2";
+
+        List<Integer> codes = concurrently(() -> {
+            try (Response response = client.newCall(new Request.Builder().url(server.url("/items")).build()).execute()) {
+                return response.code();
+            }
+        });
+
+        for (int code : codes) Assert.assertEquals(200, code);
+        Assert.assertEquals("A rejected token was refreshed more than once!", 2, fetches.get());
+        log.success("singleFlightReauthenticationTest PASSED!");
+    }
+
+    @Test
+    public void foreignAuthorizationTest() throws IOException {
+        TokenAuthenticator authenticator = new TokenAuthenticator(this::fetchToken, Duration.ZERO);
+        Request request = new Request.Builder()
+                .url(server.url("/items"))
+                .header("Authorization", "Basic dXNlcjpwYXNz")
+                .build();
+
+        try (Response response = client(authenticator).newCall(request).execute()) {
+            Assert.assertEquals(401, response.code());
+        }
+        Assert.assertEquals("A request with its own credentials was re-authenticated!", 1, server.getRequestCount());
+        Assert.assertEquals(0, fetches.get());
+        log.success("foreignAuthorizationTest PASSED!");
+    }
+
+    AccessToken fetchToken() {
+        try {
+            Thread.sleep(100);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return AccessToken.of("token-" + fetches.incrementAndGet());
+    }
+
+    static OkHttpClient client(TokenAuthenticator authenticator) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(authenticator)
+                .authenticator(authenticator)
+                .build();
+    }
+
+    /**
+     * Runs the given task on {@link #CALLERS} threads at once and returns the results.
+     */
+    static <T> List<T> concurrently(ThrowingSupplier<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++)
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                        return task.get();
+                    }
+                    catch (Exception exception) {
+                        throw new RuntimeException(exception);
+                    }
+                }, executor));
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (CompletableFuture<T> future : futures) results.add(future.get());
+            return results;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
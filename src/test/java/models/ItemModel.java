@@ -0,0 +1,15 @@
+package models;
+
+public class ItemModel {
+
+    int id;
+    String status;
+
+    public int getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,102 @@
+package wasapi;
+
+import context.ContextStore;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import utils.Printer;
+import wasapi.annotations.Converters;
+import wasapi.exceptions.WasapiException;
+
+import java.io.IOException;
+import java.util.List;
+
+public class ConverterTypeTest {
+
+    static Printer log = new Printer(ConverterTypeTest.class);
+
+    static final String DEFAULT_CONVERTERS = "jackson,gson,scalars,moshi,wire,protobuf";
+
+    // Scalars return this body as is, jackson decodes it to: hello
+    static final String BODY = "\"hello\"";
+
+    public interface PlainServices {
+        @GET("text")
+        Call<String> text();
+    }
+
+    @Converters({ConverterType.SCALARS, ConverterType.JACKSON})
+    public interface ScalarServices {
+        @GET("text")
+        Call<String> text();
+    }
+
+    MockWebServer server;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(BODY);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        ContextStore.put("converters", DEFAULT_CONVERTERS);
+        server.shutdown();
+    }
+
+    @Test
+    public void builderOverAnnotationTest() throws IOException {
+        Assert.assertEquals(BODY, builder().build(ScalarServices.class).text().execute().body());
+        Assert.assertEquals(
+                "The converters of the builder did not override @Converters!",
+                "hello",
+                builder().converters(ConverterType.JACKSON).build(ScalarServices.class).text().execute().body()
+        );
+        log.success("builderOverAnnotationTest PASSED!");
+    }
+
+    @Test
+    public void annotationOverPropertyTest() throws IOException {
+        ContextStore.put("converters", "jackson");
+        Assert.assertEquals("hello", builder().build(PlainServices.class).text().execute().body());
+        Assert.assertEquals(
+                "The converters property overrode @Converters!",
+                BODY,
+                builder().build(ScalarServices.class).text().execute().body()
+        );
+
+        ContextStore.put("converters", "scalars, jackson");
+        Assert.assertEquals(List.of(ConverterType.SCALARS, ConverterType.JACKSON), ConverterType.fromContext());
+        Assert.assertEquals(BODY, builder().build(PlainServices.class).text().execute().body());
+        log.success("annotationOverPropertyTest PASSED!");
+    }
+
+    @Test
+    public void missingLibraryTest() {
+        String factoryClass = "retrofit2.converter.missing.MissingConverterFactory";
+        WasapiException exception = Assert.assertThrows(
+                WasapiException.class,
+                () -> ConverterType.create("missing", factoryClass, false)
+        );
+        Assert.assertEquals("The missing converter is not on the classpath (" + factoryClass + ")", exception.getMessage());
+        Assert.assertTrue(exception.getCause() instanceof ClassNotFoundException);
+
+        Assert.assertTrue(ConverterType.create("scalars", "retrofit2.converter.scalars.ScalarsConverterFactory", false) != null);
+        log.success("missingLibraryTest PASSED!");
+    }
+
+    WasapiClient.Builder builder() {
+        return new WasapiClient.Builder().baseUrl(server.url("/").toString());
+    }
+}
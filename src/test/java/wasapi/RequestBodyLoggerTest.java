@@ -0,0 +1,122 @@
+package wasapi;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.*;
+import utils.Printer;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class RequestBodyLoggerTest {
+
+    static Printer log = new Printer(RequestBodyLoggerTest.class);
+
+    static final MediaType JSON = MediaType.get("application/json");
+
+    MockWebServer server;
+    BlockingQueue<String> logged = new LinkedBlockingQueue<>();
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return switch (request.getPath()) {
+                    case "/slow" -> new MockResponse().setHeadersDelay(300, TimeUnit.MILLISECONDS);
+                    case "/broken" -> new MockResponse().setResponseCode(500);
+                    default -> new MockResponse();
+                };
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void byteCapTest() throws Exception {
+        OkHttpClient client = client(new RequestBodyLogger(8, 1, -1, logged::add));
+
+        post(client, "/", "0123456789abcdefghij");
+        String entry = logged.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry);
+        Assert.assertTrue("The truncation was not reported: " + entry, entry.contains("first 8 of 20 bytes"));
+        Assert.assertTrue(entry.endsWith("01234567"));
+        Assert.assertFalse("More than the cap was captured!", entry.contains("89"));
+
+        post(client, "/", "{\"id\":1}");
+        entry = logged.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry);
+        Assert.assertFalse(entry.contains(" bytes"));
+        Assert.assertTrue(entry.contains("\"id\""));
+        log.success("byteCapTest PASSED!");
+    }
+
+    @Test
+    public void samplingTest() throws Exception {
+        OkHttpClient client = client(new RequestBodyLogger(64, 3, -1, logged::add));
+
+        for (int request = 0; request < 6; request++) post(client, "/", "request " + request);
+        Assert.assertTrue(logged.poll(5, TimeUnit.SECONDS).endsWith("request 0"));
+        Assert.assertTrue(logged.poll(5, TimeUnit.SECONDS).endsWith("request 3"));
+        Assert.assertNull("More than one in every 3 requests was logged!", logged.poll(200, TimeUnit.MILLISECONDS));
+        log.success("samplingTest PASSED!");
+    }
+
+    @Test
+    public void slowThresholdTest() throws Exception {
+        OkHttpClient client = client(new RequestBodyLogger(64, 1, 200, logged::add));
+
+        post(client, "/", "fast");
+        post(client, "/slow", "slow");
+        post(client, "/broken", "broken");
+        String slow = logged.poll(5, TimeUnit.SECONDS);
+        Assert.assertTrue("A slow call was not logged!", slow.contains("response code 200") && slow.endsWith("slow"));
+        String broken = logged.poll(5, TimeUnit.SECONDS);
+        Assert.assertTrue("A failed call was not logged!", broken.contains("response code 500") && broken.endsWith("broken"));
+        Assert.assertNull("A fast call was logged!", logged.poll(200, TimeUnit.MILLISECONDS));
+        log.success("slowThresholdTest PASSED!");
+    }
+
+    @Test
+    public void unchangedBodyTest() throws Exception {
+        OkHttpClient client = client(new RequestBodyLogger(16, 1, -1, logged::add));
+        String body = "x".repeat(100_000) + "end";
+
+        post(client, "/", body);
+        RecordedRequest recorded = server.takeRequest(5, TimeUnit.SECONDS);
+        Assert.assertEquals("The logged body did not reach the server unchanged!", body, recorded.getBody().readUtf8());
+        Assert.assertEquals(String.valueOf(body.length()), recorded.getHeader("Content-Length"));
+        Assert.assertEquals("application/json; charset=utf-8", recorded.getHeader("Content-Type"));
+        Assert.assertTrue(logged.poll(5, TimeUnit.SECONDS).contains("first 16 of " + body.length() + " bytes"));
+        log.success("unchangedBodyTest PASSED!");
+    }
+
+    OkHttpClient client(RequestBodyLogger logger) {
+        return new OkHttpClient.Builder().addNetworkInterceptor(logger).build();
+    }
+
+    void post(OkHttpClient client, String path, String body) throws IOException {
+        Request request = new Request.Builder()
+                .url(server.url(path))
+                .post(RequestBody.create(body, JSON))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package wasapi;
+
+import models.ItemModel;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.*;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.http.GET;
+import utils.Printer;
+
+import java.io.IOException;
+
+import static utils.mapping.MappingUtilities.Json.mapper;
+
+public class ResponseBodyCaptureTest {
+
+    static Printer log = new Printer(ResponseBodyCaptureTest.class);
+
+    // The fields are not in the order the model would be serialized in
+    static final String BODY = "{ \"status\" : \"captured\", \"id\" : 1 }";
+
+    public interface CapturedServices {
+        @GET("items/1")
+        Call<ItemModel> getItem();
+    }
+
+    MockWebServer server;
+    boolean keepsLogs;
+
+    @Before
+    public void before() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        keepsLogs = Caller.keepsLogs();
+        Caller.keepLogs(true);
+    }
+
+    @After
+    public void after() throws IOException {
+        Caller.keepLogs(keepsLogs);
+        server.shutdown();
+    }
+
+    @Test
+    public void offByDefaultTest() throws IOException {
+        Response<ItemModel> response = getItem(new WasapiClient.Builder());
+
+        Assert.assertNull(
+                "Response bodies were captured without response-body-log-limit!",
+                response.raw().request().tag(ResponseBodyCapture.Capture.class)
+        );
+        Assert.assertEquals(1, response.body().getId());
+        log.success("offByDefaultTest PASSED!");
+    }
+
+    @Test
+    public void capturedBytesTest() throws IOException {
+        Response<ItemModel> response = getItem(new WasapiClient.Builder().responseBodyLogLimit(1024));
+        Assert.assertEquals("captured", response.body().getStatus());
+
+        String logged = ResponseBodyCapture.describe(response.raw(), response.body());
+        Assert.assertEquals("The logged body is not the body the converter read!", mapper.readTree(BODY), mapper.readTree(logged));
+        Assert.assertTrue("The decoded model was logged instead of the raw body!", logged.indexOf("status") < logged.indexOf("id"));
+        log.success("capturedBytesTest PASSED!");
+    }
+
+    @Test
+    public void truncatedTest() throws IOException {
+        Response<ItemModel> response = getItem(new WasapiClient.Builder().responseBodyLogLimit(10));
+
+        String logged = ResponseBodyCapture.describe(response.raw(), response.body());
+        Assert.assertEquals("(first 10 of " + BODY.length() + " bytes read) " + BODY.substring(0, 10), logged);
+        log.success("truncatedTest PASSED!");
+    }
+
+    Response<ItemModel> getItem(WasapiClient.Builder builder) throws IOException {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(BODY));
+        return builder.baseUrl(server.url("/").toString()).build(CapturedServices.class).getItem().execute();
+    }
+}
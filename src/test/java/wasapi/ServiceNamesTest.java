@@ -0,0 +1,106 @@
+package wasapi;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import org.junit.*;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+import retrofit2.http.Path;
+import utils.Printer;
+import wasapi.annotations.ServiceName;
+
+public class ServiceNamesTest {
+
+    static Printer log = new Printer(ServiceNamesTest.class);
+
+    interface NamedServices {
+
+        @GET("items/{id}")
+        Call<ResponseBody> getItem(@Path("id") int id);
+
+        @ServiceName("Create item")
+        @POST("items")
+        Call<ResponseBody> createItem();
+    }
+
+    NamedServices services = new Retrofit.Builder()
+            .baseUrl("http://example.com/")
+            .build()
+            .create(NamedServices.class);
+
+    @Test
+    public void invocationTest() {
+        Assert.assertEquals("NamedServices.getItem", ServiceNames.of(services.getItem(1)));
+        Assert.assertEquals("NamedServices.getItem", ServiceNames.metricName(services.getItem(2).request()));
+        log.success("invocationTest PASSED!");
+    }
+
+    @Test
+    public void overrideTest() {
+        Assert.assertEquals("The @ServiceName of the method was not used!", "Create item", ServiceNames.of(services.createItem()));
+        Assert.assertEquals("Create item", ServiceNames.metricName(services.createItem().request()));
+        log.success("overrideTest PASSED!");
+    }
+
+    @Test
+    public void fallbackTest() {
+        Call<ResponseBody> call = new UntaggedCall(new Request.Builder().url("http://example.com/items/1?page=2").build());
+        boolean keepsLogs = Caller.keepsLogs();
+        try {
+            Caller.keepLogs(false);
+            Assert.assertEquals("An untagged call was not named after its request line!", "GET /items/1", ServiceNames.of(call));
+
+            Caller.keepLogs(true);
+            Assert.assertEquals("An untagged call was not named after its caller!", "fallbackTest", ServiceNames.of(call));
+        }
+        finally {
+            Caller.keepLogs(keepsLogs);
+        }
+        Assert.assertEquals("example.com", ServiceNames.metricName(call.request()));
+        log.success("fallbackTest PASSED!");
+    }
+
+    /**
+     * A call that was not created by Retrofit, so its request has no invocation tag.
+     */
+    record UntaggedCall(Request request) implements Call<ResponseBody> {
+
+        @Override
+        public Response<ResponseBody> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback<ResponseBody> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return false;
+        }
+
+        @Override
+        public void cancel() {}
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+
+        @Override
+        public Call<ResponseBody> clone() {
+            return new UntaggedCall(request);
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+}
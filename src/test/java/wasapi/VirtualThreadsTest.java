@@ -0,0 +1,101 @@
+package wasapi;
+
+import okhttp3.OkHttpClient;
+import org.junit.*;
+import utils.Printer;
+import wasapi.exceptions.WasapiException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class VirtualThreadsTest {
+
+    static Printer log = new Printer(VirtualThreadsTest.class);
+
+    static final boolean SUPPORTED = Runtime.version().feature() >= 21;
+
+    boolean usedVirtualThreads;
+
+    @Before
+    public void before() {
+        usedVirtualThreads = Caller.usesVirtualThreads();
+    }
+
+    @After
+    public void after() {
+        Caller.useVirtualThreads(usedVirtualThreads);
+    }
+
+    @Test
+    public void supportTest() throws Exception {
+        Assert.assertEquals("Virtual thread support was not detected by JDK version!", SUPPORTED, VirtualThreads.isSupported());
+        if (SUPPORTED) {
+            ExecutorService executor = VirtualThreads.newExecutor();
+            try {
+                Assert.assertTrue(isVirtual(executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS)));
+            }
+            finally {
+                executor.shutdown();
+            }
+        }
+        else Assert.assertThrows(WasapiException.class, VirtualThreads::newExecutor);
+        log.success("supportTest PASSED!");
+    }
+
+    @Test
+    public void platformExecutorTest() throws Exception {
+        ExecutorService executor = VirtualThreads.newPlatformExecutor("wasapi-test");
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            Assert.assertFalse(isVirtual(thread));
+            Assert.assertTrue(thread.isDaemon());
+            Assert.assertEquals("wasapi-test-1", thread.getName());
+        }
+        finally {
+            executor.shutdown();
+        }
+        log.success("platformExecutorTest PASSED!");
+    }
+
+    @Test
+    public void callerExecutorTest() throws Exception {
+        Caller.useVirtualThreads(true);
+        Assert.assertTrue(Caller.usesVirtualThreads());
+        Thread thread = Caller.executor().submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("Background calls did not follow useVirtualThreads!", SUPPORTED, isVirtual(thread));
+        if (!SUPPORTED) Assert.assertTrue("There was no platform thread fallback!", thread.getName().startsWith("wasapi-caller-"));
+
+        Caller.useVirtualThreads(false);
+        thread = Caller.executor().submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(isVirtual(thread));
+        Assert.assertTrue(thread.getName().startsWith("wasapi-caller-"));
+        log.success("callerExecutorTest PASSED!");
+    }
+
+    @Test
+    public void dispatcherTest() throws Exception {
+        OkHttpClient virtual = HttpClientRegistry.getClient(transportKey(true));
+        Thread thread = virtual.dispatcher().executorService().submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("The dispatcher did not follow the virtualThreads setting!", SUPPORTED, isVirtual(thread));
+
+        OkHttpClient platform = HttpClientRegistry.getClient(transportKey(false));
+        thread = platform.dispatcher().executorService().submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(isVirtual(thread));
+        Assert.assertNotSame(virtual.dispatcher(), platform.dispatcher());
+        log.success("dispatcherTest PASSED!");
+    }
+
+    static HttpClientRegistry.TransportKey transportKey(boolean virtualThreads) {
+        return new HttpClientRegistry.TransportKey(
+                60, 60, 60, true, true, null, 0, virtualThreads, HttpProtocol.HTTP_2, 0, 64, 5
+        );
+    }
+
+    /**
+     * Calls {@code Thread.isVirtual()}, which JDK 17 does not have.
+     */
+    static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        if (!SUPPORTED) return false;
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}
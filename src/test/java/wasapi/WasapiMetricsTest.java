@@ -0,0 +1,122 @@
+package wasapi;
+
+import okhttp3.Request;
+import org.junit.*;
+import utils.Printer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class WasapiMetricsTest {
+
+    static Printer log = new Printer(WasapiMetricsTest.class);
+
+    static final Request REQUEST = new Request.Builder().url("http://metrics.test/items").build();
+
+    @Before
+    public void before() {
+        WasapiMetrics.setEnabled(true);
+        WasapiMetrics.reset();
+    }
+
+    @After
+    public void after() {
+        WasapiMetrics.setEnabled(true);
+        WasapiMetrics.reset();
+    }
+
+    @Test
+    public void bucketTest() {
+        for (long micros : new long[]{0, 1, 15, 16, 17, 1_000, 65_537, 1_000_000, 123_456_789}) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros * 2 + 1));
+            long p50 = TimeUnit.NANOSECONDS.toMicros(histogram.snapshot().p50().toNanos());
+            Assert.assertTrue("The bucket of " + micros + "µs ends below it: " + p50, p50 >= micros);
+            Assert.assertTrue("The bucket of " + micros + "µs is too wide: " + p50, p50 <= micros * 1.0625 + (micros < 16 ? 0 : 1));
+            if (micros < 16) Assert.assertEquals("Values below 16µs are not exact!", micros, p50);
+        }
+        log.success("bucketTest PASSED!");
+    }
+
+    @Test
+    public void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+
+        WasapiMetrics.LatencySnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(1000, snapshot.count());
+        Assert.assertEquals(Duration.ofMillis(1000), snapshot.max());
+        Assert.assertEquals(Duration.ofNanos(500_500_000), snapshot.mean());
+        assertWithin(Duration.ofMillis(500), snapshot.p50());
+        assertWithin(Duration.ofMillis(990), snapshot.p99());
+        assertWithin(Duration.ofMillis(999), snapshot.p999());
+
+        Assert.assertNull("A percentile of too few latencies was returned!", histogram.percentile(0.5, 1001));
+        assertWithin(Duration.ofMillis(900), histogram.percentile(0.9, 1000));
+        log.success("percentileTest PASSED!");
+    }
+
+    @Test
+    public void clampTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+        Assert.assertEquals(Duration.ZERO, histogram.snapshot().max());
+
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(2, histogram.snapshot().count());
+        Assert.assertEquals("An out of range latency was not clamped!", Duration.ofNanos(((1L << 40) - 1) * 1_000), histogram.snapshot().max());
+        Assert.assertEquals(Duration.ZERO, new LatencyHistogram().snapshot().p999());
+        log.success("clampTest PASSED!");
+    }
+
+    @Test
+    public void prometheusTest() {
+        WasapiMetrics.recordCall(REQUEST, 200, TimeUnit.MILLISECONDS.toNanos(2));
+        WasapiMetrics.recordCall(REQUEST, 404, TimeUnit.MILLISECONDS.toNanos(4));
+        WasapiMetrics.recordFailure(REQUEST, TimeUnit.MILLISECONDS.toNanos(6));
+        WasapiMetrics.recordRetry(REQUEST, 100);
+        WasapiMetrics.recordHedge(REQUEST, false);
+        WasapiMetrics.recordHedge(REQUEST, true);
+
+        String export = WasapiMetrics.toPrometheus();
+        Assert.assertTrue(export.contains("# TYPE wasapi_calls_total counter\n"));
+        Assert.assertTrue(export.contains("wasapi_calls_total{service=\"metrics.test\"} 3\n"));
+        Assert.assertTrue(export.contains("wasapi_call_failures_total{service=\"metrics.test\"} 1\n"));
+        Assert.assertTrue(export.contains("wasapi_retries_total{service=\"metrics.test\"} 1\n"));
+        Assert.assertTrue(export.contains("wasapi_hedges_total{service=\"metrics.test\"} 1\n"));
+        Assert.assertTrue(export.contains("wasapi_hedges_won_total{service=\"metrics.test\"} 1\n"));
+        Assert.assertTrue(export.contains("wasapi_responses_total{service=\"metrics.test\",code=\"200\"} 1\n"));
+        Assert.assertTrue(export.contains("wasapi_responses_total{service=\"metrics.test\",code=\"404\"} 1\n"));
+        Assert.assertTrue(export.contains("# TYPE wasapi_call_latency_seconds summary\n"));
+        Assert.assertTrue(export.contains("wasapi_call_latency_seconds_count{service=\"metrics.test\"} 3\n"));
+        Assert.assertTrue(export.contains("wasapi_call_latency_seconds_sum{service=\"metrics.test\"} 0.012\n"));
+        Assert.assertTrue(export.contains("wasapi_retry_delay_seconds{service=\"metrics.test\",quantile=\"0.5\"} 0.1\n"));
+        Assert.assertFalse("Phases without samples were exported!", export.contains("wasapi_phase_latency_seconds{"));
+        for (String line : export.split("\n"))
+            Assert.assertTrue("Not a comment or a sample: " + line, line.startsWith("# TYPE ") || line.matches("\\w+\\{[^}]*} \\S+"));
+        log.success("prometheusTest PASSED!");
+    }
+
+    @Test
+    public void disabledTest() {
+        WasapiMetrics.setEnabled(false);
+        WasapiMetrics.recordCall(REQUEST, 200, 1_000);
+        WasapiMetrics.service(REQUEST).bytesSent.add(100);
+
+        Assert.assertNull("A service was created while metrics were disabled!", WasapiMetrics.snapshot("metrics.test"));
+        Assert.assertTrue(WasapiMetrics.snapshot().isEmpty());
+
+        WasapiMetrics.setEnabled(true);
+        WasapiMetrics.recordCall(REQUEST, 200, 1_000);
+        Assert.assertEquals(0, WasapiMetrics.snapshot("metrics.test").bytesSent());
+        log.success("disabledTest PASSED!");
+    }
+
+    static void assertWithin(Duration expected, Duration actual) {
+        Assert.assertTrue(
+                "Expected about " + expected + " but got " + actual,
+                actual.compareTo(expected) >= 0 && actual.toNanos() <= expected.toNanos() * 1.0625
+        );
+    }
+}